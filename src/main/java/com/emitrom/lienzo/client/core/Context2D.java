@@ -17,6 +17,11 @@
 
 package com.emitrom.lienzo.client.core;
 
+import com.emitrom.lienzo.client.core.types.LevelOfDetail;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
+import java.util.List;
+
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.DashArray;
 import com.emitrom.lienzo.client.core.types.ImageData;
 import com.emitrom.lienzo.client.core.types.ImageDataPixelColor;
@@ -46,6 +51,28 @@ public class Context2D
 {
     private final NativeContext2D m_jso;
 
+    private double[]              m_stack = new double[6 * 16];
+
+    private int                   m_depth = 0;
+
+    private double                m_m00   = 1;
+
+    private double                m_m10   = 0;
+
+    private double                m_m01   = 0;
+
+    private double                m_m11   = 1;
+
+    private double                m_m02   = 0;
+
+    private double                m_m12   = 0;
+
+    private List<BoundingBox>     m_cull  = null;
+
+    private boolean               m_quick = false;
+
+    private LevelOfDetail         m_lod   = null;
+
     public Context2D(NativeContext2D jso)
     {
         m_jso = jso;
@@ -54,11 +81,177 @@ public class Context2D
     public void save()
     {
         m_jso.save();
+
+        pushTransform();
     }
 
     public void restore()
     {
         m_jso.restore();
+
+        popTransform();
+    }
+
+    /**
+     * Pushes the tracked transform, without saving the canvas state.
+     */
+    final void pushTransform()
+    {
+        int indx = m_depth * 6;
+
+        if (indx + 6 > m_stack.length)
+        {
+            double[] stack = new double[m_stack.length * 2];
+
+            for (int i = 0; i < indx; i++)
+            {
+                stack[i] = m_stack[i];
+            }
+            m_stack = stack;
+        }
+        m_stack[indx] = m_m00;
+
+        m_stack[indx + 1] = m_m10;
+
+        m_stack[indx + 2] = m_m01;
+
+        m_stack[indx + 3] = m_m11;
+
+        m_stack[indx + 4] = m_m02;
+
+        m_stack[indx + 5] = m_m12;
+
+        m_depth++;
+    }
+
+    /**
+     * Pops the tracked transform, without restoring the canvas state.
+     */
+    final void popTransform()
+    {
+        if (m_depth > 0)
+        {
+            m_depth--;
+
+            int indx = m_depth * 6;
+
+            m_m00 = m_stack[indx];
+
+            m_m10 = m_stack[indx + 1];
+
+            m_m01 = m_stack[indx + 2];
+
+            m_m11 = m_stack[indx + 3];
+
+            m_m02 = m_stack[indx + 4];
+
+            m_m12 = m_stack[indx + 5];
+        }
+    }
+
+    /**
+     * Sets the canvas-space rectangles that are being redrawn. While a region is set,
+     * {@link #isCulled(Transform, BoundingBox, double)} reports Nodes that paint outside of it.
+     * 
+     * @param region the rectangles, or null to stop culling
+     */
+    public void setCullingRegion(List<BoundingBox> region)
+    {
+        m_cull = region;
+    }
+
+    public List<BoundingBox> getCullingRegion()
+    {
+        return m_cull;
+    }
+
+    public boolean isCulling()
+    {
+        return (null != m_cull);
+    }
+
+    /**
+     * Sets the {@link LevelOfDetail} used by shapes that do not have their own, or null to draw everything in full.
+     * 
+     * @param lod
+     */
+    public void setLevelOfDetail(LevelOfDetail lod)
+    {
+        m_lod = lod;
+    }
+
+    public LevelOfDetail getLevelOfDetail()
+    {
+        return m_lod;
+    }
+
+    /**
+     * Returns true if a box, in coordinates local to the current transform followed by <code>transform</code>,
+     * grown by <code>margin</code> canvas pixels, misses every rectangle of the culling region.
+     * A null box is never culled, as its bounds are unknown.
+     * 
+     * @param transform may be null
+     * @param box
+     * @param margin
+     * @return boolean
+     */
+    public boolean isCulled(Transform transform, BoundingBox box, double margin)
+    {
+        if ((null == m_cull) || (null == box))
+        {
+            return false;
+        }
+        if (box.isEmpty())
+        {
+            return true;
+        }
+        double m00 = m_m00, m10 = m_m10, m01 = m_m01, m11 = m_m11, m02 = m_m02, m12 = m_m12;
+
+        if (null != transform)
+        {
+            final double t00 = transform.get(0), t10 = transform.get(1), t01 = transform.get(2), t11 = transform.get(3), t02 = transform.get(4), t12 = transform.get(5);
+
+            m02 = m_m00 * t02 + m_m01 * t12 + m_m02;
+
+            m12 = m_m10 * t02 + m_m11 * t12 + m_m12;
+
+            m00 = m_m00 * t00 + m_m01 * t10;
+
+            m10 = m_m10 * t00 + m_m11 * t10;
+
+            m01 = m_m00 * t01 + m_m01 * t11;
+
+            m11 = m_m10 * t01 + m_m11 * t11;
+        }
+        BoundingBox bbox = box.transform(m00, m10, m01, m11, m02, m12).expand(margin);
+
+        final int size = m_cull.size();
+
+        for (int i = 0; i < size; i++)
+        {
+            if (bbox.intersects(m_cull.get(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final void doTransform(double d0, double d1, double d2, double d3, double d4, double d5)
+    {
+        final double m00 = m_m00, m10 = m_m10, m01 = m_m01, m11 = m_m11;
+
+        m_m02 = m00 * d4 + m01 * d5 + m_m02;
+
+        m_m12 = m10 * d4 + m11 * d5 + m_m12;
+
+        m_m00 = m00 * d0 + m01 * d1;
+
+        m_m10 = m10 * d0 + m11 * d1;
+
+        m_m01 = m00 * d2 + m01 * d3;
+
+        m_m11 = m10 * d2 + m11 * d3;
     }
 
     public void beginPath()
@@ -71,6 +264,16 @@ public class Context2D
         m_jso.closePath();
     }
 
+    /**
+     * Begins a new path and replays the retained path into it.
+     * 
+     * @param path
+     */
+    public void path(PathBuffer path)
+    {
+        m_jso.path(path.getJSO());
+    }
+
     public void rect(double x, double y, double w, double h)
     {
         m_jso.rect(x, y, w, h);
@@ -158,6 +361,8 @@ public class Context2D
     public void transform(double d0, double d1, double d2, double d3, double d4, double d5)
     {
         m_jso.transform(d0, d1, d2, d3, d4, d5);
+
+        doTransform(d0, d1, d2, d3, d4, d5);
     }
 
     public void moveTo(double x, double y)
@@ -177,12 +382,30 @@ public class Context2D
 
     public void setFillGradient(LinearGradient gradient)
     {
-        m_jso.setFillGradient(gradient);
+        String flat = m_quick ? gradient.getJSO().getFlatColor() : null;
+
+        if (null != flat)
+        {
+            m_jso.setFillColor(flat);
+        }
+        else
+        {
+            m_jso.setFillGradient(gradient);
+        }
     }
 
     public void setFillGradient(RadialGradient gradient)
     {
-        m_jso.setFillGradient(gradient);
+        String flat = m_quick ? gradient.getJSO().getFlatColor() : null;
+
+        if (null != flat)
+        {
+            m_jso.setFillColor(flat);
+        }
+        else
+        {
+            m_jso.setFillGradient(gradient);
+        }
     }
 
     public void quadraticCurveTo(double cpx, double cpy, double x, double y)
@@ -193,6 +416,8 @@ public class Context2D
     public void transform(Transform transform)
     {
         m_jso.transform(transform);
+
+        doTransform(transform.get(0), transform.get(1), transform.get(2), transform.get(3), transform.get(4), transform.get(5));
     }
 
     public void setTextFont(String font)
@@ -234,16 +459,26 @@ public class Context2D
     public void translate(double x, double y)
     {
         m_jso.translate(x, y);
+
+        doTransform(1, 0, 0, 1, x, y);
     }
 
     public void rotate(double rot)
     {
         m_jso.rotate(rot);
+
+        final double c = Math.cos(rot);
+
+        final double s = Math.sin(rot);
+
+        doTransform(c, s, -s, c, 0, 0);
     }
 
     public void scale(double sx, double sy)
     {
         m_jso.scale(sx, sy);
+
+        doTransform(sx, 0, 0, sy, 0, 0);
     }
 
     public void clearRect(double x, double y, double wide, double high)
@@ -258,7 +493,10 @@ public class Context2D
 
     public void setShadow(Shadow shadow)
     {
-        m_jso.setShadow(shadow);
+        if (false == m_quick)
+        {
+            m_jso.setShadow(shadow);
+        }
     }
 
     public void clip()
@@ -311,6 +549,34 @@ public class Context2D
         return m_jso.measureText(text);
     }
 
+    final void copyTransform(double[] into)
+    {
+        into[0] = m_m00;
+
+        into[1] = m_m10;
+
+        into[2] = m_m01;
+
+        into[3] = m_m11;
+
+        into[4] = m_m02;
+
+        into[5] = m_m12;
+    }
+
+    final boolean isTransform(double[] m)
+    {
+        return ((m[0] == m_m00) && (m[1] == m_m10) && (m[2] == m_m01) && (m[3] == m_m11) && (m[4] == m_m02) && (m[5] == m_m12));
+    }
+
+    /**
+     * Sets the canvas transform to the tracked one.
+     */
+    final void resetTransform()
+    {
+        m_jso.setTransform(m_m00, m_m10, m_m01, m_m11, m_m02, m_m12);
+    }
+
     public void setGlobalCompositeOperation(CompositeOperation operation)
     {
         m_jso.setGlobalCompositeOperation(operation);
@@ -321,11 +587,37 @@ public class Context2D
         return CompositeOperation.lookup(m_jso.getGlobalCompositeOperation());
     }
 
+    /**
+     * Returns the scale factor of the current transform, as the square root of its determinant.
+     * 
+     * @return double
+     */
+    public double getTransformScale()
+    {
+        return Math.sqrt(Math.abs((m_m00 * m_m11) - (m_m01 * m_m10)));
+    }
+
     public boolean isSelection()
     {
         return false;
     }
 
+    /**
+     * Sets whether this context favors speed over quality, for example while the viewport is panned or zoomed.
+     * Shadows and dashes are then ignored, and linear and radial gradients are drawn as a flat color.
+     * 
+     * @param interactive
+     */
+    public void setInteractive(boolean interactive)
+    {
+        m_quick = interactive;
+    }
+
+    public boolean isInteractive()
+    {
+        return m_quick;
+    }
+
     public boolean isDrag()
     {
         return false;
@@ -361,6 +653,11 @@ public class Context2D
         m_jso.drawImage(image, x, y, w, h);
     }
 
+    public void setImageSmoothingEnabled(boolean enabled)
+    {
+        m_jso.setImageSmoothingEnabled(enabled);
+    }
+
     public void drawImage(Element image, double sx, double sy, double sw, double sh, double x, double y, double w, double h)
     {
         m_jso.drawImage(image, sx, sy, sw, sh, x, y, w, h);
@@ -368,7 +665,7 @@ public class Context2D
 
     public void setLineDash(DashArray dashes)
     {
-        if (null != dashes)
+        if ((null != dashes) && (false == m_quick))
         {
             m_jso.setLineDash(dashes.getJSO());
         }
@@ -395,5 +692,18 @@ public class Context2D
         /*-{
 			return this.type;
         }-*/;
+
+        /**
+         * Returns the color of the middle color stop, used in place of the gradient when drawing quickly.
+         */
+        public final native String getFlatColor()
+        /*-{
+			var list = this.colorStops;
+
+			if ((list) && (list.length > 0)) {
+				return list[Math.floor(list.length / 2)].color;
+			}
+			return null;
+        }-*/;
     }
 }
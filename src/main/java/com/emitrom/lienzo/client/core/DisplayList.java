@@ -0,0 +1,486 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core;
+
+import java.util.ArrayList;
+
+import com.emitrom.lienzo.client.core.types.DashArray;
+import com.emitrom.lienzo.client.core.types.ImageData;
+import com.emitrom.lienzo.client.core.types.ImageLoader.ImageJSO;
+import com.emitrom.lienzo.client.core.types.LinearGradient;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
+import com.emitrom.lienzo.client.core.types.PatternGradient;
+import com.emitrom.lienzo.client.core.types.RadialGradient;
+import com.emitrom.lienzo.client.core.types.Shadow;
+import com.emitrom.lienzo.shared.core.types.CompositeOperation;
+import com.emitrom.lienzo.shared.core.types.LineCap;
+import com.emitrom.lienzo.shared.core.types.LineJoin;
+import com.emitrom.lienzo.shared.core.types.TextAlign;
+import com.emitrom.lienzo.shared.core.types.TextBaseLine;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.dom.client.Element;
+
+/**
+ * A recorded list of {@link Context2D} calls, filled in by a {@link RecordingContext2D}.
+ * <p>
+ * Op codes and numeric arguments are kept in one flat number array (a Float64Array where the browser has one),
+ * and strings, gradients, images and other objects in a side table, so that {@link #replay(Context2D)} is a
+ * single loop with no Node traversal, attribute lookups or object creation.
+ */
+public final class DisplayList
+{
+    static final int                SAVE          = 0;
+
+    static final int                RESTORE       = 1;
+
+    static final int                BEGIN_PATH    = 2;
+
+    static final int                CLOSE_PATH    = 3;
+
+    static final int                MOVE_TO       = 4;
+
+    static final int                LINE_TO       = 5;
+
+    static final int                QUADRATIC_TO  = 6;
+
+    static final int                BEZIER_TO     = 7;
+
+    static final int                ARC           = 8;
+
+    static final int                RECT          = 9;
+
+    static final int                PATH          = 10;
+
+    static final int                FILL          = 11;
+
+    static final int                STROKE        = 12;
+
+    static final int                FILL_RECT     = 13;
+
+    static final int                CLEAR_RECT    = 14;
+
+    static final int                CLIP          = 15;
+
+    static final int                RESET_CLIP    = 16;
+
+    static final int                TRANSFORM     = 17;
+
+    static final int                TRANSLATE     = 18;
+
+    static final int                ROTATE        = 19;
+
+    static final int                SCALE         = 20;
+
+    static final int                GLOBAL_ALPHA  = 21;
+
+    static final int                FILL_COLOR    = 22;
+
+    static final int                FILL_LINEAR   = 23;
+
+    static final int                FILL_RADIAL   = 24;
+
+    static final int                FILL_PATTERN  = 25;
+
+    static final int                STROKE_COLOR  = 26;
+
+    static final int                STROKE_WIDTH  = 27;
+
+    static final int                LINE_CAP      = 28;
+
+    static final int                LINE_JOIN     = 29;
+
+    static final int                MITER_LIMIT   = 30;
+
+    static final int                SHADOW        = 31;
+
+    static final int                LINE_DASH     = 32;
+
+    static final int                DASH_OFFSET   = 33;
+
+    static final int                COMPOSITE     = 34;
+
+    static final int                TEXT_FONT     = 35;
+
+    static final int                TEXT_ALIGN    = 36;
+
+    static final int                TEXT_BASELINE = 37;
+
+    static final int                SMOOTHING     = 38;
+
+    static final int                FILL_TEXT     = 39;
+
+    static final int                STROKE_TEXT   = 40;
+
+    static final int                IMAGE_3       = 41;
+
+    static final int                IMAGE_5       = 42;
+
+    static final int                IMAGE_9       = 43;
+
+    static final int                ELEMENT_3     = 44;
+
+    static final int                ELEMENT_5     = 45;
+
+    static final int                ELEMENT_9     = 46;
+
+    static final int                PUT_IMAGE_3   = 47;
+
+    static final int                PUT_IMAGE_7   = 48;
+
+    private final DisplayListJSO    m_data        = DisplayListJSO.make();
+
+    private final ArrayList<Object> m_objs        = new ArrayList<Object>();
+
+    private int                     m_size        = 0;
+
+    DisplayList()
+    {
+    }
+
+    /**
+     * Returns the number of recorded calls.
+     * 
+     * @return int
+     */
+    public final int size()
+    {
+        return m_size;
+    }
+
+    public final boolean isEmpty()
+    {
+        return (0 == m_size);
+    }
+
+    /**
+     * Plays the recorded calls into the given context, in order.
+     * <p>
+     * Calls go through the public {@link Context2D} methods, so a {@link StateTrackingContext2D} still skips
+     * redundant state, and any transform already set on the context applies to the whole list.
+     * 
+     * @param context
+     */
+    public final void replay(Context2D context)
+    {
+        final DisplayListJSO data = m_data;
+
+        final ArrayList<Object> objs = m_objs;
+
+        final int size = data.length();
+
+        int i = 0;
+
+        int o = 0;
+
+        while (i < size)
+        {
+            switch ((int) data.get(i++))
+            {
+                case SAVE:
+                    context.save();
+                    break;
+                case RESTORE:
+                    context.restore();
+                    break;
+                case BEGIN_PATH:
+                    context.beginPath();
+                    break;
+                case CLOSE_PATH:
+                    context.closePath();
+                    break;
+                case MOVE_TO:
+                    context.moveTo(data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case LINE_TO:
+                    context.lineTo(data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case QUADRATIC_TO:
+                    context.quadraticCurveTo(data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3));
+                    i += 4;
+                    break;
+                case BEZIER_TO:
+                    context.bezierCurveTo(data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3), data.get(i + 4), data.get(i + 5));
+                    i += 6;
+                    break;
+                case ARC:
+                    context.arc(data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3), data.get(i + 4), (0 != data.get(i + 5)));
+                    i += 6;
+                    break;
+                case RECT:
+                    context.rect(data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3));
+                    i += 4;
+                    break;
+                case PATH:
+                    context.path((PathBuffer) objs.get(o++));
+                    break;
+                case FILL:
+                    context.fill();
+                    break;
+                case STROKE:
+                    context.stroke();
+                    break;
+                case FILL_RECT:
+                    context.fillRect(data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3));
+                    i += 4;
+                    break;
+                case CLEAR_RECT:
+                    context.clearRect(data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3));
+                    i += 4;
+                    break;
+                case CLIP:
+                    context.clip();
+                    break;
+                case RESET_CLIP:
+                    context.resetClip();
+                    break;
+                case TRANSFORM:
+                    context.transform(data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3), data.get(i + 4), data.get(i + 5));
+                    i += 6;
+                    break;
+                case TRANSLATE:
+                    context.translate(data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case ROTATE:
+                    context.rotate(data.get(i++));
+                    break;
+                case SCALE:
+                    context.scale(data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case GLOBAL_ALPHA:
+                    context.setGlobalAlpha(data.get(i++));
+                    break;
+                case FILL_COLOR:
+                    context.setFillColor((String) objs.get(o++));
+                    break;
+                case FILL_LINEAR:
+                    context.setFillGradient((LinearGradient) objs.get(o++));
+                    break;
+                case FILL_RADIAL:
+                    context.setFillGradient((RadialGradient) objs.get(o++));
+                    break;
+                case FILL_PATTERN:
+                    context.setFillGradient((PatternGradient) objs.get(o++));
+                    break;
+                case STROKE_COLOR:
+                    context.setStrokeColor((String) objs.get(o++));
+                    break;
+                case STROKE_WIDTH:
+                    context.setStrokeWidth(data.get(i++));
+                    break;
+                case LINE_CAP:
+                    context.setLineCap((LineCap) objs.get(o++));
+                    break;
+                case LINE_JOIN:
+                    context.setLineJoin((LineJoin) objs.get(o++));
+                    break;
+                case MITER_LIMIT:
+                    context.setMiterLimit(data.get(i++));
+                    break;
+                case SHADOW:
+                    context.setShadow((Shadow) objs.get(o++));
+                    break;
+                case LINE_DASH:
+                    context.setLineDash((DashArray) objs.get(o++));
+                    break;
+                case DASH_OFFSET:
+                    context.setLineDashOffset(data.get(i++));
+                    break;
+                case COMPOSITE:
+                    context.setGlobalCompositeOperation((CompositeOperation) objs.get(o++));
+                    break;
+                case TEXT_FONT:
+                    context.setTextFont((String) objs.get(o++));
+                    break;
+                case TEXT_ALIGN:
+                    context.setTextAlign((TextAlign) objs.get(o++));
+                    break;
+                case TEXT_BASELINE:
+                    context.setTextBaseline((TextBaseLine) objs.get(o++));
+                    break;
+                case SMOOTHING:
+                    context.setImageSmoothingEnabled(0 != data.get(i++));
+                    break;
+                case FILL_TEXT:
+                    context.fillText((String) objs.get(o++), data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case STROKE_TEXT:
+                    context.strokeText((String) objs.get(o++), data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case IMAGE_3:
+                    context.drawImage((ImageJSO) objs.get(o++), data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case IMAGE_5:
+                    context.drawImage((ImageJSO) objs.get(o++), data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3));
+                    i += 4;
+                    break;
+                case IMAGE_9:
+                    context.drawImage((ImageJSO) objs.get(o++), data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3), data.get(i + 4), data.get(i + 5), data.get(i + 6), data.get(i + 7));
+                    i += 8;
+                    break;
+                case ELEMENT_3:
+                    context.drawImage((Element) objs.get(o++), data.get(i), data.get(i + 1));
+                    i += 2;
+                    break;
+                case ELEMENT_5:
+                    context.drawImage((Element) objs.get(o++), data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3));
+                    i += 4;
+                    break;
+                case ELEMENT_9:
+                    context.drawImage((Element) objs.get(o++), data.get(i), data.get(i + 1), data.get(i + 2), data.get(i + 3), data.get(i + 4), data.get(i + 5), data.get(i + 6), data.get(i + 7));
+                    i += 8;
+                    break;
+                case PUT_IMAGE_3:
+                    context.putImageData((ImageData) objs.get(o++), (int) data.get(i), (int) data.get(i + 1));
+                    i += 2;
+                    break;
+                case PUT_IMAGE_7:
+                    context.putImageData((ImageData) objs.get(o++), (int) data.get(i), (int) data.get(i + 1), (int) data.get(i + 2), (int) data.get(i + 3), (int) data.get(i + 4), (int) data.get(i + 5));
+                    i += 6;
+                    break;
+            }
+        }
+    }
+
+    final void op(int op)
+    {
+        m_size++;
+
+        m_data.push(op);
+    }
+
+    final void op(int op, double a)
+    {
+        op(op);
+
+        m_data.push(a);
+    }
+
+    final void op(int op, double a, double b)
+    {
+        op(op);
+
+        m_data.push(a);
+
+        m_data.push(b);
+    }
+
+    final void op(int op, double a, double b, double c, double d)
+    {
+        op(op, a, b);
+
+        m_data.push(c);
+
+        m_data.push(d);
+    }
+
+    final void op(int op, double a, double b, double c, double d, double e, double f)
+    {
+        op(op, a, b, c, d);
+
+        m_data.push(e);
+
+        m_data.push(f);
+    }
+
+    /**
+     * Appends two more arguments to the last op, for the calls that take eight.
+     */
+    final void op2(double a, double b)
+    {
+        m_data.push(a);
+
+        m_data.push(b);
+    }
+
+    final void obj(Object value)
+    {
+        m_objs.add(value);
+    }
+
+    /**
+     * Releases the spare capacity once recording is done.
+     */
+    final void compact()
+    {
+        m_data.compact();
+    }
+
+    private static final class DisplayListJSO extends JavaScriptObject
+    {
+        protected DisplayListJSO()
+        {
+        }
+
+        static final native DisplayListJSO make()
+        /*-{
+			if ($wnd.Float64Array) {
+				return {
+					data : new $wnd.Float64Array(256),
+					size : 0,
+					typed : true
+				};
+			}
+			return {
+				data : [],
+				size : 0,
+				typed : false
+			};
+        }-*/;
+
+        final native int length()
+        /*-{
+			return this.size;
+        }-*/;
+
+        final native double get(int i)
+        /*-{
+			return this.data[i];
+        }-*/;
+
+        final native void push(double value)
+        /*-{
+			if ((this.typed) && (this.size == this.data.length)) {
+				var grow = new $wnd.Float64Array(this.size * 2);
+
+				grow.set(this.data);
+
+				this.data = grow;
+			}
+			this.data[this.size++] = value;
+        }-*/;
+
+        final native void compact()
+        /*-{
+			if ((this.typed) && (this.size < this.data.length)) {
+				var trim = new $wnd.Float64Array(this.size);
+
+				trim.set(this.data.subarray(0, this.size));
+
+				this.data = trim;
+			}
+        }-*/;
+    }
+}
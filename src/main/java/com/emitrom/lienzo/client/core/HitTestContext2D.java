@@ -0,0 +1,648 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core;
+
+import java.util.ArrayList;
+
+import com.emitrom.lienzo.client.core.types.DashArray;
+import com.emitrom.lienzo.client.core.types.ImageLoader.ImageJSO;
+import com.emitrom.lienzo.client.core.types.LinearGradient;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
+import com.emitrom.lienzo.client.core.types.PatternGradient;
+import com.emitrom.lienzo.client.core.types.RadialGradient;
+import com.emitrom.lienzo.client.core.types.Shadow;
+import com.emitrom.lienzo.client.core.util.ScratchCanvas;
+import com.emitrom.lienzo.shared.core.types.IColor;
+import com.google.gwt.dom.client.Element;
+
+/**
+ * A {@link Context2D} that tests a point against what is drawn into it, instead of painting.
+ * <p>
+ * Paths are flattened into polygons in the coordinates the context started in; {@link #fill()} is a
+ * nonzero winding test and {@link #stroke()} a distance test against the stroke width. Like the selection
+ * pass, it reports {@link #isSelection()} as true, so Shapes draw exactly the areas they can be picked by.
+ * Images are tested by their destination rectangle, and text by its measured width and the height of an "M".
+ */
+public class HitTestContext2D extends Context2D
+{
+    private static final int         ARC_SEGMENTS   = 64;
+
+    private static final int         CURVE_SEGMENTS = 16;
+
+    private final double[]           m_xfrm         = new double[6];
+
+    private final ArrayList<SubPath> m_path         = new ArrayList<SubPath>();
+
+    private SubPath                  m_last         = null;
+
+    private double                   m_x;
+
+    private double                   m_y;
+
+    private double                   m_tolerance;
+
+    private double                   m_width        = 1;
+
+    private boolean                  m_hit          = false;
+
+    public HitTestContext2D()
+    {
+        super(new ScratchCanvas(1, 1).getContext().getJSO());
+    }
+
+    /**
+     * Starts a new test of the point, in the coordinates of the current transform.
+     * 
+     * @param x
+     * @param y
+     * @param tolerance how far outside of a stroke, in the same coordinates, still counts as a hit
+     */
+    public void reset(double x, double y, double tolerance)
+    {
+        m_x = x;
+
+        m_y = y;
+
+        m_tolerance = Math.max(0, tolerance);
+
+        m_width = 1;
+
+        m_hit = false;
+
+        m_path.clear();
+
+        m_last = null;
+    }
+
+    /**
+     * Returns true if anything filled or stroked since {@link #reset(double, double, double)} covers the point.
+     * 
+     * @return boolean
+     */
+    public boolean isHit()
+    {
+        return m_hit;
+    }
+
+    @Override
+    public boolean isSelection()
+    {
+        return true;
+    }
+
+    @Override
+    public void beginPath()
+    {
+        m_path.clear();
+
+        m_last = null;
+    }
+
+    @Override
+    public void closePath()
+    {
+        if (null != m_last)
+        {
+            m_last.m_closed = true;
+
+            double x = m_last.m_points[0];
+
+            double y = m_last.m_points[1];
+
+            m_last = new SubPath();
+
+            m_last.add(x, y);
+
+            m_path.add(m_last);
+        }
+    }
+
+    @Override
+    public void path(PathBuffer path)
+    {
+        beginPath();
+
+        if (null != path)
+        {
+            path.replay(this);
+        }
+    }
+
+    @Override
+    public void moveTo(double x, double y)
+    {
+        m_last = new SubPath();
+
+        m_path.add(m_last);
+
+        addPoint(x, y);
+    }
+
+    @Override
+    public void lineTo(double x, double y)
+    {
+        if (null == m_last)
+        {
+            moveTo(x, y);
+        }
+        else
+        {
+            addPoint(x, y);
+        }
+    }
+
+    @Override
+    public void quadraticCurveTo(double cpx, double cpy, double x, double y)
+    {
+        if (null == m_last)
+        {
+            moveTo(cpx, cpy);
+        }
+        copyTransform(m_xfrm);
+
+        final double x0 = m_last.getLastX();
+
+        final double y0 = m_last.getLastY();
+
+        final double x1 = mapX(cpx, cpy);
+
+        final double y1 = mapY(cpx, cpy);
+
+        final double x2 = mapX(x, y);
+
+        final double y2 = mapY(x, y);
+
+        for (int i = 1; i <= CURVE_SEGMENTS; i++)
+        {
+            final double t = ((double) i) / CURVE_SEGMENTS;
+
+            final double u = 1 - t;
+
+            m_last.add(u * u * x0 + 2 * u * t * x1 + t * t * x2, u * u * y0 + 2 * u * t * y1 + t * t * y2);
+        }
+    }
+
+    @Override
+    public void bezierCurveTo(double cp1x, double cp1y, double cp2x, double cp2y, double x, double y)
+    {
+        if (null == m_last)
+        {
+            moveTo(cp1x, cp1y);
+        }
+        copyTransform(m_xfrm);
+
+        final double x0 = m_last.getLastX();
+
+        final double y0 = m_last.getLastY();
+
+        final double x1 = mapX(cp1x, cp1y);
+
+        final double y1 = mapY(cp1x, cp1y);
+
+        final double x2 = mapX(cp2x, cp2y);
+
+        final double y2 = mapY(cp2x, cp2y);
+
+        final double x3 = mapX(x, y);
+
+        final double y3 = mapY(x, y);
+
+        for (int i = 1; i <= CURVE_SEGMENTS; i++)
+        {
+            final double t = ((double) i) / CURVE_SEGMENTS;
+
+            final double u = 1 - t;
+
+            final double a = u * u * u;
+
+            final double b = 3 * u * u * t;
+
+            final double c = 3 * u * t * t;
+
+            final double d = t * t * t;
+
+            m_last.add(a * x0 + b * x1 + c * x2 + d * x3, a * y0 + b * y1 + c * y2 + d * y3);
+        }
+    }
+
+    @Override
+    public void arc(double x, double y, double radius, double startAngle, double endAngle, boolean anticlockwise)
+    {
+        final double full = Math.PI * 2;
+
+        double sweep;
+
+        if (anticlockwise)
+        {
+            sweep = startAngle - endAngle;
+
+            if (sweep < full)
+            {
+                sweep = sweep % full;
+
+                if (sweep < 0)
+                {
+                    sweep += full;
+                }
+            }
+            sweep = -Math.min(sweep, full);
+        }
+        else
+        {
+            sweep = endAngle - startAngle;
+
+            if (sweep < full)
+            {
+                sweep = sweep % full;
+
+                if (sweep < 0)
+                {
+                    sweep += full;
+                }
+            }
+            sweep = Math.min(sweep, full);
+        }
+        final int steps = Math.max(1, (int) Math.ceil(Math.abs(sweep) / full * ARC_SEGMENTS));
+
+        lineTo(x + radius * Math.cos(startAngle), y + radius * Math.sin(startAngle));
+
+        for (int i = 1; i <= steps; i++)
+        {
+            final double a = startAngle + sweep * i / steps;
+
+            addPoint(x + radius * Math.cos(a), y + radius * Math.sin(a));
+        }
+    }
+
+    @Override
+    public void arc(double x, double y, double radius, double startAngle, double endAngle)
+    {
+        arc(x, y, radius, startAngle, endAngle, false);
+    }
+
+    @Override
+    public void rect(double x, double y, double w, double h)
+    {
+        moveTo(x, y);
+
+        addPoint(x + w, y);
+
+        addPoint(x + w, y + h);
+
+        addPoint(x, y + h);
+
+        closePath();
+    }
+
+    @Override
+    public void fill()
+    {
+        if ((false == m_hit) && (isInside(m_path)))
+        {
+            m_hit = true;
+        }
+    }
+
+    @Override
+    public void stroke()
+    {
+        if ((false == m_hit) && (isNear(m_path, (m_width * getTransformScale()) / 2 + m_tolerance)))
+        {
+            m_hit = true;
+        }
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h)
+    {
+        testRect(x, y, w, h);
+    }
+
+    @Override
+    public void fillText(String text, double x, double y)
+    {
+        testText(text, x, y);
+    }
+
+    @Override
+    public void strokeText(String text, double x, double y)
+    {
+        testText(text, x, y);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double x, double y, double w, double h)
+    {
+        testRect(x, y, w, h);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh)
+    {
+        testRect(dx, dy, dw, dh);
+    }
+
+    @Override
+    public void drawImage(Element image, double x, double y, double w, double h)
+    {
+        testRect(x, y, w, h);
+    }
+
+    @Override
+    public void drawImage(Element image, double sx, double sy, double sw, double sh, double x, double y, double w, double h)
+    {
+        testRect(x, y, w, h);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double x, double y)
+    {
+        testRect(x, y, image.getWidth(), image.getHeight());
+    }
+
+    @Override
+    public void drawImage(Element image, double x, double y)
+    {
+        testRect(x, y, image.getOffsetWidth(), image.getOffsetHeight());
+    }
+
+    @Override
+    public void setStrokeWidth(double width)
+    {
+        m_width = width;
+    }
+
+    @Override
+    public void setFillColor(String color)
+    {
+    }
+
+    @Override
+    public void setFillColor(IColor color)
+    {
+    }
+
+    @Override
+    public void setStrokeColor(String color)
+    {
+    }
+
+    @Override
+    public void setStrokeColor(IColor color)
+    {
+    }
+
+    @Override
+    public void setFillGradient(LinearGradient gradient)
+    {
+    }
+
+    @Override
+    public void setFillGradient(RadialGradient gradient)
+    {
+    }
+
+    @Override
+    public void setFillGradient(PatternGradient gradient)
+    {
+    }
+
+    @Override
+    public void setGlobalAlpha(double alpha)
+    {
+    }
+
+    @Override
+    public void setShadow(Shadow shadow)
+    {
+    }
+
+    @Override
+    public void setLineDash(DashArray dashes)
+    {
+    }
+
+    @Override
+    public void setLineDashOffset(double offset)
+    {
+    }
+
+    @Override
+    public void clip()
+    {
+    }
+
+    @Override
+    public void clearRect(double x, double y, double wide, double high)
+    {
+    }
+
+    private final void testRect(double x, double y, double w, double h)
+    {
+        if (false == m_hit)
+        {
+            ArrayList<SubPath> path = new ArrayList<SubPath>(1);
+
+            SubPath sub = new SubPath();
+
+            copyTransform(m_xfrm);
+
+            sub.add(mapX(x, y), mapY(x, y));
+
+            sub.add(mapX(x + w, y), mapY(x + w, y));
+
+            sub.add(mapX(x + w, y + h), mapY(x + w, y + h));
+
+            sub.add(mapX(x, y + h), mapY(x, y + h));
+
+            path.add(sub);
+
+            m_hit = isInside(path);
+        }
+    }
+
+    private final void testText(String text, double x, double y)
+    {
+        if ((false == m_hit) && (null != text) && (false == text.isEmpty()))
+        {
+            final double wide = measureText(text).getWidth();
+
+            final double high = measureText("M").getWidth();
+
+            testRect(x, y - high, wide, high);
+        }
+    }
+
+    private final void addPoint(double x, double y)
+    {
+        copyTransform(m_xfrm);
+
+        m_last.add(mapX(x, y), mapY(x, y));
+    }
+
+    private final double mapX(double x, double y)
+    {
+        return m_xfrm[0] * x + m_xfrm[2] * y + m_xfrm[4];
+    }
+
+    private final double mapY(double x, double y)
+    {
+        return m_xfrm[1] * x + m_xfrm[3] * y + m_xfrm[5];
+    }
+
+    /**
+     * Nonzero winding test of the point against every subpath, each implicitly closed.
+     */
+    private final boolean isInside(ArrayList<SubPath> path)
+    {
+        final double px = m_x;
+
+        final double py = m_y;
+
+        int wind = 0;
+
+        final int size = path.size();
+
+        for (int i = 0; i < size; i++)
+        {
+            SubPath sub = path.get(i);
+
+            final int n = sub.m_size / 2;
+
+            if (n < 3)
+            {
+                continue;
+            }
+            final double[] pts = sub.m_points;
+
+            for (int j = 0; j < n; j++)
+            {
+                final int k = (j + 1) % n;
+
+                final double x0 = pts[j * 2], y0 = pts[j * 2 + 1], x1 = pts[k * 2], y1 = pts[k * 2 + 1];
+
+                if (y0 <= py)
+                {
+                    if ((y1 > py) && (((x1 - x0) * (py - y0) - (px - x0) * (y1 - y0)) > 0))
+                    {
+                        wind++;
+                    }
+                }
+                else if ((y1 <= py) && (((x1 - x0) * (py - y0) - (px - x0) * (y1 - y0)) < 0))
+                {
+                    wind--;
+                }
+            }
+        }
+        return (0 != wind);
+    }
+
+    /**
+     * Returns true if the point is within <code>dist</code> of any segment of the path.
+     */
+    private final boolean isNear(ArrayList<SubPath> path, double dist)
+    {
+        final double px = m_x;
+
+        final double py = m_y;
+
+        final double dsq = dist * dist;
+
+        final int size = path.size();
+
+        for (int i = 0; i < size; i++)
+        {
+            SubPath sub = path.get(i);
+
+            final int n = sub.m_size / 2;
+
+            final double[] pts = sub.m_points;
+
+            final int last = sub.m_closed ? n : n - 1;
+
+            for (int j = 0; j < last; j++)
+            {
+                final int k = (j + 1) % n;
+
+                if (getSegmentDistanceSquared(px, py, pts[j * 2], pts[j * 2 + 1], pts[k * 2], pts[k * 2 + 1]) <= dsq)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final double getSegmentDistanceSquared(double px, double py, double x0, double y0, double x1, double y1)
+    {
+        final double dx = x1 - x0;
+
+        final double dy = y1 - y0;
+
+        final double len = dx * dx + dy * dy;
+
+        double t = 0;
+
+        if (len > 0)
+        {
+            t = Math.max(0, Math.min(1, ((px - x0) * dx + (py - y0) * dy) / len));
+        }
+        final double ex = px - (x0 + t * dx);
+
+        final double ey = py - (y0 + t * dy);
+
+        return ex * ex + ey * ey;
+    }
+
+    private static final class SubPath
+    {
+        private double[] m_points = new double[16];
+
+        private int      m_size   = 0;
+
+        private boolean  m_closed = false;
+
+        final void add(double x, double y)
+        {
+            if (m_size + 2 > m_points.length)
+            {
+                double[] points = new double[m_points.length * 2];
+
+                for (int i = 0; i < m_size; i++)
+                {
+                    points[i] = m_points[i];
+                }
+                m_points = points;
+            }
+            m_points[m_size++] = x;
+
+            m_points[m_size++] = y;
+        }
+
+        final double getLastX()
+        {
+            return m_points[m_size - 2];
+        }
+
+        final double getLastY()
+        {
+            return m_points[m_size - 1];
+        }
+    }
+}
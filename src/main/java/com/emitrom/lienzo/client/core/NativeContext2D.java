@@ -23,6 +23,7 @@ import com.emitrom.lienzo.client.core.types.ImageData;
 import com.emitrom.lienzo.client.core.types.ImageLoader.ImageJSO;
 import com.emitrom.lienzo.client.core.types.LinearGradient;
 import com.emitrom.lienzo.client.core.types.LinearGradient.LinearGradientJSO;
+import com.emitrom.lienzo.client.core.types.PathBuffer.PathBufferJSO;
 import com.emitrom.lienzo.client.core.types.PatternGradient;
 import com.emitrom.lienzo.client.core.types.PatternGradient.PatternGradientJSO;
 import com.emitrom.lienzo.client.core.types.RadialGradient;
@@ -79,6 +80,45 @@ public final class NativeContext2D extends JavaScriptObject
 		this.lineTo(x, y);
     }-*/;
 
+    public final native void setTransform(double d0, double d1, double d2, double d3, double d4, double d5)
+    /*-{
+		this.setTransform(d0, d1, d2, d3, d4, d5);
+    }-*/;
+
+    public final native void path(PathBufferJSO path)
+    /*-{
+		this.beginPath();
+		var i = 0;
+		var n = path.length;
+		while (i < n) {
+			switch (path[i++]) {
+			case 0:
+				this.moveTo(path[i], path[i + 1]);
+				i += 2;
+				break;
+			case 1:
+				this.lineTo(path[i], path[i + 1]);
+				i += 2;
+				break;
+			case 2:
+				this.quadraticCurveTo(path[i], path[i + 1], path[i + 2], path[i + 3]);
+				i += 4;
+				break;
+			case 3:
+				this.bezierCurveTo(path[i], path[i + 1], path[i + 2], path[i + 3], path[i + 4], path[i + 5]);
+				i += 6;
+				break;
+			case 4:
+				this.arc(path[i], path[i + 1], path[i + 2], path[i + 3], path[i + 4], (path[i + 5] == 1));
+				i += 6;
+				break;
+			case 5:
+				this.closePath();
+				break;
+			}
+		}
+    }-*/;
+
     public final void setLineCap(LineCap lineCap)
     {
         setLineCap(lineCap.getValue());
@@ -418,6 +458,15 @@ public final class NativeContext2D extends JavaScriptObject
 		this.drawImage(image, x, y, w, h);
     }-*/;
 
+    public final native void setImageSmoothingEnabled(boolean enabled)
+    /*-{
+		this.imageSmoothingEnabled = enabled;
+
+		this.mozImageSmoothingEnabled = enabled;
+
+		this.webkitImageSmoothingEnabled = enabled;
+    }-*/;
+
     public final native void drawImage(Element image, double sx, double sy, double sw, double sh, double x, double y, double w, double h)
     /*-{
 		this.imageSmoothingEnabled = true;
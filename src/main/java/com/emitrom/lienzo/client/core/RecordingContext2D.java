@@ -0,0 +1,492 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core;
+
+import com.emitrom.lienzo.client.core.types.DashArray;
+import com.emitrom.lienzo.client.core.types.ImageData;
+import com.emitrom.lienzo.client.core.types.ImageLoader.ImageJSO;
+import com.emitrom.lienzo.client.core.types.LinearGradient;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
+import com.emitrom.lienzo.client.core.types.PatternGradient;
+import com.emitrom.lienzo.client.core.types.RadialGradient;
+import com.emitrom.lienzo.client.core.types.Shadow;
+import com.emitrom.lienzo.client.core.types.Transform;
+import com.emitrom.lienzo.client.core.util.ScratchCanvas;
+import com.emitrom.lienzo.shared.core.types.CompositeOperation;
+import com.emitrom.lienzo.shared.core.types.IColor;
+import com.emitrom.lienzo.shared.core.types.LineCap;
+import com.emitrom.lienzo.shared.core.types.LineJoin;
+import com.emitrom.lienzo.shared.core.types.TextAlign;
+import com.emitrom.lienzo.shared.core.types.TextBaseLine;
+import com.google.gwt.dom.client.Element;
+
+/**
+ * A {@link Context2D} that records drawing calls into a {@link DisplayList} instead of painting them.
+ * <p>
+ * A 1x1 scratch canvas sits behind it, so that transforms, text fonts and {@link #measureText(String)}
+ * behave as they would on a real canvas while recording. Reads of the pixels return that scratch canvas.
+ */
+public class RecordingContext2D extends Context2D
+{
+    private final DisplayList m_list = new DisplayList();
+
+    private final boolean     m_selection;
+
+    private String            m_fill;
+
+    public RecordingContext2D()
+    {
+        this(false);
+    }
+
+    /**
+     * @param selection true to record the selection (color key) rendering of the nodes
+     */
+    public RecordingContext2D(boolean selection)
+    {
+        super(new ScratchCanvas(1, 1).getContext().getJSO());
+
+        m_selection = selection;
+    }
+
+    /**
+     * Returns the {@link DisplayList} recorded so far.
+     * 
+     * @return DisplayList
+     */
+    public DisplayList getDisplayList()
+    {
+        m_list.compact();
+
+        return m_list;
+    }
+
+    @Override
+    public boolean isSelection()
+    {
+        return m_selection;
+    }
+
+    @Override
+    public void save()
+    {
+        super.save();
+
+        m_list.op(DisplayList.SAVE);
+    }
+
+    @Override
+    public void restore()
+    {
+        super.restore();
+
+        m_list.op(DisplayList.RESTORE);
+    }
+
+    @Override
+    public void beginPath()
+    {
+        m_list.op(DisplayList.BEGIN_PATH);
+    }
+
+    @Override
+    public void closePath()
+    {
+        m_list.op(DisplayList.CLOSE_PATH);
+    }
+
+    @Override
+    public void path(PathBuffer path)
+    {
+        if (null != path)
+        {
+            m_list.op(DisplayList.PATH);
+
+            m_list.obj(path);
+        }
+    }
+
+    @Override
+    public void rect(double x, double y, double w, double h)
+    {
+        m_list.op(DisplayList.RECT, x, y, w, h);
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h)
+    {
+        m_list.op(DisplayList.FILL_RECT, x, y, w, h);
+    }
+
+    @Override
+    public void fill()
+    {
+        m_list.op(DisplayList.FILL);
+    }
+
+    @Override
+    public void stroke()
+    {
+        m_list.op(DisplayList.STROKE);
+    }
+
+    @Override
+    public void setFillColor(String color)
+    {
+        m_fill = color;
+
+        m_list.op(DisplayList.FILL_COLOR);
+
+        m_list.obj(color);
+    }
+
+    @Override
+    public void setFillColor(IColor color)
+    {
+        setFillColor(null == color ? null : color.getColorString());
+    }
+
+    @Override
+    public String getFillColor()
+    {
+        return m_fill;
+    }
+
+    @Override
+    public void arc(double x, double y, double radius, double startAngle, double endAngle, boolean anticlockwise)
+    {
+        m_list.op(DisplayList.ARC, x, y, radius, startAngle, endAngle, anticlockwise ? 1 : 0);
+    }
+
+    @Override
+    public void arc(double x, double y, double radius, double startAngle, double endAngle)
+    {
+        arc(x, y, radius, startAngle, endAngle, false);
+    }
+
+    @Override
+    public void setStrokeColor(String color)
+    {
+        m_list.op(DisplayList.STROKE_COLOR);
+
+        m_list.obj(color);
+    }
+
+    @Override
+    public void setStrokeColor(IColor color)
+    {
+        setStrokeColor(null == color ? null : color.getColorString());
+    }
+
+    @Override
+    public void setStrokeWidth(double width)
+    {
+        m_list.op(DisplayList.STROKE_WIDTH, width);
+    }
+
+    @Override
+    public void setLineCap(LineCap linecap)
+    {
+        m_list.op(DisplayList.LINE_CAP);
+
+        m_list.obj(linecap);
+    }
+
+    @Override
+    public void setLineJoin(LineJoin linejoin)
+    {
+        m_list.op(DisplayList.LINE_JOIN);
+
+        m_list.obj(linejoin);
+    }
+
+    @Override
+    public void transform(double d0, double d1, double d2, double d3, double d4, double d5)
+    {
+        super.transform(d0, d1, d2, d3, d4, d5);
+
+        m_list.op(DisplayList.TRANSFORM, d0, d1, d2, d3, d4, d5);
+    }
+
+    @Override
+    public void transform(Transform transform)
+    {
+        transform(transform.get(0), transform.get(1), transform.get(2), transform.get(3), transform.get(4), transform.get(5));
+    }
+
+    @Override
+    public void moveTo(double x, double y)
+    {
+        m_list.op(DisplayList.MOVE_TO, x, y);
+    }
+
+    @Override
+    public void bezierCurveTo(double cp1x, double cp1y, double cp2x, double cp2y, double x, double y)
+    {
+        m_list.op(DisplayList.BEZIER_TO, cp1x, cp1y, cp2x, cp2y, x, y);
+    }
+
+    @Override
+    public void lineTo(double x, double y)
+    {
+        m_list.op(DisplayList.LINE_TO, x, y);
+    }
+
+    @Override
+    public void setFillGradient(LinearGradient gradient)
+    {
+        m_fill = null;
+
+        m_list.op(DisplayList.FILL_LINEAR);
+
+        m_list.obj(gradient);
+    }
+
+    @Override
+    public void setFillGradient(RadialGradient gradient)
+    {
+        m_fill = null;
+
+        m_list.op(DisplayList.FILL_RADIAL);
+
+        m_list.obj(gradient);
+    }
+
+    @Override
+    public void setFillGradient(PatternGradient gradient)
+    {
+        m_fill = null;
+
+        m_list.op(DisplayList.FILL_PATTERN);
+
+        m_list.obj(gradient);
+    }
+
+    @Override
+    public void quadraticCurveTo(double cpx, double cpy, double x, double y)
+    {
+        m_list.op(DisplayList.QUADRATIC_TO, cpx, cpy, x, y);
+    }
+
+    @Override
+    public void setTextFont(String font)
+    {
+        super.setTextFont(font);
+
+        m_list.op(DisplayList.TEXT_FONT);
+
+        m_list.obj(font);
+    }
+
+    @Override
+    public void setTextBaseline(TextBaseLine baseline)
+    {
+        super.setTextBaseline(baseline);
+
+        m_list.op(DisplayList.TEXT_BASELINE);
+
+        m_list.obj(baseline);
+    }
+
+    @Override
+    public void setTextAlign(TextAlign textAlign)
+    {
+        super.setTextAlign(textAlign);
+
+        m_list.op(DisplayList.TEXT_ALIGN);
+
+        m_list.obj(textAlign);
+    }
+
+    @Override
+    public void fillText(String text, double x, double y)
+    {
+        m_list.op(DisplayList.FILL_TEXT, x, y);
+
+        m_list.obj(text);
+    }
+
+    @Override
+    public void strokeText(String text, double x, double y)
+    {
+        m_list.op(DisplayList.STROKE_TEXT, x, y);
+
+        m_list.obj(text);
+    }
+
+    @Override
+    public void setGlobalAlpha(double alpha)
+    {
+        m_list.op(DisplayList.GLOBAL_ALPHA, alpha);
+    }
+
+    @Override
+    public void translate(double x, double y)
+    {
+        super.translate(x, y);
+
+        m_list.op(DisplayList.TRANSLATE, x, y);
+    }
+
+    @Override
+    public void rotate(double rot)
+    {
+        super.rotate(rot);
+
+        m_list.op(DisplayList.ROTATE, rot);
+    }
+
+    @Override
+    public void scale(double sx, double sy)
+    {
+        super.scale(sx, sy);
+
+        m_list.op(DisplayList.SCALE, sx, sy);
+    }
+
+    @Override
+    public void clearRect(double x, double y, double wide, double high)
+    {
+        m_list.op(DisplayList.CLEAR_RECT, x, y, wide, high);
+    }
+
+    @Override
+    public void setShadow(Shadow shadow)
+    {
+        m_list.op(DisplayList.SHADOW);
+
+        m_list.obj(shadow);
+    }
+
+    @Override
+    public void clip()
+    {
+        m_list.op(DisplayList.CLIP);
+    }
+
+    @Override
+    public void resetClip()
+    {
+        m_list.op(DisplayList.RESET_CLIP);
+    }
+
+    @Override
+    public void setMiterLimit(double limit)
+    {
+        m_list.op(DisplayList.MITER_LIMIT, limit);
+    }
+
+    @Override
+    public void putImageData(ImageData imageData, int x, int y)
+    {
+        m_list.op(DisplayList.PUT_IMAGE_3, x, y);
+
+        m_list.obj(imageData);
+    }
+
+    @Override
+    public void putImageData(ImageData imageData, int x, int y, int dirtyX, int dirtyY, int dirtyWidth, int dirtyHeight)
+    {
+        m_list.op(DisplayList.PUT_IMAGE_7, x, y, dirtyX, dirtyY, dirtyWidth, dirtyHeight);
+
+        m_list.obj(imageData);
+    }
+
+    @Override
+    public void setGlobalCompositeOperation(CompositeOperation operation)
+    {
+        super.setGlobalCompositeOperation(operation);
+
+        m_list.op(DisplayList.COMPOSITE);
+
+        m_list.obj(operation);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double x, double y)
+    {
+        m_list.op(DisplayList.IMAGE_3, x, y);
+
+        m_list.obj(image);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double x, double y, double w, double h)
+    {
+        m_list.op(DisplayList.IMAGE_5, x, y, w, h);
+
+        m_list.obj(image);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh)
+    {
+        m_list.op(DisplayList.IMAGE_9, sx, sy, sw, sh, dx, dy);
+
+        m_list.op2(dw, dh);
+
+        m_list.obj(image);
+    }
+
+    @Override
+    public void drawImage(Element image, double x, double y)
+    {
+        m_list.op(DisplayList.ELEMENT_3, x, y);
+
+        m_list.obj(image);
+    }
+
+    @Override
+    public void drawImage(Element image, double x, double y, double w, double h)
+    {
+        m_list.op(DisplayList.ELEMENT_5, x, y, w, h);
+
+        m_list.obj(image);
+    }
+
+    @Override
+    public void setImageSmoothingEnabled(boolean enabled)
+    {
+        m_list.op(DisplayList.SMOOTHING, enabled ? 1 : 0);
+    }
+
+    @Override
+    public void drawImage(Element image, double sx, double sy, double sw, double sh, double x, double y, double w, double h)
+    {
+        m_list.op(DisplayList.ELEMENT_9, sx, sy, sw, sh, x, y);
+
+        m_list.op2(w, h);
+
+        m_list.obj(image);
+    }
+
+    @Override
+    public void setLineDash(DashArray dashes)
+    {
+        m_list.op(DisplayList.LINE_DASH);
+
+        m_list.obj(dashes);
+    }
+
+    @Override
+    public void setLineDashOffset(double offset)
+    {
+        m_list.op(DisplayList.DASH_OFFSET, offset);
+    }
+}
@@ -0,0 +1,805 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.emitrom.lienzo.client.core;
+
+import java.util.ArrayList;
+
+import com.emitrom.lienzo.client.core.types.DashArray;
+import com.emitrom.lienzo.client.core.types.ImageLoader.ImageJSO;
+import com.emitrom.lienzo.client.core.types.LinearGradient;
+import com.emitrom.lienzo.client.core.types.PatternGradient;
+import com.emitrom.lienzo.client.core.types.RadialGradient;
+import com.emitrom.lienzo.client.core.types.Shadow;
+import com.emitrom.lienzo.client.core.types.TextMetrics;
+import com.emitrom.lienzo.shared.core.types.CompositeOperation;
+import com.emitrom.lienzo.shared.core.types.IColor;
+import com.emitrom.lienzo.shared.core.types.LineCap;
+import com.emitrom.lienzo.shared.core.types.LineJoin;
+import com.emitrom.lienzo.shared.core.types.TextAlign;
+import com.emitrom.lienzo.shared.core.types.TextBaseLine;
+import com.google.gwt.dom.client.Element;
+
+/**
+ * A {@link Context2D} that keeps the canvas drawing state in Java, so that redundant native calls are skipped.
+ * <ul>
+ *      <li>Style setters only record the wanted value. It is sent to the canvas just before something is drawn, and only if the canvas does not already have it.</li>
+ *      <li>save() and restore() are done in Java, as restoring only changes the wanted values. The canvas state is saved natively only when clip() needs it.</li>
+ *      <li>Transforms are passed through at once, as paths depend on them. restore() resets the canvas transform only if it changed.</li>
+ * </ul>
+ * Drawing must go through this class; changes made directly on the {@link NativeContext2D} are not seen.
+ * Use {@link #resetState()} whenever the canvas may have been reset, for example after it is resized.
+ */
+public class StateTrackingContext2D extends Context2D
+{
+    private final State            m_want   = new State();
+
+    private final State            m_have   = new State();
+
+    private final ArrayList<Frame> m_frames = new ArrayList<Frame>();
+
+    private int                    m_depth  = 0;
+
+    private final double[]         m_xfrm   = new double[6];
+
+    private int                    m_calls  = 0;
+
+    private int                    m_issued = 0;
+
+    public StateTrackingContext2D(NativeContext2D jso)
+    {
+        super(jso);
+
+        resetState();
+    }
+
+    /**
+     * Sets the canvas to its default state. Call it outside of any save()/restore() pair.
+     */
+    public void resetState()
+    {
+        m_want.reset();
+
+        m_have.reset();
+
+        super.setGlobalAlpha(m_have.m_alpha);
+
+        super.setFillColor((String) m_have.m_fill);
+
+        super.setStrokeColor(m_have.m_stroke);
+
+        super.setStrokeWidth(m_have.m_width);
+
+        super.setLineCap(m_have.m_cap);
+
+        super.setLineJoin(m_have.m_join);
+
+        super.setMiterLimit(m_have.m_miter);
+
+        super.setShadow(null);
+
+        if (LienzoGlobals.getInstance().isLineDashSupported())
+        {
+            super.setLineDash(new DashArray());
+
+            super.setLineDashOffset(0);
+        }
+        super.setGlobalCompositeOperation(m_have.m_composite);
+
+        super.setTextFont(m_have.m_font);
+
+        super.setTextAlign(m_have.m_align);
+
+        super.setTextBaseline(m_have.m_baseline);
+
+        super.setImageSmoothingEnabled(m_have.m_smooth);
+    }
+
+    /**
+     * Returns the number of state calls (setters, save and restore) made on this context.
+     * 
+     * @return int
+     */
+    public int getStateCallCount()
+    {
+        return m_calls;
+    }
+
+    /**
+     * Returns the number of state calls that were sent to the canvas.
+     * 
+     * @return int
+     */
+    public int getIssuedCallCount()
+    {
+        return m_issued;
+    }
+
+    /**
+     * Returns the number of state calls that were skipped.
+     * 
+     * @return int
+     */
+    public int getElidedCallCount()
+    {
+        return Math.max(0, m_calls - m_issued);
+    }
+
+    public void resetCounters()
+    {
+        m_calls = 0;
+
+        m_issued = 0;
+    }
+
+    @Override
+    public void save()
+    {
+        m_calls++;
+
+        if (m_depth == m_frames.size())
+        {
+            m_frames.add(new Frame());
+        }
+        Frame frame = m_frames.get(m_depth++);
+
+        frame.m_saved = false;
+
+        frame.m_want.copy(m_want);
+
+        pushTransform();
+    }
+
+    @Override
+    public void restore()
+    {
+        m_calls++;
+
+        if (m_depth == 0)
+        {
+            super.restore(); // unbalanced, let the canvas deal with it
+
+            m_issued++;
+
+            return;
+        }
+        Frame frame = m_frames.get(--m_depth);
+
+        copyTransform(m_xfrm);
+
+        if (frame.m_saved)
+        {
+            getJSO().restore();
+
+            m_issued++;
+
+            m_have.copy(frame.m_have);
+
+            System.arraycopy(frame.m_xfrm, 0, m_xfrm, 0, 6);
+        }
+        m_want.copy(frame.m_want);
+
+        popTransform();
+
+        if (false == isTransform(m_xfrm))
+        {
+            resetTransform();
+
+            m_issued++;
+        }
+    }
+
+    @Override
+    public void clip()
+    {
+        if (m_depth > 0)
+        {
+            Frame frame = m_frames.get(m_depth - 1);
+
+            if (false == frame.m_saved)
+            {
+                getJSO().save(); // the current path is not part of the state, so saving now is still correct
+
+                frame.m_saved = true;
+
+                frame.m_have.copy(m_have);
+
+                copyTransform(frame.m_xfrm);
+            }
+        }
+        super.clip();
+    }
+
+    @Override
+    public void setGlobalAlpha(double alpha)
+    {
+        m_calls++;
+
+        m_want.m_alpha = alpha;
+    }
+
+    @Override
+    public void setFillColor(String color)
+    {
+        m_calls++;
+
+        m_want.m_fill = color;
+    }
+
+    @Override
+    public void setFillColor(IColor color)
+    {
+        setFillColor(null == color ? null : color.getColorString());
+    }
+
+    @Override
+    public String getFillColor()
+    {
+        if (m_want.m_fill instanceof String)
+        {
+            return (String) m_want.m_fill;
+        }
+        return super.getFillColor();
+    }
+
+    @Override
+    public void setFillGradient(LinearGradient gradient)
+    {
+        m_calls++;
+
+        m_want.m_fill = gradient;
+    }
+
+    @Override
+    public void setFillGradient(RadialGradient gradient)
+    {
+        m_calls++;
+
+        m_want.m_fill = gradient;
+    }
+
+    @Override
+    public void setFillGradient(PatternGradient gradient)
+    {
+        m_calls++;
+
+        m_want.m_fill = gradient;
+    }
+
+    @Override
+    public void setStrokeColor(String color)
+    {
+        m_calls++;
+
+        m_want.m_stroke = color;
+    }
+
+    @Override
+    public void setStrokeColor(IColor color)
+    {
+        setStrokeColor(null == color ? null : color.getColorString());
+    }
+
+    @Override
+    public void setStrokeWidth(double width)
+    {
+        m_calls++;
+
+        m_want.m_width = width;
+    }
+
+    @Override
+    public void setLineCap(LineCap linecap)
+    {
+        m_calls++;
+
+        m_want.m_cap = linecap;
+    }
+
+    @Override
+    public void setLineJoin(LineJoin linejoin)
+    {
+        m_calls++;
+
+        m_want.m_join = linejoin;
+    }
+
+    @Override
+    public void setMiterLimit(double limit)
+    {
+        m_calls++;
+
+        m_want.m_miter = limit;
+    }
+
+    @Override
+    public void setShadow(Shadow shadow)
+    {
+        m_calls++;
+
+        m_want.m_shadow = shadow;
+    }
+
+    @Override
+    public void setLineDash(DashArray dashes)
+    {
+        if (null != dashes)
+        {
+            m_calls++;
+
+            m_want.m_dash = dashes;
+        }
+    }
+
+    @Override
+    public void setLineDashOffset(double offset)
+    {
+        m_calls++;
+
+        m_want.m_offset = offset;
+    }
+
+    @Override
+    public void setGlobalCompositeOperation(CompositeOperation operation)
+    {
+        if (null != operation)
+        {
+            m_calls++;
+
+            m_want.m_composite = operation;
+        }
+    }
+
+    @Override
+    public CompositeOperation getGlobalCompositeOperation()
+    {
+        return m_want.m_composite;
+    }
+
+    @Override
+    public void setTextFont(String font)
+    {
+        m_calls++;
+
+        m_want.m_font = font;
+    }
+
+    @Override
+    public void setTextAlign(TextAlign textAlign)
+    {
+        if (null != textAlign)
+        {
+            m_calls++;
+
+            m_want.m_align = textAlign;
+        }
+    }
+
+    @Override
+    public void setTextBaseline(TextBaseLine baseline)
+    {
+        if (null != baseline)
+        {
+            m_calls++;
+
+            m_want.m_baseline = baseline;
+        }
+    }
+
+    @Override
+    public void setImageSmoothingEnabled(boolean enabled)
+    {
+        m_calls++;
+
+        m_want.m_smooth = enabled;
+    }
+
+    @Override
+    public void fill()
+    {
+        flush();
+
+        super.fill();
+    }
+
+    @Override
+    public void stroke()
+    {
+        flush();
+
+        super.stroke();
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h)
+    {
+        flush();
+
+        super.fillRect(x, y, w, h);
+    }
+
+    @Override
+    public void fillText(String text, double x, double y)
+    {
+        flush();
+
+        super.fillText(text, x, y);
+    }
+
+    @Override
+    public void strokeText(String text, double x, double y)
+    {
+        flush();
+
+        super.strokeText(text, x, y);
+    }
+
+    @Override
+    public TextMetrics measureText(String text)
+    {
+        flush();
+
+        return super.measureText(text);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double x, double y)
+    {
+        flush();
+
+        super.drawImage(image, x, y);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double x, double y, double w, double h)
+    {
+        flush();
+
+        super.drawImage(image, x, y, w, h);
+    }
+
+    @Override
+    public void drawImage(ImageJSO image, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh)
+    {
+        flush();
+
+        super.drawImage(image, sx, sy, sw, sh, dx, dy, dw, dh);
+
+        m_have.m_smooth = true; // set by the native call
+    }
+
+    @Override
+    public void drawImage(Element image, double x, double y)
+    {
+        flush();
+
+        super.drawImage(image, x, y);
+    }
+
+    @Override
+    public void drawImage(Element image, double x, double y, double w, double h)
+    {
+        flush();
+
+        super.drawImage(image, x, y, w, h);
+    }
+
+    @Override
+    public void drawImage(Element image, double sx, double sy, double sw, double sh, double x, double y, double w, double h)
+    {
+        flush();
+
+        super.drawImage(image, sx, sy, sw, sh, x, y, w, h);
+
+        m_have.m_smooth = true; // set by the native call
+    }
+
+    /**
+     * Sends the wanted values that differ from the canvas state.
+     */
+    private final void flush()
+    {
+        final State want = m_want;
+
+        final State have = m_have;
+
+        if (want.m_alpha != have.m_alpha)
+        {
+            super.setGlobalAlpha(have.m_alpha = want.m_alpha);
+
+            m_issued++;
+        }
+        if (false == isSameFill(want.m_fill, have.m_fill))
+        {
+            Object fill = have.m_fill = want.m_fill;
+
+            if (fill instanceof LinearGradient)
+            {
+                super.setFillGradient((LinearGradient) fill);
+            }
+            else if (fill instanceof RadialGradient)
+            {
+                super.setFillGradient((RadialGradient) fill);
+            }
+            else if (fill instanceof PatternGradient)
+            {
+                super.setFillGradient((PatternGradient) fill);
+
+                have.m_smooth = true; // set by the native call
+            }
+            else
+            {
+                super.setFillColor((String) fill);
+            }
+            m_issued++;
+        }
+        if (false == isSame(want.m_stroke, have.m_stroke))
+        {
+            super.setStrokeColor(have.m_stroke = want.m_stroke);
+
+            m_issued++;
+        }
+        if (want.m_width != have.m_width)
+        {
+            super.setStrokeWidth(have.m_width = want.m_width);
+
+            m_issued++;
+        }
+        if (want.m_cap != have.m_cap)
+        {
+            super.setLineCap(have.m_cap = want.m_cap);
+
+            m_issued++;
+        }
+        if (want.m_join != have.m_join)
+        {
+            super.setLineJoin(have.m_join = want.m_join);
+
+            m_issued++;
+        }
+        if (want.m_miter != have.m_miter)
+        {
+            super.setMiterLimit(have.m_miter = want.m_miter);
+
+            m_issued++;
+        }
+        if (false == isSameShadow(want.m_shadow, have.m_shadow))
+        {
+            super.setShadow(have.m_shadow = want.m_shadow);
+
+            m_issued++;
+        }
+        if (false == isSameDash(want.m_dash, have.m_dash))
+        {
+            have.m_dash = want.m_dash;
+
+            super.setLineDash((null == have.m_dash) ? new DashArray() : have.m_dash);
+
+            m_issued++;
+        }
+        if (want.m_offset != have.m_offset)
+        {
+            super.setLineDashOffset(have.m_offset = want.m_offset);
+
+            m_issued++;
+        }
+        if (want.m_composite != have.m_composite)
+        {
+            super.setGlobalCompositeOperation(have.m_composite = want.m_composite);
+
+            m_issued++;
+        }
+        if (false == isSame(want.m_font, have.m_font))
+        {
+            super.setTextFont(have.m_font = want.m_font);
+
+            m_issued++;
+        }
+        if (want.m_align != have.m_align)
+        {
+            super.setTextAlign(have.m_align = want.m_align);
+
+            m_issued++;
+        }
+        if (want.m_baseline != have.m_baseline)
+        {
+            super.setTextBaseline(have.m_baseline = want.m_baseline);
+
+            m_issued++;
+        }
+        if (want.m_smooth != have.m_smooth)
+        {
+            super.setImageSmoothingEnabled(have.m_smooth = want.m_smooth);
+
+            m_issued++;
+        }
+    }
+
+    private static final boolean isSame(String a, String b)
+    {
+        return (null == a) ? (null == b) : a.equals(b);
+    }
+
+    private static final boolean isSameFill(Object a, Object b)
+    {
+        if (a == b)
+        {
+            return true;
+        }
+        if ((null == a) || (null == b))
+        {
+            return false;
+        }
+        if ((a instanceof String) && (b instanceof String))
+        {
+            return a.equals(b);
+        }
+        if ((a instanceof LinearGradient) && (b instanceof LinearGradient))
+        {
+            return (((LinearGradient) a).getJSO() == ((LinearGradient) b).getJSO());
+        }
+        if ((a instanceof RadialGradient) && (b instanceof RadialGradient))
+        {
+            return (((RadialGradient) a).getJSO() == ((RadialGradient) b).getJSO());
+        }
+        if ((a instanceof PatternGradient) && (b instanceof PatternGradient))
+        {
+            return (((PatternGradient) a).getJSO() == ((PatternGradient) b).getJSO());
+        }
+        return false;
+    }
+
+    private static final boolean isSameShadow(Shadow a, Shadow b)
+    {
+        if (a == b)
+        {
+            return true;
+        }
+        if ((null == a) || (null == b))
+        {
+            return false;
+        }
+        if (a.getJSO() == b.getJSO())
+        {
+            return true;
+        }
+        return (isSame(a.getColor(), b.getColor()) && (a.getBlur() == b.getBlur()) && (a.getOffset().getX() == b.getOffset().getX()) && (a.getOffset().getY() == b.getOffset().getY()));
+    }
+
+    private static final boolean isSameDash(DashArray a, DashArray b)
+    {
+        if ((null == a) || (a.getLength() == 0))
+        {
+            return ((null == b) || (b.getLength() == 0));
+        }
+        if (null == b)
+        {
+            return false;
+        }
+        return (a.getJSO() == b.getJSO());
+    }
+
+    private static final class State
+    {
+        private double             m_alpha;
+
+        private Object             m_fill;
+
+        private String             m_stroke;
+
+        private double             m_width;
+
+        private LineCap            m_cap;
+
+        private LineJoin           m_join;
+
+        private double             m_miter;
+
+        private Shadow             m_shadow;
+
+        private DashArray          m_dash;
+
+        private double             m_offset;
+
+        private CompositeOperation m_composite;
+
+        private String             m_font;
+
+        private TextAlign          m_align;
+
+        private TextBaseLine       m_baseline;
+
+        private boolean            m_smooth;
+
+        private final void reset()
+        {
+            m_alpha = 1;
+
+            m_fill = "#000000";
+
+            m_stroke = "#000000";
+
+            m_width = 1;
+
+            m_cap = LineCap.BUTT;
+
+            m_join = LineJoin.MITER;
+
+            m_miter = 10;
+
+            m_shadow = null;
+
+            m_dash = null;
+
+            m_offset = 0;
+
+            m_composite = CompositeOperation.SOURCE_OVER;
+
+            m_font = "10px sans-serif";
+
+            m_align = TextAlign.START;
+
+            m_baseline = TextBaseLine.ALPHABETIC;
+
+            m_smooth = true;
+        }
+
+        private final void copy(State from)
+        {
+            m_alpha = from.m_alpha;
+
+            m_fill = from.m_fill;
+
+            m_stroke = from.m_stroke;
+
+            m_width = from.m_width;
+
+            m_cap = from.m_cap;
+
+            m_join = from.m_join;
+
+            m_miter = from.m_miter;
+
+            m_shadow = from.m_shadow;
+
+            m_dash = from.m_dash;
+
+            m_offset = from.m_offset;
+
+            m_composite = from.m_composite;
+
+            m_font = from.m_font;
+
+            m_align = from.m_align;
+
+            m_baseline = from.m_baseline;
+
+            m_smooth = from.m_smooth;
+        }
+    }
+
+    private static final class Frame
+    {
+        private final State    m_want = new State();
+
+        private final State    m_have = new State();
+
+        private final double[] m_xfrm = new double[6];
+
+        private boolean        m_saved;
+    }
+}
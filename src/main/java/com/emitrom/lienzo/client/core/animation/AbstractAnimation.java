@@ -17,9 +17,8 @@
 
 package com.emitrom.lienzo.client.core.animation;
 
+import com.emitrom.lienzo.client.core.animation.FrameScheduler.Phase;
 import com.emitrom.lienzo.client.core.shape.Node;
-import com.google.gwt.animation.client.AnimationScheduler;
-import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
 
 public class AbstractAnimation implements IAnimation, IAnimationHandle
 {
@@ -33,7 +32,7 @@ public class AbstractAnimation implements IAnimation, IAnimationHandle
 
     private boolean                  m_running = false;
 
-    private AnimationCallback        m_animate = null;
+    private IFrameTask               m_animate = null;
 
     protected AbstractAnimation(double duration, IAnimationCallback callback)
     {
@@ -47,25 +46,34 @@ public class AbstractAnimation implements IAnimation, IAnimationHandle
         return m_begtime;
     }
 
-    private final AnimationCallback getAnimationCallback()
+    /**
+     * Returns the timestamp of the current frame, shared by all running animations.
+     * 
+     * @return double
+     */
+    protected double getFrameTime()
+    {
+        return FrameScheduler.get().getFrameTime();
+    }
+
+    private final IFrameTask getAnimationTask()
     {
         if (null == m_animate)
         {
-            m_animate = new AnimationCallback()
+            m_animate = new IFrameTask()
             {
                 @Override
-                public void execute(double time)
+                public boolean onFrame(double time)
                 {
                     doFrame();
 
                     if (isRunning())
                     {
-                        AnimationScheduler.get().requestAnimationFrame(m_animate);
-                    }
-                    else
-                    {
-                        doClose();
+                        return true;
                     }
+                    doClose();
+
+                    return false;
                 }
             };
         }
@@ -81,11 +89,11 @@ public class AbstractAnimation implements IAnimation, IAnimationHandle
         }
         m_running = true;
 
-        m_begtime = System.currentTimeMillis();
+        m_begtime = getFrameTime();
 
         doStart();
 
-        AnimationScheduler.get().requestAnimationFrame(getAnimationCallback());
+        FrameScheduler.get().add(Phase.ANIMATION, getAnimationTask());
 
         return this;
     }
@@ -127,7 +135,7 @@ public class AbstractAnimation implements IAnimation, IAnimationHandle
 
         if (duration != INDEFINITE_ANIMATION)
         {
-            return (((double) System.currentTimeMillis()) - m_begtime) / m_duration;
+            return (getFrameTime() - m_begtime) / m_duration;
         }
         else
         {
@@ -0,0 +1,259 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.animation;
+
+import com.emitrom.lienzo.client.core.shape.Layer;
+import com.emitrom.lienzo.client.core.types.FastArrayList;
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
+
+/**
+ * Runs all per-frame work from a single requestAnimationFrame callback.
+ * <p>
+ * Each frame runs the {@link IFrameTask}s of each {@link Phase} in order (input, animation, layout, draw). The draw phase
+ * starts by drawing every Layer scheduled with {@link #draw(Layer)}, once each, so draw tasks paint over the redrawn Layers.
+ * Every task sees the same frame timestamp, see {@link #getFrameTime()}.
+ * A frame is only requested while there is work, and never more than once at a time.
+ * <p>
+ * Tasks added while a frame is running join it if their phase has not run yet, otherwise they start in the next frame.
+ * Layers scheduled before the draw phase are drawn in the same frame.
+ */
+public final class FrameScheduler
+{
+    /**
+     * The order in which the tasks of a frame run.
+     */
+    public static enum Phase
+    {
+        INPUT, ANIMATION, LAYOUT, DRAW
+    }
+
+    private static final FrameScheduler s_instance = new FrameScheduler();
+
+    private static final Phase[]         PHASES     = Phase.values();
+
+    private final FastArrayList<?>[]     m_tasks    = new FastArrayList<?>[PHASES.length];
+
+    private FastArrayList<Layer>         m_layers   = new FastArrayList<Layer>();
+
+    private final AnimationCallback      m_frame;
+
+    private boolean                      m_request  = false;
+
+    private boolean                      m_inframe  = false;
+
+    private double                       m_time     = 0;
+
+    private long                         m_count    = 0;
+
+    public static final FrameScheduler get()
+    {
+        return s_instance;
+    }
+
+    private FrameScheduler()
+    {
+        for (int i = 0; i < PHASES.length; i++)
+        {
+            m_tasks[i] = new FastArrayList<IFrameTask>();
+        }
+        m_frame = new AnimationCallback()
+        {
+            @Override
+            public void execute(double time)
+            {
+                m_request = false;
+
+                doFrame();
+            }
+        };
+    }
+
+    /**
+     * Adds a task that runs in the given phase of every frame, until it returns false.
+     * 
+     * @param phase
+     * @param task
+     */
+    public final void add(Phase phase, IFrameTask task)
+    {
+        if ((null != phase) && (null != task))
+        {
+            getTasks(phase.ordinal()).add(task);
+
+            request();
+        }
+    }
+
+    /**
+     * Schedules a Layer to be drawn in the draw phase of the next frame. A Layer is drawn once per frame, however often it is scheduled.
+     * 
+     * @param layer
+     */
+    public final void draw(Layer layer)
+    {
+        if ((null != layer) && (false == m_layers.contains(layer)))
+        {
+            m_layers.add(layer);
+
+            request();
+        }
+    }
+
+    /**
+     * Returns the timestamp of the frame being run, in the same time base as {@link System#currentTimeMillis()}.
+     * Outside of a frame, returns the current time.
+     * 
+     * @return double
+     */
+    public final double getFrameTime()
+    {
+        if (m_inframe)
+        {
+            return m_time;
+        }
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns true while a frame is running.
+     * 
+     * @return boolean
+     */
+    public final boolean isInFrame()
+    {
+        return m_inframe;
+    }
+
+    /**
+     * Returns the number of frames run so far.
+     * 
+     * @return long
+     */
+    public final long getFrameCount()
+    {
+        return m_count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private final FastArrayList<IFrameTask> getTasks(int phase)
+    {
+        return (FastArrayList<IFrameTask>) m_tasks[phase];
+    }
+
+    private final void request()
+    {
+        if ((false == m_request) && (false == m_inframe))
+        {
+            m_request = true;
+
+            AnimationScheduler.get().requestAnimationFrame(m_frame);
+        }
+    }
+
+    private final void doFrame()
+    {
+        m_inframe = true;
+
+        m_time = System.currentTimeMillis();
+
+        m_count++;
+
+        RuntimeException failure = null;
+
+        try
+        {
+            for (int p = 0; p < PHASES.length; p++)
+            {
+                if (Phase.DRAW == PHASES[p])
+                {
+                    drawLayers();
+                }
+                final FastArrayList<IFrameTask> list = getTasks(p);
+
+                m_tasks[p] = new FastArrayList<IFrameTask>();
+
+                final int size = list.length();
+
+                for (int i = 0; i < size; i++)
+                {
+                    IFrameTask task = list.get(i);
+
+                    try
+                    {
+                        if (task.onFrame(m_time))
+                        {
+                            getTasks(p).add(task);
+                        }
+                    }
+                    catch (RuntimeException e)
+                    {
+                        if (null == failure)
+                        {
+                            failure = e; // the task is dropped, the others still run
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            m_inframe = false;
+
+            if (hasWork())
+            {
+                request();
+            }
+        }
+        if (null != failure)
+        {
+            throw failure;
+        }
+    }
+
+    private final void drawLayers()
+    {
+        final FastArrayList<Layer> layers = m_layers;
+
+        m_layers = new FastArrayList<Layer>();
+
+        final int size = layers.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            layers.get(i).draw();
+        }
+    }
+
+    private final boolean hasWork()
+    {
+        if (m_layers.length() > 0)
+        {
+            return true;
+        }
+        for (int p = 0; p < PHASES.length; p++)
+        {
+            if (getTasks(p).length() > 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
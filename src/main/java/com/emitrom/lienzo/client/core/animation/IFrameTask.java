@@ -0,0 +1,33 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.animation;
+
+/**
+ * A piece of work run by the {@link FrameScheduler} once per animation frame, in its phase.
+ */
+public interface IFrameTask
+{
+    /**
+     * Runs the task for this frame.
+     * 
+     * @param time the frame timestamp, the same for every task in the frame
+     * @return true to run again in the next frame, false to be removed
+     */
+    public abstract boolean onFrame(double time);
+}
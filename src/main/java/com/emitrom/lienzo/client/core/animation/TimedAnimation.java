@@ -26,7 +26,7 @@ public class TimedAnimation extends AbstractAnimation
 
     public IAnimation doFrame()
     {
-        if (System.currentTimeMillis() >= (getBegTime() + getDuration()))
+        if (getFrameTime() >= (getBegTime() + getDuration()))
         {
             stop();
         }
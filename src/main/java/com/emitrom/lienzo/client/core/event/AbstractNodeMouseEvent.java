@@ -30,6 +30,18 @@ public abstract class AbstractNodeMouseEvent<T extends MouseEvent<?>, H extends
     
     private final T m_event;
 
+    private final NativeEvent m_native;
+
+    private final int m_button;
+
+    private final boolean m_ctrl;
+
+    private final boolean m_shift;
+
+    private final boolean m_alt;
+
+    private final boolean m_meta;
+
     public static class Type<H> extends GwtEvent.Type<H>
     {
 
@@ -42,6 +54,20 @@ public abstract class AbstractNodeMouseEvent<T extends MouseEvent<?>, H extends
     	m_y = event.getRelativeY(event.getRelativeElement());
     	
     	m_event = event;
+
+        // GWT reuses its MouseEvent objects, so keep what is needed for delivering this event later, as coalesced mouse moves are
+
+        m_native = event.getNativeEvent();
+
+        m_button = m_native.getButton();
+
+        m_ctrl = m_native.getCtrlKey();
+
+        m_shift = m_native.getShiftKey();
+
+        m_alt = m_native.getAltKey();
+
+        m_meta = m_native.getMetaKey();
     }
 
     protected AbstractNodeMouseEvent(int x, int y)
@@ -51,6 +77,18 @@ public abstract class AbstractNodeMouseEvent<T extends MouseEvent<?>, H extends
         m_y = y;
         
         m_event = null;
+
+        m_native = null;
+
+        m_button = -1;
+
+        m_ctrl = false;
+
+        m_shift = false;
+
+        m_alt = false;
+
+        m_meta = false;
     }
 
     @Override
@@ -72,7 +110,8 @@ public abstract class AbstractNodeMouseEvent<T extends MouseEvent<?>, H extends
     }
     
     /**
-     * The native event that was initially generated by the DOM.
+     * The GWT event this event was made from. GWT reuses it once the DOM event has been dispatched,
+     * so it is only valid in handlers that run during that dispatch; use {@link #getNativeEvent()} otherwise.
      * 
      * @return
      */
@@ -80,60 +119,49 @@ public abstract class AbstractNodeMouseEvent<T extends MouseEvent<?>, H extends
     {
     	return m_event;
     }
+
+    /**
+     * The native event that was initially generated by the DOM, or null if this event was not made from one.
+     * 
+     * @return
+     */
+    public NativeEvent getNativeEvent()
+    {
+        return m_native;
+    }
     
     public boolean isButtonLeft()
     {
-    	if (null != m_event)
-    	{
-    		if (m_event.getNativeButton() == NativeEvent.BUTTON_LEFT)
-    		{
-    			return true;
-    		}
-    	}
-    	return false;
+    	return (m_button == NativeEvent.BUTTON_LEFT);
     }
     
     public boolean isButtonMiddle()
     {
-    	if (null != m_event)
-    	{
-    		if (m_event.getNativeButton() == NativeEvent.BUTTON_MIDDLE)
-    		{
-    			return true;
-    		}
-    	}
-    	return false;
+    	return (m_button == NativeEvent.BUTTON_MIDDLE);
     }
 
     public boolean isButtonRight()
     {
-        if (null != m_event)
-        {
-            if (m_event.getNativeButton() == NativeEvent.BUTTON_RIGHT)
-            {
-                return true;
-            }
-        }
-        return false;
+        return (m_button == NativeEvent.BUTTON_RIGHT);
     }
 
     public boolean isControlKeyDown()
     {
-        return (null != m_event) && m_event.isControlKeyDown();
+        return m_ctrl;
     }
 
     public boolean isShiftKeyDown()
     {
-        return (null != m_event) && m_event.isShiftKeyDown();
+        return m_shift;
     }
 
     public boolean isAltKeyDown()
     {
-        return (null != m_event) && m_event.isAltKeyDown();
+        return m_alt;
     }
 
     public boolean isMetaKeyDown()
     {
-        return (null != m_event) && m_event.isMetaKeyDown();
+        return m_meta;
     }
 }
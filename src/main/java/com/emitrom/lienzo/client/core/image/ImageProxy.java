@@ -18,6 +18,7 @@
 package com.emitrom.lienzo.client.core.image;
 
 import com.emitrom.lienzo.client.core.Context2D;
+import com.emitrom.lienzo.client.core.shape.Layer;
 import com.emitrom.lienzo.client.core.shape.Picture;
 import com.emitrom.lienzo.client.core.types.ImageData;
 import com.emitrom.lienzo.client.core.types.ImageLoader;
@@ -147,6 +148,8 @@ public class ImageProxy
                 {
                     m_destinationHeight = m_height;
                 }
+                m_picture.invalidateBoundingBox();
+
                 if (false == m_picture.isListening())
                 {
                     doneLoading();
@@ -238,6 +241,26 @@ public class ImageProxy
         return m_selectionImageJSO;
     }
 
+    /**
+     * Returns the width the image is drawn at.
+     * 
+     * @return int
+     */
+    public int getDestinationWidth()
+    {
+        return m_destinationWidth;
+    }
+
+    /**
+     * Returns the height the image is drawn at.
+     * 
+     * @return int
+     */
+    public int getDestinationHeight()
+    {
+        return m_destinationHeight;
+    }
+
     /**
      * Returns whether the image has been loaded and whether the
      * selection layer image has been prepared (if needed.)
@@ -301,6 +324,15 @@ public class ImageProxy
     {
         m_loaded = true;
 
+        m_picture.invalidateCachedGroups();
+
+        Layer layer = m_picture.getLayer();
+
+        if (null != layer)
+        {
+            layer.damage(m_picture);
+        }
+
         if (m_handler != null)
         {
             m_handler.onPictureLoaded(m_picture);
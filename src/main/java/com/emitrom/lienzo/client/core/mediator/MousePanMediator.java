@@ -141,6 +141,6 @@ public class MousePanMediator extends AbstractMediator
 
     protected void redraw()
     {
-        m_viewport.getScene().draw();
+        m_viewport.drawInteractive();
     }
 }
@@ -272,6 +272,6 @@ public class MouseSwipeZoomMediator extends AbstractMediator
 
     protected void redraw()
     {
-        m_viewport.getScene().draw();
+        m_viewport.drawInteractive();
     }
 }
@@ -229,7 +229,7 @@ public class MouseWheelZoomMediator extends AbstractMediator
 
     protected void redraw()
     {
-        m_viewport.getScene().draw();
+        m_viewport.drawInteractive();
     }
 
     protected Transform getTransform()
@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -82,6 +83,17 @@ public class Arc extends Shape<Arc>
         return true;
     }
 
+    /**
+     * Returns the bounds of this arc, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox().addArc(0, 0, getRadius(), getStartAngle(), getEndAngle(), isCounterClockwise());
+    }
+
     /**
      * Gets this arc's radius.
      * 
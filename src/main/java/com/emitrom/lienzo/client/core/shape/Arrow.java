@@ -22,6 +22,8 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
 import com.emitrom.lienzo.client.core.types.Point2D;
 import com.emitrom.lienzo.client.core.types.Point2DArray;
 import com.emitrom.lienzo.client.core.util.Geometry;
@@ -106,6 +108,12 @@ public class Arrow extends Shape<Arrow>
      */
     @Override
     public boolean prepare(Context2D context, Attributes attr, double alpha)
+    {
+        return preparePath(context);
+    }
+
+    @Override
+    protected void buildPath(PathBuffer path)
     {
         Point2DArray list = getPolygon(); // is null for invalid arrow definition
 
@@ -113,9 +121,7 @@ public class Arrow extends Shape<Arrow>
         {
             Point2D point = list.getPoint(0);
 
-            context.beginPath();
-
-            context.moveTo(point.getX(), point.getY());
+            path.moveTo(point.getX(), point.getY());
 
             final int leng = list.getLength();
 
@@ -123,13 +129,21 @@ public class Arrow extends Shape<Arrow>
             {
                 point = list.getPoint(i);
 
-                context.lineTo(point.getX(), point.getY());
+                path.lineTo(point.getX(), point.getY());
             }
-            context.closePath();
-
-            return true;
+            path.closePath();
         }
-        return false;
+    }
+
+    /**
+     * Returns the bounds of this arrow, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox(getPolygon());
     }
 
     /**
@@ -344,6 +358,17 @@ public class Arrow extends Shape<Arrow>
         m_polygon = null;
     }
 
+    @Override
+    protected void onAttributeChange(String property)
+    {
+        super.onAttributeChange(property); // may rebuild the polygon from the old points, for the damaged region
+
+        if (Attribute.POINTS.getProperty().equals(property))
+        {
+            invalidatePolygon(); // the points may be edited in place, through getPoints()
+        }
+    }
+
     private Point2DArray getPolygon()
     {
         /*
@@ -566,7 +566,9 @@ public class Attributes extends JavaScriptObject
     {
         if (null != points)
         {
-            put(Attribute.POINTS.getProperty(), points.getJSO());
+            put(Attribute.POINTS.getProperty(), points.getAttributeJSO());
+
+            watchPoints0(Attribute.POINTS.getProperty(), points.getAttributeJSO());
         }
         else
         {
@@ -576,11 +578,11 @@ public class Attributes extends JavaScriptObject
 
     public final Point2DArray getPoints()
     {
-        JsArray<JavaScriptObject> points = getArrayOfJSO(Attribute.POINTS.getProperty());
+        Point2DArray points = getPoint2DArray(Attribute.POINTS.getProperty());
 
         if (null != points)
         {
-            return new Point2DArray(points);
+            return points;
         }
         return new Point2DArray();
     }
@@ -768,7 +770,9 @@ public class Attributes extends JavaScriptObject
     {
         if (null != controlPoints)
         {
-            put(Attribute.CONTROL_POINTS.getProperty(), controlPoints.getJSO());
+            put(Attribute.CONTROL_POINTS.getProperty(), controlPoints.getAttributeJSO());
+
+            watchPoints0(Attribute.CONTROL_POINTS.getProperty(), controlPoints.getAttributeJSO());
         }
         else
         {
@@ -778,11 +782,11 @@ public class Attributes extends JavaScriptObject
 
     public final Point2DArray getControlPoints()
     {
-        JsArray<JavaScriptObject> points = getArrayOfJSO(Attribute.CONTROL_POINTS.getProperty());
+        Point2DArray points = getPoint2DArray(Attribute.CONTROL_POINTS.getProperty());
 
         if (null != points)
         {
-            return new Point2DArray(points);
+            return points;
         }
         return new Point2DArray();
     }
@@ -1262,6 +1266,8 @@ public class Attributes extends JavaScriptObject
     {
         if (null != value)
         {
+            doChange(name);
+
             put0(name, value.substring(0));
         }
         else
@@ -1280,27 +1286,142 @@ public class Attributes extends JavaScriptObject
 		return true;
     }-*/;
 
+    private final void put(String name, int value)
+    {
+        doChange(name);
+
+        put0(name, value);
+    }
+
+    public final void put(String name, double value)
+    {
+        doChange(name);
+
+        put0(name, value);
+    }
+
+    public final void put(String name, boolean value)
+    {
+        doChange(name);
+
+        put0(name, value);
+    }
+
+    public final void put(String name, JavaScriptObject value)
+    {
+        doChange(name);
+
+        put0(name, value);
+    }
+
+    /**
+     * Links these Attributes to the Node that owns them, so that the Node is told about every change.
+     * The link is not enumerable, so it is never serialized.
+     * 
+     * @param node
+     */
+    final native void setNode(Node<?> node)
+    /*-{
+		Object.defineProperty(this, "__lienzo_node", {
+			value : node,
+			writable : true,
+			enumerable : false,
+			configurable : true
+		});
+    }-*/;
+
+    /**
+     * Links these Attributes to the {@link Style} that owns them, so that the Style can tell the Shapes using it about every change.
+     * The link is not enumerable, so it is never serialized.
+     * 
+     * @param style
+     */
+    final native void setStyle(Style style)
+    /*-{
+		Object.defineProperty(this, "__lienzo_style_owner", {
+			value : style,
+			writable : true,
+			enumerable : false,
+			configurable : true
+		});
+    }-*/;
+
+    /**
+     * Sets the Attributes of the {@link Style} that values not defined here are looked up in, or null for none.
+     * The link is not enumerable, so it is never serialized.
+     * 
+     * @param style
+     */
+    final native void setStyleAttributes(Attributes style)
+    /*-{
+		Object.defineProperty(this, "__lienzo_style", {
+			value : style,
+			writable : true,
+			enumerable : false,
+			configurable : true
+		});
+    }-*/;
+
+    /**
+     * Returns these Attributes if they define the value, otherwise the Attributes of the {@link Style} if that defines it,
+     * otherwise these Attributes.
+     */
+    private final native Attributes resolve(String name)
+    /*-{
+		if (this.hasOwnProperty(String(name))) {
+			return this;
+		}
+		var style = this.__lienzo_style;
+
+		if ((style) && (style.hasOwnProperty(String(name)))) {
+			return style;
+		}
+		return this;
+    }-*/;
+
+    /**
+     * Called before every attribute is changed or deleted.
+     */
+    private final void doChange(String name)
+    {
+        doChange(this, name);
+    }
+
+    private static final native void doChange(Attributes attr, String name)
+    /*-{
+		var node = attr.__lienzo_node;
+
+		if (node) {
+			node.@com.emitrom.lienzo.client.core.shape.Node::onAttributeChange(Ljava/lang/String;)(name);
+		}
+		var style = attr.__lienzo_style_owner;
+
+		if (style) {
+			style.@com.emitrom.lienzo.client.core.shape.Style::onAttributeChange(Ljava/lang/String;)(name);
+		}
+    }-*/;
+
     private final native void put0(String name, String value)
     /*-{
 		this[name] = value;
     }-*/;
 
-    private final native void put(String name, int value)
+    private final native void put0(String name, int value)
     /*-{
 		this[name] = value;
     }-*/;
 
-    public final native void put(String name, double value)
+    private final native void put0(String name, double value)
     /*-{
 		this[name] = value;
     }-*/;
 
-    public final native void put(String name, boolean value)
+    private final native void put0(String name, boolean value)
     /*-{
 		this[name] = value;
     }-*/;
 
-    public final native void put(String name, JavaScriptObject value)
+    private final native void put0(String name, JavaScriptObject value)
     /*-{
 		this[name] = value;
     }-*/;
@@ -1327,18 +1448,22 @@ public class Attributes extends JavaScriptObject
 
     public final int getInteger(String name)
     {
-        if (typeOf(name) == NativeInternalType.NUMBER)
+        Attributes attr = resolve(name);
+
+        if (attr.typeOf0(name) == NativeInternalType.NUMBER)
         {
-            return (int) (getDouble0(name) + 0.5);
+            return (int) (attr.getDouble0(name) + 0.5);
         }
         return 0;
     }
 
     public final double getDouble(String name)
     {
-        if (typeOf(name) == NativeInternalType.NUMBER)
+        Attributes attr = resolve(name);
+
+        if (attr.typeOf0(name) == NativeInternalType.NUMBER)
         {
-            return getDouble0(name);
+            return attr.getDouble0(name);
         }
         return 0;
     }
@@ -1375,45 +1500,162 @@ public class Attributes extends JavaScriptObject
 
     public final String getString(String name)
     {
-        if (typeOf(name) == NativeInternalType.STRING)
+        Attributes attr = resolve(name);
+
+        if (attr.typeOf0(name) == NativeInternalType.STRING)
         {
-            return getString0(name);
+            return attr.getString0(name);
         }
         return null;
     }
 
     public final boolean getBoolean(String name)
     {
-        if (typeOf(name) == NativeInternalType.BOOLEAN)
+        Attributes attr = resolve(name);
+
+        if (attr.typeOf0(name) == NativeInternalType.BOOLEAN)
         {
-            return getBoolean0(name);
+            return attr.getBoolean0(name);
         }
         return false;
     }
 
     public final JavaScriptObject getObject(String name)
     {
-        if (typeOf(name) == NativeInternalType.OBJECT)
+        Attributes attr = resolve(name);
+
+        if (attr.typeOf0(name) == NativeInternalType.OBJECT)
+        {
+            return attr.getObject0(name);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@link Point2DArray} kept under the name, which may be packed, or null.
+     * 
+     * @param name
+     * @return Point2DArray
+     */
+    public final Point2DArray getPoint2DArray(String name)
+    {
+        Attributes attr = resolve(name);
+
+        NativeInternalType type = attr.typeOf0(name);
+
+        if ((type == NativeInternalType.ARRAY) || (type == NativeInternalType.OBJECT))
         {
-            return getObject0(name);
+            JavaScriptObject jso = attr.getObject0(name);
+
+            Point2DArray points = Point2DArray.fromAttributeJSO(jso);
+
+            if (null != points)
+            {
+                attr.watchPoints0(name, jso);
+            }
+            return points;
         }
         return null;
     }
 
+    /**
+     * Gives the points kept under the name a hook, which is not enumerable, so that {@link Point2DArray} reports
+     * edits made in place as a change of the attribute, while it is still the value kept under the name.
+     */
+    private final native void watchPoints0(String name, JavaScriptObject jso)
+    /*-{
+		var changed = jso.__lienzo_changed;
+
+		if ((changed) && (changed.attr === this) && (changed.prop === name)) {
+			return;
+		}
+		var self = this;
+
+		changed = function() {
+			if (self[name] === jso) {
+				@com.emitrom.lienzo.client.core.shape.Attributes::doChange(Lcom/emitrom/lienzo/client/core/shape/Attributes;Ljava/lang/String;)(self, name);
+			}
+		};
+		changed.attr = this;
+
+		changed.prop = name;
+
+		Object.defineProperty(jso, "__lienzo_changed", {
+			value : changed,
+			writable : true,
+			enumerable : false,
+			configurable : true
+		});
+    }-*/;
+
+    /**
+     * Returns these attributes the way they are serialized. Packed point arrays are kept as flat coordinates, so
+     * they are expanded to arrays of {x, y} objects in a shallow copy; if there are none, these attributes are returned.
+     * 
+     * @return JavaScriptObject
+     */
+    public final JavaScriptObject toJSONAttributes()
+    {
+        JavaScriptObject json = toJSONPoints(this, Attribute.POINTS.getProperty());
+
+        return toJSONPoints(json, Attribute.CONTROL_POINTS.getProperty());
+    }
+
+    private final JavaScriptObject toJSONPoints(JavaScriptObject json, String name)
+    {
+        if (typeOf0(name) == NativeInternalType.OBJECT)
+        {
+            JavaScriptObject value = getObject0(name);
+
+            JavaScriptObject list = Point2DArray.toJSONAttributeJSO(value);
+
+            if (list != value)
+            {
+                if (json == this)
+                {
+                    json = copy0();
+                }
+                put0(json, name, list);
+            }
+        }
+        return json;
+    }
+
+    private final native JavaScriptObject copy0()
+    /*-{
+		var copy = {};
+
+		for (var name in this) {
+			if (this.hasOwnProperty(name)) {
+				copy[name] = this[name];
+			}
+		}
+		return copy;
+    }-*/;
+
+    private static final native void put0(JavaScriptObject json, String name, JavaScriptObject value)
+    /*-{
+		json[name] = value;
+    }-*/;
+
     public final JsArray<JavaScriptObject> getArrayOfJSO(String name)
     {
-        if (typeOf(name) == NativeInternalType.ARRAY)
+        Attributes attr = resolve(name);
+
+        if (attr.typeOf0(name) == NativeInternalType.ARRAY)
         {
-            return getArrayOfJSO0(name);
+            return attr.getArrayOfJSO0(name);
         }
         return null;
     }
 
     public final JsArrayMixed getArray(String name)
     {
-        if (typeOf(name) == NativeInternalType.ARRAY)
+        Attributes attr = resolve(name);
+
+        if (attr.typeOf0(name) == NativeInternalType.ARRAY)
         {
-            return getArray0(name);
+            return attr.getArray0(name);
         }
         return null;
     }
@@ -1430,7 +1672,7 @@ public class Attributes extends JavaScriptObject
         {
             return false;
         }
-        return isDefined0(prop);
+        return resolve(prop).isDefined0(prop);
     }
 
     private final native boolean isDefined0(String name)
@@ -1468,7 +1710,17 @@ public class Attributes extends JavaScriptObject
 		return this[name];
     }-*/;
 
-    public final native void delete(String name)
+    public final void delete(String name)
+    {
+        if (isDefined0(name))
+        {
+            doChange(name);
+
+            delete0(name);
+        }
+    }
+
+    private final native void delete0(String name)
     /*-{
 		delete this[name];
     }-*/;
@@ -1482,7 +1734,12 @@ public class Attributes extends JavaScriptObject
         return NativeInternalType.UNDEFINED;
     }
 
-    public final native NativeInternalType typeOf(String name)
+    public final NativeInternalType typeOf(String name)
+    {
+        return resolve(name).typeOf0(name);
+    }
+
+    private final native NativeInternalType typeOf0(String name)
     /*-{
 		if (this.hasOwnProperty(String(name)) && (this[name] !== undefined)) {
 
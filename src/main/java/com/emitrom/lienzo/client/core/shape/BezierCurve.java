@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.Point2D;
 import com.emitrom.lienzo.client.core.types.Point2DArray;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
@@ -88,6 +89,17 @@ public class BezierCurve extends Shape<BezierCurve>
         return false;
     }
 
+    /**
+     * Returns the bounds of this curve; the control points always contain it, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox(getControlPoints());
+    }
+
     /**
      * Gets this curve's control points.
      * 
@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -95,6 +96,23 @@ public class Bow extends Shape<Bow>
         return true;
     }
 
+    /**
+     * Returns the bounds of this bow, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        final double end = getEndAngle();
+
+        final double start = getStartAngle();
+
+        final boolean ccw = isCounterClockwise();
+
+        return new BoundingBox().addArc(0, 0, getOuterRadius(), start, end, ccw).addArc(0, 0, getInnerRadius(), end, start, (false == ccw));
+    }
+
     /**
      * Gets the {@link Star} inner radius.
      * 
@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -87,6 +88,17 @@ public class Chord extends Shape<Chord>
         return true;
     }
 
+    /**
+     * Returns the bounds of this chord, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox().addArc(0, 0, getRadius(), getStartAngle(), getEndAngle(), isCounterClockwise());
+    }
+
     /**
      * Gets this chord's radius
      * 
@@ -23,6 +23,7 @@ import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -65,6 +66,29 @@ public class Circle extends Shape<Circle>
         return true;
     }
 
+    @Override
+    protected boolean hitTest(Attributes attr, double x, double y, double tolerance)
+    {
+        final double r = getRadius();
+
+        final double d = Math.sqrt(x * x + y * y);
+
+        return hitTest(attr, (d <= r), Math.abs(d - r), tolerance);
+    }
+
+    /**
+     * Returns the bounds of this circle, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        final double r = getRadius();
+
+        return new BoundingBox(-r, -r, r, r);
+    }
+
     @Override
     protected boolean doStrokeExtraProperties()
     {
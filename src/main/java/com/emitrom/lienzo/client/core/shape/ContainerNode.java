@@ -17,13 +17,25 @@
 
 package com.emitrom.lienzo.client.core.shape;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 import com.emitrom.lienzo.client.core.Context2D;
+import com.emitrom.lienzo.client.core.shape.json.IContainerFactory;
+import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
 import com.emitrom.lienzo.client.core.types.FastArrayList;
+import com.emitrom.lienzo.client.core.types.INodeFilter;
 import com.emitrom.lienzo.shared.core.types.NodeType;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONNumber;
 import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.json.client.JSONValue;
 
 /**
  * ContainerNode acts as a Collection holder for primitives.
@@ -37,7 +49,13 @@ import com.google.gwt.json.client.JSONObject;
  */
 public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerNode<M, T>> extends Node<T> implements IContainer<M>, IDrawable<T>, Iterable<M>
 {
-    private final FastArrayList<M> m_list = new FastArrayList<M>();
+    private final FastArrayList<M>   m_list        = new FastArrayList<M>();
+
+    private HashMap<String, Integer> m_delta_kids  = null;
+
+    private boolean                  m_delta_dirty = false;
+
+    private boolean                  m_kids_stale  = true;
 
     protected ContainerNode(NodeType type)
     {
@@ -79,6 +97,50 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
         return m_list.length();
     }
 
+    /**
+     * Adds this Node and every descendant that matches the filter to the list, depth first.
+     * Each Node is visited once, so no duplicate checks are needed.
+     * 
+     * @param filter
+     * @param find
+     */
+    protected final void doSearch(INodeFilter filter, ArrayList<Node<?>> find)
+    {
+        if (filter.matches(this))
+        {
+            find.add(this);
+        }
+        final int size = m_list.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            M prim = m_list.get(i);
+
+            if (null != prim)
+            {
+                Node<?> node = prim.asNode();
+
+                if (node instanceof ContainerNode<?, ?>)
+                {
+                    ((ContainerNode<?, ?>) node).doSearch(filter, find);
+                }
+                else if (null != node)
+                {
+                    IContainer<?> cont = node.asContainer();
+
+                    if (null != cont)
+                    {
+                        find.addAll(cont.search(filter));
+                    }
+                    else if (filter.matches(node))
+                    {
+                        find.add(node);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Adds a primitive to the collection.
      * <p>
@@ -94,6 +156,18 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
         node.setParent(this);
 
         m_list.add(child);
+
+        if (null != node.getLayer())
+        {
+            node.attachStyles(true);
+        }
+        onChildrenChanged();
+
+        invalidateBoundingBox();
+
+        invalidateCachedGroups();
+
+        doDamage(child);
     }
 
     /**
@@ -106,11 +180,21 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
     @Override
     public void remove(M child)
     {
+        doDamage(child);
+
         Node<?> node = child.asNode();
 
         node.setParent(null);
 
+        node.attachStyles(false);
+
         m_list.remove(child);
+
+        onChildrenChanged();
+
+        invalidateBoundingBox();
+
+        invalidateCachedGroups();
     }
 
     /**
@@ -123,7 +207,21 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
     @Override
     public void removeAll()
     {
+        Layer layer = getLayer();
+
+        if (null != layer)
+        {
+            layer.damage(this);
+        }
+        attachStyles(false);
+
         m_list.removeAll();
+
+        onChildrenChanged();
+
+        invalidateBoundingBox();
+
+        invalidateCachedGroups();
     }
 
     /**
@@ -151,6 +249,12 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
     public void moveUp(M node)
     {
         getChildNodes().moveUp(node);
+
+        onChildrenChanged();
+
+        doDamage(node);
+
+        invalidateCachedGroups();
     }
 
     /**
@@ -160,6 +264,12 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
     public void moveDown(M node)
     {
         getChildNodes().moveDown(node);
+
+        onChildrenChanged();
+
+        doDamage(node);
+
+        invalidateCachedGroups();
     }
 
     /**
@@ -169,6 +279,12 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
     public void moveToTop(M node)
     {
         getChildNodes().moveToTop(node);
+
+        onChildrenChanged();
+
+        doDamage(node);
+
+        invalidateCachedGroups();
     }
 
     /**
@@ -178,6 +294,394 @@ public abstract class ContainerNode<M extends IDrawable<?>, T extends ContainerN
     public void moveToBottom(M node)
     {
         getChildNodes().moveToBottom(node);
+
+        onChildrenChanged();
+
+        doDamage(node);
+
+        invalidateCachedGroups();
+    }
+
+    /**
+     * Internal method. Moves a child to the given index, used when a delta reorders the children.
+     * 
+     * @param child
+     * @param index
+     */
+    void moveChild(M child, int index)
+    {
+        m_list.remove(child);
+
+        m_list.splice(Math.min(Math.max(index, 0), m_list.length()), 0, child);
+
+        onChildrenChanged();
+
+        doDamage(child);
+
+        invalidateCachedGroups();
+    }
+
+    /**
+     * Internal method. Records that children were added, removed or reordered, for {@link #toJSONDelta()}
+     * and {@link #indexOfChild(Node)}.
+     */
+    final void onChildrenChanged()
+    {
+        m_kids_stale = true;
+
+        m_delta_dirty = true;
+
+        markDeltaChanged();
+    }
+
+    /**
+     * Internal method. Returns the index of the child in this container, or -1 if it is not one of its children.
+     * The indexes are kept on the children, and only renumbered after the children change, so repeated
+     * lookups do not scan the list.
+     * 
+     * @param child
+     * @return int
+     */
+    final int indexOfChild(Node<?> child)
+    {
+        if (m_kids_stale)
+        {
+            final int size = m_list.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                m_list.get(i).asNode().setChildIndex(i);
+            }
+            m_kids_stale = false;
+        }
+        final int indx = child.getChildIndex();
+
+        if ((indx >= 0) && (indx < m_list.length()) && (child == m_list.get(indx).asNode()))
+        {
+            return indx;
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<?> copyNode(ValidationContext ctx) throws ValidationException
+    {
+        Node<?> node = super.copyNode(ctx);
+
+        if (node instanceof ContainerNode<?, ?>)
+        {
+            ContainerNode<M, ?> copy = (ContainerNode<M, ?>) node;
+
+            final int size = m_list.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                Node<?> kid = m_list.get(i).asNode().copyNode(ctx);
+
+                if (null != kid)
+                {
+                    copy.add((M) kid);
+                }
+            }
+        }
+        return node;
+    }
+
+    @Override
+    void attachStyles(boolean attach)
+    {
+        final int size = m_list.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            m_list.get(i).asNode().attachStyles(attach);
+        }
+    }
+
+    @Override
+    void doCheckpoint()
+    {
+        super.doCheckpoint();
+
+        m_delta_dirty = false;
+
+        final int size = m_list.length();
+
+        m_delta_kids = new HashMap<String, Integer>(Math.max(16, size * 2));
+
+        for (int i = 0; i < size; i++)
+        {
+            Node<?> node = m_list.get(i).asNode();
+
+            node.doCheckpoint();
+
+            m_delta_kids.put(node.getDeltaID(), i);
+        }
+    }
+
+    @Override
+    void doJSONDelta(JSONArray list)
+    {
+        if ((null == m_delta_kids) || (false == isDeltaChanged()))
+        {
+            return;
+        }
+        super.doJSONDelta(list);
+
+        final int size = m_list.length();
+
+        if (m_delta_dirty)
+        {
+            JSONArray adds = new JSONArray();
+
+            JSONArray keep = new JSONArray();
+
+            HashSet<String> kept = new HashSet<String>();
+
+            boolean moved = false;
+
+            int last = -1;
+
+            for (int i = 0; i < size; i++)
+            {
+                Node<?> node = m_list.get(i).asNode();
+
+                String id = node.getDeltaID();
+
+                Integer was = (null == id) ? null : m_delta_kids.get(id);
+
+                if (null != was)
+                {
+                    kept.add(id);
+
+                    keep.set(keep.size(), new JSONString(id));
+
+                    if (was < last)
+                    {
+                        moved = true; // kept children are no longer in their checkpoint order
+                    }
+                    last = was;
+                }
+                else
+                {
+                    node.doCheckpoint(); // the receiving side gets the IDs, and later changes are tracked from what it gets
+
+                    JSONObject add = new JSONObject();
+
+                    add.put("index", new JSONNumber(i));
+
+                    add.put("node", node.toJSONObject());
+
+                    adds.set(adds.size(), add);
+                }
+            }
+            JSONArray gone = new JSONArray();
+
+            if (kept.size() < m_delta_kids.size())
+            {
+                for (String id : m_delta_kids.keySet())
+                {
+                    if (false == kept.contains(id))
+                    {
+                        gone.set(gone.size(), new JSONString(id));
+                    }
+                }
+            }
+            if ((adds.size() > 0) || (gone.size() > 0) || (moved))
+            {
+                JSONObject change = new JSONObject();
+
+                change.put("id", new JSONString(getDeltaID()));
+
+                if (gone.size() > 0)
+                {
+                    change.put("remove", gone);
+                }
+                if (moved)
+                {
+                    change.put("order", keep);
+                }
+                if (adds.size() > 0)
+                {
+                    change.put("add", adds);
+                }
+                list.set(list.size(), change);
+            }
+        }
+        for (int i = 0; i < size; i++)
+        {
+            Node<?> node = m_list.get(i).asNode();
+
+            if ((node.isDeltaChanged()) && (m_delta_kids.containsKey(node.getDeltaID())))
+            {
+                node.doJSONDelta(list);
+            }
+        }
+    }
+
+    @Override
+    void doDeltaIndex(HashMap<String, Node<?>> nodes)
+    {
+        super.doDeltaIndex(nodes);
+
+        final int size = m_list.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            m_list.get(i).asNode().doDeltaIndex(nodes);
+        }
+    }
+
+    /**
+     * Internal method. Applies a structural change from a delta: children are removed, the kept children are put
+     * back in their order, and added children are made through the {@link JSONDeserializer} and inserted at their index.
+     * 
+     * @param change
+     * @param nodes
+     * @param ctx
+     * @throws ValidationException
+     */
+    @SuppressWarnings("unchecked")
+    final void applyDeltaChildren(JSONObject change, HashMap<String, Node<?>> nodes, ValidationContext ctx) throws ValidationException
+    {
+        JSONArray gone = getDeltaArray(change, "remove", ctx);
+
+        if (null != gone)
+        {
+            for (int i = 0; i < gone.size(); i++)
+            {
+                Node<?> node = getDeltaChild(gone.get(i), nodes);
+
+                if (null != node)
+                {
+                    remove((M) node);
+
+                    nodes.remove(node.getID());
+                }
+            }
+        }
+        JSONArray keep = getDeltaArray(change, "order", ctx);
+
+        if (null != keep)
+        {
+            for (int i = 0; i < keep.size(); i++)
+            {
+                Node<?> node = getDeltaChild(keep.get(i), nodes);
+
+                if (null != node)
+                {
+                    moveChild((M) node, i);
+                }
+            }
+        }
+        JSONArray adds = getDeltaArray(change, "add", ctx);
+
+        if (null != adds)
+        {
+            IContainerFactory factory = (IContainerFactory) getFactory();
+
+            ctx.push("add");
+
+            for (int i = 0; i < adds.size(); i++)
+            {
+                ctx.pushIndex(i);
+
+                JSONObject add = adds.get(i).isObject();
+
+                JSONObject json = (null == add) ? null : ((null == add.get("node")) ? null : add.get("node").isObject());
+
+                if (null == json)
+                {
+                    ctx.addBadTypeError("Object");
+                }
+                else
+                {
+                    ctx.push("node");
+
+                    IJSONSerializable<?> made = JSONDeserializer.getInstance().fromJSON(json, ctx);
+
+                    ctx.pop(); // node
+
+                    if (made instanceof Node<?>)
+                    {
+                        Node<?> node = (Node<?>) made;
+
+                        if (factory.isValidForContainer(this, node))
+                        {
+                            add((M) node);
+
+                            JSONNumber index = (null == add.get("index")) ? null : add.get("index").isNumber();
+
+                            if (null != index)
+                            {
+                                moveChild((M) node, (int) index.doubleValue());
+                            }
+                            node.doDeltaIndex(nodes);
+                        }
+                        else
+                        {
+                            ctx.addBadTypeError(node.getFactory().getTypeName() + " in " + getFactory().getTypeName());
+                        }
+                    }
+                }
+                ctx.pop(); // index
+            }
+            ctx.pop(); // add
+        }
+    }
+
+    private final Node<?> getDeltaChild(JSONValue value, HashMap<String, Node<?>> nodes)
+    {
+        JSONString id = value.isString();
+
+        if (null == id)
+        {
+            return null;
+        }
+        Node<?> node = nodes.get(id.stringValue());
+
+        if ((null != node) && (node.getParent() == this))
+        {
+            return node;
+        }
+        return null;
+    }
+
+    private static final JSONArray getDeltaArray(JSONObject change, String name, ValidationContext ctx) throws ValidationException
+    {
+        JSONValue value = change.get(name);
+
+        if (null == value)
+        {
+            return null;
+        }
+        JSONArray list = value.isArray();
+
+        if (null == list)
+        {
+            ctx.push(name);
+
+            ctx.addBadTypeError("Array");
+
+            ctx.pop(); // name
+        }
+        return list;
+    }
+
+    /**
+     * Reports a child to the Layer this container is on, so that incremental draws repaint it.
+     * 
+     * @param child
+     */
+    private final void doDamage(M child)
+    {
+        Layer layer = getLayer();
+
+        if (null != layer)
+        {
+            layer.damage(child.asNode());
+        }
     }
 
     @Override
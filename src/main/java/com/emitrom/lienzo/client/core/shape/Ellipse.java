@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -105,6 +106,21 @@ public class Ellipse extends Shape<Ellipse>
         return true;
     }
 
+    /**
+     * Returns the bounds of this ellipse, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        final double w = getWidth() / 2;
+
+        final double h = getHeight() / 2;
+
+        return new BoundingBox(-w, -h, w, h);
+    }
+
     /**
      * Gets this ellipse's width.
      * 
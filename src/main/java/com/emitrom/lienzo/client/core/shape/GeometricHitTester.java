@@ -0,0 +1,283 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import com.emitrom.lienzo.client.core.types.FastArrayList;
+import com.emitrom.lienzo.client.core.types.Transform;
+
+/**
+ * An {@link IHitTester} that picks Shapes by their geometry instead of reading back a selection layer.
+ * <p>
+ * The Layer's spatial index narrows the point down to the Shapes whose bounds contain it. Those are
+ * tested from the top-most down, in their own coordinates, with {@link Shape#isHit(double, double, double)},
+ * so no selection canvas is drawn and no pixels are read.
+ */
+public class GeometricHitTester implements IHitTester
+{
+    private final double m_tolerance;
+
+    public GeometricHitTester()
+    {
+        this(0);
+    }
+
+    /**
+     * @param tolerance how many canvas pixels outside of a stroke still count as a hit
+     */
+    public GeometricHitTester(double tolerance)
+    {
+        m_tolerance = Math.max(0, tolerance);
+    }
+
+    public double getTolerance()
+    {
+        return m_tolerance;
+    }
+
+    @Override
+    public Shape<?> findShapeAtPoint(Layer layer, int x, int y)
+    {
+        Transform xfrm = new Transform();
+
+        if (layer.isTransformable())
+        {
+            Viewport viewport = layer.getViewport();
+
+            if ((null != viewport) && (null != viewport.getTransform()))
+            {
+                xfrm.multiply(viewport.getTransform());
+            }
+        }
+        xfrm.multiply(layer.getCombinedTransform());
+
+        double[] local = new double[2];
+
+        if (false == inverse(xfrm, x, y, local))
+        {
+            return null;
+        }
+        final double scale = getScale(xfrm);
+
+        final double slop = (m_tolerance + 1) / scale;
+
+        ArrayList<Shape<?>> list = layer.findShapesInRect(local[0] - slop, local[1] - slop, slop * 2, slop * 2);
+
+        final int size = list.size();
+
+        if (0 == size)
+        {
+            return null;
+        }
+        ArrayList<Candidate> candidates = new ArrayList<Candidate>(size);
+
+        for (int i = 0; i < size; i++)
+        {
+            Shape<?> shape = list.get(i);
+
+            int[] path = getPath(layer, shape);
+
+            if (null != path)
+            {
+                candidates.add(new Candidate(shape, path));
+            }
+        }
+        Collections.sort(candidates); // top-most first
+
+        final int many = candidates.size();
+
+        for (int i = 0; i < many; i++)
+        {
+            Shape<?> shape = candidates.get(i).m_shape;
+
+            Transform full = xfrm.copy();
+
+            multiply(layer, shape, full);
+
+            if (inverse(full, x, y, local))
+            {
+                if (shape.isHit(local[0], local[1], m_tolerance / getScale(full)))
+                {
+                    return shape;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the child indexes from the Layer down to the Shape, or null if the Shape or an ancestor is not visible.
+     */
+    private static final int[] getPath(Layer layer, Shape<?> shape)
+    {
+        ArrayList<Integer> list = new ArrayList<Integer>();
+
+        Node<?> look = shape;
+
+        while (layer != look)
+        {
+            if ((null == look) || (false == look.isVisible()))
+            {
+                return null;
+            }
+            Node<?> parent = look.getParent();
+
+            if (null == parent)
+            {
+                return null;
+            }
+            int indx = indexOf(parent, look);
+
+            if (indx < 0)
+            {
+                return null;
+            }
+            list.add(indx);
+
+            look = parent;
+        }
+        final int size = list.size();
+
+        int[] path = new int[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            path[i] = list.get(size - 1 - i);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the index of the Node in its parent, from the index ContainerNodes keep on their children.
+     */
+    private static final int indexOf(Node<?> parent, Node<?> node)
+    {
+        if (parent instanceof ContainerNode<?, ?>)
+        {
+            return ((ContainerNode<?, ?>) parent).indexOfChild(node);
+        }
+        IContainer<?> cont = parent.asContainer();
+
+        if (null == cont)
+        {
+            return -1;
+        }
+        FastArrayList<?> kids = cont.getChildNodes();
+
+        final int size = kids.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            Object kid = kids.get(i);
+
+            if ((kid instanceof IDrawable<?>) && (node == ((IDrawable<?>) kid).asNode()))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares paths in drawing order, so that a Shape drawn later compares greater.
+     */
+    private static final int compare(int[] a, int[] b)
+    {
+        final int size = Math.min(a.length, b.length);
+
+        for (int i = 0; i < size; i++)
+        {
+            if (a[i] != b[i])
+            {
+                return (a[i] < b[i]) ? -1 : 1;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static final class Candidate implements Comparable<Candidate>
+    {
+        private final Shape<?> m_shape;
+
+        private final int[]    m_path;
+
+        Candidate(Shape<?> shape, int[] path)
+        {
+            m_shape = shape;
+
+            m_path = path;
+        }
+
+        @Override
+        public int compareTo(Candidate other)
+        {
+            return compare(other.m_path, m_path);
+        }
+    }
+
+    /**
+     * Concatenates the transforms from below the Layer down to the Shape.
+     */
+    private static final void multiply(Layer layer, Node<?> node, Transform xfrm)
+    {
+        if ((null != node) && (layer != node))
+        {
+            multiply(layer, node.getParent(), xfrm);
+
+            xfrm.multiply(node.getCombinedTransform());
+        }
+    }
+
+    private static final double getScale(Transform xfrm)
+    {
+        final double scale = Math.sqrt(Math.abs(xfrm.get(0) * xfrm.get(3) - xfrm.get(2) * xfrm.get(1)));
+
+        if (scale > 0)
+        {
+            return scale;
+        }
+        return 1;
+    }
+
+    /**
+     * Maps the point through the inverse of the transform. Returns false if the transform can not be inverted.
+     */
+    private static final boolean inverse(Transform xfrm, double x, double y, double[] into)
+    {
+        final double m00 = xfrm.get(0), m10 = xfrm.get(1), m01 = xfrm.get(2), m11 = xfrm.get(3), m02 = xfrm.get(4), m12 = xfrm.get(5);
+
+        final double det = m00 * m11 - m01 * m10;
+
+        if (Math.abs(det) <= Double.MIN_VALUE)
+        {
+            return false;
+        }
+        final double dx = x - m02;
+
+        final double dy = y - m12;
+
+        into[0] = (m11 * dx - m01 * dy) / det;
+
+        into[1] = (m00 * dy - m10 * dx) / det;
+
+        return true;
+    }
+}
@@ -17,14 +17,20 @@
 
 package com.emitrom.lienzo.client.core.shape;
 
+import java.util.Arrays;
+
+import com.emitrom.lienzo.client.core.Attribute;
 import com.emitrom.lienzo.client.core.Context2D;
+import com.emitrom.lienzo.client.core.LienzoGlobals;
 import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.DashArray;
-import com.emitrom.lienzo.client.core.types.Point2D;
-import com.emitrom.lienzo.client.core.types.Point2DArray;
+import com.emitrom.lienzo.client.core.types.PatternGradient;
 import com.emitrom.lienzo.client.core.types.Transform;
+import com.emitrom.lienzo.client.core.util.ScratchCanvas;
+import com.emitrom.lienzo.shared.core.types.FillRepeat;
 import com.emitrom.lienzo.shared.core.types.NodeType;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONNull;
@@ -52,21 +58,33 @@ import com.google.gwt.json.client.JSONValue;
  */
 public class GridLayer extends Layer
 {
-    private static final int X           = 0;
+    private static final int  X             = 0;
+
+    private static final int  Y             = 1;
+
+    private static final int  PRIMARY_X     = 0;
+
+    private static final int  PRIMARY_Y     = 1;
+
+    private static final int  SECONDARY_X   = 2;
+
+    private static final int  SECONDARY_Y   = 3;
 
-    private static final int Y           = 1;
+    private double[]          m_sizes       = { 10, 10, 5, 5 };
 
-    private static final int PRIMARY_X   = 0;
+    private Line[]            m_lines       = new Line[4];
 
-    private static final int PRIMARY_Y   = 1;
+    private boolean           m_pattern     = false;
 
-    private static final int SECONDARY_X = 2;
+    private ScratchCanvas     m_tile        = null;
 
-    private static final int SECONDARY_Y = 3;
+    private final DashArray[] m_dashes      = new DashArray[4];
 
-    private double[]         m_sizes     = { 10, 10, 5, 5 };
+    private final double[][]  m_dash_from   = new double[4][];
 
-    private Line[]           m_lines     = new Line[4];
+    private final double[]    m_dash_scale  = new double[4];
+
+    private static final int  MAX_TILE_SIZE = 1024;
 
     // NOTE: we can't put Lines in Attributes
 
@@ -331,6 +349,46 @@ public class GridLayer extends Layer
         m_lines[SECONDARY_Y] = secondaryLineY;
     }
 
+    /**
+     * Sets whether the grid is drawn by filling the viewport with a pattern made from one primary grid cell,
+     * instead of stroking every line. Drawing then costs the same at any zoom level.
+     * <p>
+     * This needs the primary cell sizes to be multiples of the secondary ones, and a viewport that is not rotated or sheared;
+     * otherwise, or when a cell is too large on screen, the lines are stroked.
+     * 
+     * @param pattern
+     * @return this GridLayer
+     */
+    public GridLayer setPatternMode(boolean pattern)
+    {
+        m_pattern = pattern;
+
+        if (false == pattern)
+        {
+            m_tile = null;
+        }
+        return this;
+    }
+
+    /**
+     * Returns whether the grid is drawn with a pattern made from one primary grid cell.
+     * 
+     * @return boolean
+     */
+    public boolean isPatternMode()
+    {
+        return m_pattern;
+    }
+
+    /**
+     * The grid depends on the viewport, so a GridLayer is never drawn from a recorded display list.
+     */
+    @Override
+    public Layer setDisplayListCaching(boolean recording)
+    {
+        return super.setDisplayListCaching(false);
+    }
+
     @Override
     protected void drawWithoutTransforms(Context2D context)
     {
@@ -338,39 +396,61 @@ public class GridLayer extends Layer
         {
             return;
         }
+        if (false == context.isSelection()) // grid lines are not pickable
+        {
+            drawGrid(context);
+        }
+        // Draw children (if any)
+        super.drawWithoutTransforms(context);
+    }
+
+    private final void drawGrid(Context2D context)
+    {
         Viewport vp = getViewport();
 
         int vw = vp.getWidth();
 
         int vh = vp.getHeight();
 
-        Point2D a = new Point2D(0, 0);
-
-        Point2D b = new Point2D(vw, vh);
+        BoundingBox view = new BoundingBox(0, 0, vw, vh);
 
         double scaleX = 1, scaleY = 1;
 
+        boolean skewed = false;
+
         Transform t = isTransformable() ? vp.getTransform() : getTransform();
 
         if (t != null)
         {
-            scaleX = t.getScaleX();
+            double m00 = t.get(0), m10 = t.get(1), m01 = t.get(2), m11 = t.get(3), m02 = t.get(4), m12 = t.get(5);
 
-            scaleY = t.getScaleY();
+            double det = m00 * m11 - m01 * m10;
 
-            t = t.getInverse();
+            if (det == 0)
+            {
+                return;
+            }
+            scaleX = m00;
+
+            scaleY = m11;
 
-            t.transform(a, a);
+            skewed = ((m10 != 0) || (m01 != 0));
 
-            t.transform(b, b);
+            view = view.transform(m11 / det, -m10 / det, -m01 / det, m00 / det, (m01 * m12 - m11 * m02) / det, (m10 * m02 - m00 * m12) / det);
         }
-        double x1 = a.getX();
+        if ((m_pattern) && (false == skewed) && (drawPattern(context, view, scaleX, scaleY)))
+        {
+            return;
+        }
+        m_tile = null;
+
+        double x1 = view.getMinX();
 
-        double y1 = a.getY();
+        double y1 = view.getMinY();
 
-        double x2 = b.getX();
+        double x2 = view.getMaxX();
 
-        double y2 = b.getY();
+        double y2 = view.getMaxY();
 
         for (int direction = X; direction <= Y; direction++)
         {
@@ -401,28 +481,8 @@ public class GridLayer extends Layer
 
                     n = (int) Math.round(m_sizes[direction] / m_sizes[index]);
                 }
-                Line line = m_lines[index];
-
                 double size = m_sizes[index];
 
-                double previousLineWidth = line.getStrokeWidth();
-
-                line.setStrokeWidth(previousLineWidth / scale);
-
-                DashArray previousDashes = line.getDashArray();
-
-                if (previousDashes != null)
-                {
-                    double[] d = previousDashes.getNormalizedArray();
-
-                    DashArray dashes = new DashArray();
-
-                    for (int i = 0; i < d.length; i++)
-                    {
-                        dashes.push(d[i] / scale);
-                    }
-                    line.setDashArray(dashes);
-                }
                 long n1 = Math.round(min / size);
 
                 if (n1 * size < min)
@@ -435,58 +495,233 @@ public class GridLayer extends Layer
                 {
                     n2--;
                 }
-                Point2DArray points = line.getPoints();
+                context.save();
+
+                if (setLineParams(context, index, Math.abs(scale)))
+                {
+                    // all lines of one kind go in a single path, with a single stroke
+
+                    context.beginPath();
+
+                    for (long ni = n1; ni <= n2; ni++)
+                    {
+                        if (isSecondary && (n != 0) && (ni % n == 0)) // skip primary lines
+                        {
+                            continue;
+                        }
+                        double at = ni * size;
+
+                        if (vertical)
+                        {
+                            context.moveTo(at, y1);
+
+                            context.lineTo(at, y2);
+                        }
+                        else
+                        {
+                            context.moveTo(x1, at);
+
+                            context.lineTo(x2, at);
+                        }
+                    }
+                    context.stroke();
+                }
+                context.restore();
+            }
+        }
+    }
+
+    /**
+     * Fills the visible area with a pattern holding one primary cell, rendered at screen resolution.
+     * The tile is a whole number of pixels, and the pattern is scaled so that it repeats exactly once per primary cell.
+     */
+    private final boolean drawPattern(Context2D context, BoundingBox view, double scaleX, double scaleY)
+    {
+        final double sizeX = m_sizes[PRIMARY_X];
+
+        final double sizeY = m_sizes[PRIMARY_Y];
+
+        if ((sizeX <= 0) || (sizeY <= 0) || (scaleX <= 0) || (scaleY <= 0))
+        {
+            return false;
+        }
+        final int wide = (int) Math.round(sizeX * scaleX);
+
+        final int high = (int) Math.round(sizeY * scaleY);
+
+        if ((wide < 1) || (high < 1) || (wide > MAX_TILE_SIZE) || (high > MAX_TILE_SIZE))
+        {
+            return false;
+        }
+        if ((null == m_tile) || (m_tile.getWidth() != wide) || (m_tile.getHeight() != high))
+        {
+            m_tile = new ScratchCanvas(wide, high);
+        }
+        Context2D tile = m_tile.getContext();
+
+        if (null == tile)
+        {
+            return false;
+        }
+        m_tile.clear();
+
+        for (int index = 0; index < 4; index++)
+        {
+            int order = (index % 2) * 2 + (index / 2); // same order as the stroked lines: X primary, X secondary, Y primary, Y secondary
+
+            if (m_lines[order] != null)
+            {
+                drawTileLines(tile, order, wide, high);
+            }
+        }
+        final double fx = wide / sizeX;
+
+        final double fy = high / sizeY;
+
+        context.save();
+
+        context.scale(1 / fx, 1 / fy);
+
+        context.setGlobalAlpha(1);
+
+        context.setFillGradient(new PatternGradient(m_tile.getElement(), FillRepeat.REPEAT));
+
+        context.fillRect(view.getMinX() * fx, view.getMinY() * fy, view.getWidth() * fx, view.getHeight() * fy);
+
+        context.restore();
+
+        return true;
+    }
+
+    private final void drawTileLines(Context2D tile, int index, int wide, int high)
+    {
+        final boolean vertical = ((index % 2) == X);
 
-                Point2D p1 = points.getPoint(0);
+        final int span = vertical ? wide : high;
 
-                Point2D p2 = points.getPoint(1);
+        int n = 1;
+
+        if (index >= SECONDARY_X)
+        {
+            n = (int) Math.round(m_sizes[index - SECONDARY_X] / m_sizes[index]);
+
+            if (n < 2)
+            {
+                return; // every secondary line falls on a primary line
+            }
+        }
+        tile.save();
+
+        if (setLineParams(tile, index, 1))
+        {
+            tile.beginPath();
+
+            for (int i = 0; i <= n; i++)
+            {
+                if ((index >= SECONDARY_X) && ((i == 0) || (i == n))) // skip primary lines
+                {
+                    continue;
+                }
+                double at = ((double) span * i) / n; // lines on the tile edge are drawn on both sides, so they wrap
 
                 if (vertical)
                 {
-                    p1.setY(y1);
+                    tile.moveTo(at, 0);
 
-                    p2.setY(y2);
+                    tile.lineTo(at, high);
                 }
                 else
                 {
-                    p1.setX(x1);
+                    tile.moveTo(0, at);
 
-                    p2.setX(x2);
+                    tile.lineTo(wide, at);
                 }
-                for (long ni = n1; ni <= n2; ni++)
-                {
-                    if (isSecondary && (ni % n == 0)) // skip primary lines
-                    {
-                        continue;
-                    }
-                    if (vertical)
-                    {
-                        double x = ni * size;
+            }
+            tile.stroke();
+        }
+        tile.restore();
+    }
 
-                        p1.setX(x);
+    /**
+     * Sets the stroke of the given Line on the context, with its width and dashes divided by the scale,
+     * so that they keep their size on screen.
+     */
+    private final boolean setLineParams(Context2D context, int index, double scale)
+    {
+        final Line line = m_lines[index];
 
-                        p2.setX(x);
-                    }
-                    else
-                    {
-                        double y = ni * size;
+        final Attributes attr = line.getAttributes();
 
-                        p1.setY(y);
+        if (false == line.setStrokeParams(context, attr, line.getGlobalAlpha()))
+        {
+            return false;
+        }
+        double width = attr.getStrokeWidth();
 
-                        p2.setY(y);
-                    }
-                    line.drawWithTransforms(context);
-                }
-                line.setStrokeWidth(previousLineWidth); // restore stroke width
+        if (width <= 0)
+        {
+            width = LienzoGlobals.getInstance().getDefaultStrokeWidth();
+        }
+        context.setStrokeWidth(width / scale);
 
-                if (previousDashes != null)
-                {
-                    line.setDashArray(previousDashes);
-                }
+        if ((attr.isDefined(Attribute.DASH_ARRAY)) && (LienzoGlobals.getInstance().isLineDashSupported()))
+        {
+            DashArray dashes = attr.getDashArray();
+
+            if ((null != dashes) && (dashes.getLength() > 0))
+            {
+                context.setLineDash(getScaledDashes(index, dashes, scale));
             }
         }
-        // Draw children (if any)
-        super.drawWithoutTransforms(context);
+        return true;
+    }
+
+    /**
+     * Returns the dashes divided by the scale, reusing the last result while neither has changed.
+     */
+    private final DashArray getScaledDashes(int index, DashArray dashes, double scale)
+    {
+        double[] d = dashes.getNormalizedArray();
+
+        if ((null != m_dashes[index]) && (m_dash_scale[index] == scale) && (Arrays.equals(d, m_dash_from[index])))
+        {
+            return m_dashes[index];
+        }
+        DashArray scaled = new DashArray();
+
+        for (int i = 0; i < d.length; i++)
+        {
+            scaled.push(d[i] / scale);
+        }
+        m_dashes[index] = scaled;
+
+        m_dash_from[index] = d;
+
+        m_dash_scale[index] = scale;
+
+        return scaled;
+    }
+
+    /**
+     * Internal method. The copy gets copies of the grid lines and the same sizes.
+     */
+    @Override
+    Node<?> copyNode(ValidationContext ctx) throws ValidationException
+    {
+        Node<?> node = super.copyNode(ctx);
+
+        if (node instanceof GridLayer)
+        {
+            GridLayer copy = (GridLayer) node;
+
+            for (int i = 0; i < 4; i++)
+            {
+                copy.m_lines[i] = (null == m_lines[i]) ? null : (Line) m_lines[i].copyNode(ctx);
+
+                copy.m_sizes[i] = m_sizes[i];
+            }
+        }
+        return node;
     }
 
     @Override
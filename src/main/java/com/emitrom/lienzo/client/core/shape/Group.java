@@ -20,6 +20,8 @@ package com.emitrom.lienzo.client.core.shape;
 import java.util.ArrayList;
 
 import com.emitrom.lienzo.client.core.Attribute;
+import com.emitrom.lienzo.client.core.Context2D;
+import com.emitrom.lienzo.client.core.NativeContext2D;
 import com.emitrom.lienzo.client.core.animation.AnimationProperties;
 import com.emitrom.lienzo.client.core.animation.AnimationTweener;
 import com.emitrom.lienzo.client.core.animation.IAnimationCallback;
@@ -30,11 +32,13 @@ import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.DragBounds;
 import com.emitrom.lienzo.client.core.types.FastArrayList;
 import com.emitrom.lienzo.client.core.types.INodeFilter;
 import com.emitrom.lienzo.client.core.types.NativeInternalType;
 import com.emitrom.lienzo.client.core.types.Point2D;
+import com.emitrom.lienzo.client.core.util.ScratchCanvas;
 import com.emitrom.lienzo.client.widget.DefaultDragConstraintEnforcer;
 import com.emitrom.lienzo.client.widget.DragConstraintEnforcer;
 import com.emitrom.lienzo.shared.core.types.DragConstraint;
@@ -50,6 +54,26 @@ public class Group extends ContainerNode<IPrimitive<?>, Group> implements IPrimi
 {
     private DragConstraintEnforcer m_dragConstraintEnforcer;
 
+    private boolean                m_cached       = false;
+
+    private ScratchCanvas          m_cache_main   = null;
+
+    private ScratchCanvas          m_cache_select = null;
+
+    private double                 m_cache_x      = 0;
+
+    private double                 m_cache_y      = 0;
+
+    private double                 m_cache_scale  = 0;
+
+    private double                 m_cache_alpha  = 1;
+
+    private static final double    MAX_CACHE_ZOOM = 1.25;
+
+    private static final double    MIN_CACHE_ZOOM = 0.5;
+
+    private static final int       MAX_CACHE_SIZE = 4096;
+
     /**
      * Constructor. Creates an instance of a group.
      */
@@ -526,11 +550,243 @@ public class Group extends ContainerNode<IPrimitive<?>, Group> implements IPrimi
     @Override
     public void removeAll()
     {
-        detachFromLayerColorMap();
+        FastArrayList<IPrimitive<?>> list = getChildNodes();
 
+        if (null != list)
+        {
+            int size = list.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                list.get(i).detachFromLayerColorMap();
+            }
+        }
         super.removeAll();
     }
 
+    /**
+     * Returns the union of the children's bounds, in this Group's coordinates.
+     * 
+     * @return {@link BoundingBox} or null if the bounds of any child are unknown
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return getChildBounds(false);
+    }
+
+    @Override
+    protected BoundingBox computePaintBoundingBox()
+    {
+        return getChildBounds(true);
+    }
+
+    @Override
+    protected double computePaintMargin()
+    {
+        double margin = 0;
+
+        FastArrayList<IPrimitive<?>> list = getChildNodes();
+
+        final int size = list.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            margin = Math.max(margin, list.get(i).asNode().getPaintMargin());
+        }
+        return margin;
+    }
+
+    private final BoundingBox getChildBounds(boolean paint)
+    {
+        BoundingBox bbox = new BoundingBox();
+
+        FastArrayList<IPrimitive<?>> list = getChildNodes();
+
+        final int size = list.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            Node<?> node = list.get(i).asNode();
+
+            BoundingBox look = paint ? node.getPaintBoundingBox() : node.getBoundingBox();
+
+            if (null == look)
+            {
+                return null;
+            }
+            bbox.add(look.transform(node.getCombinedTransform()));
+        }
+        return bbox;
+    }
+
+    /**
+     * Sets whether this Group is drawn from a bitmap of its children.
+     * <p>
+     * The bitmap is rendered once at the current scale, and each draw is then a single drawImage.
+     * A second, color-keyed bitmap is rendered for the selection layer so picking still finds the child shapes.
+     * Both are discarded when a descendant changes, when children are added, removed or reordered,
+     * or when zooming moves the scale too far from the one they were rendered at.
+     * This suits static subtrees; a Group whose children change every frame is better left uncached.
+     * 
+     * @param cached
+     * @return Group
+     */
+    public Group setCached(boolean cached)
+    {
+        m_cached = cached;
+
+        clearCachedBitmap();
+
+        return this;
+    }
+
+    public boolean isCached()
+    {
+        return m_cached;
+    }
+
+    @Override
+    final void clearCachedBitmap()
+    {
+        m_cache_main = m_cache_select = null;
+
+        m_cache_scale = 0;
+    }
+
+    @Override
+    protected void drawWithoutTransforms(Context2D context)
+    {
+        if ((false == m_cached) || (false == drawCachedBitmap(context)))
+        {
+            super.drawWithoutTransforms(context);
+        }
+    }
+
+    /**
+     * Draws the cached bitmap for this pass, rendering it first if needed.
+     * 
+     * @return false if the bitmap cannot be used, and the children must be drawn directly
+     */
+    private final boolean drawCachedBitmap(Context2D context)
+    {
+        final double scale = context.getTransformScale();
+
+        final double alpha = getAncestorAlpha();
+
+        if ((null == m_cache_main) && (null == m_cache_select))
+        {
+            m_cache_scale = 0;
+        }
+        else if ((scale > m_cache_scale * MAX_CACHE_ZOOM) || (scale < m_cache_scale * MIN_CACHE_ZOOM) || (alpha != m_cache_alpha))
+        {
+            clearCachedBitmap();
+        }
+        final boolean selection = context.isSelection();
+
+        ScratchCanvas cache = selection ? m_cache_select : m_cache_main;
+
+        if (null == cache)
+        {
+            cache = renderCachedBitmap(scale, selection);
+
+            if (null == cache)
+            {
+                return false;
+            }
+            if (selection)
+            {
+                m_cache_select = cache;
+            }
+            else
+            {
+                m_cache_main = cache;
+            }
+            m_cache_alpha = alpha;
+        }
+        context.save();
+
+        context.setGlobalAlpha(1); // alpha is already in the bitmap
+
+        if (selection)
+        {
+            context.setImageSmoothingEnabled(false); // keep the color keys exact
+        }
+        context.drawImage(cache.getElement(), m_cache_x, m_cache_y, cache.getWidth() / m_cache_scale, cache.getHeight() / m_cache_scale);
+
+        context.restore();
+
+        return true;
+    }
+
+    private final ScratchCanvas renderCachedBitmap(double scale, boolean selection)
+    {
+        if (0 == m_cache_scale) // both bitmaps share the same placement
+        {
+            BoundingBox bbox = getPaintBoundingBox();
+
+            if ((null == bbox) || (bbox.isEmpty()) || (scale <= 0))
+            {
+                return null;
+            }
+            final double margin = getPaintMargin() + (2 / scale); // allow for antialiasing
+
+            m_cache_x = bbox.getMinX() - margin;
+
+            m_cache_y = bbox.getMinY() - margin;
+
+            m_cache_scale = scale;
+        }
+        BoundingBox bbox = getPaintBoundingBox();
+
+        final int wide = (int) Math.ceil((bbox.getMaxX() - m_cache_x) * m_cache_scale) + 2;
+
+        final int high = (int) Math.ceil((bbox.getMaxY() - m_cache_y) * m_cache_scale) + 2;
+
+        if ((wide > MAX_CACHE_SIZE) || (high > MAX_CACHE_SIZE))
+        {
+            m_cache_scale = 0;
+
+            return null;
+        }
+        ScratchCanvas cache = new ScratchCanvas(wide, high);
+
+        if (null == cache.getContext())
+        {
+            m_cache_scale = 0;
+
+            return null;
+        }
+        Context2D context = selection ? new SelectionContext2D(cache.getContext().getJSO()) : cache.getContext();
+
+        context.scale(m_cache_scale, m_cache_scale);
+
+        context.translate(-m_cache_x, -m_cache_y);
+
+        super.drawWithoutTransforms(context);
+
+        return cache;
+    }
+
+    private final double getAncestorAlpha()
+    {
+        double alpha = 1;
+
+        Node<?> node = this;
+
+        while (null != node)
+        {
+            Attributes attr = node.getAttributes();
+
+            if (attr.isDefined(Attribute.ALPHA))
+            {
+                alpha = alpha * attr.getAlpha();
+            }
+            node = node.getParent();
+        }
+        return alpha;
+    }
+
     /**
      * Attaches all primitives to the Layers Color Map
      */
@@ -541,6 +797,8 @@ public class Group extends ContainerNode<IPrimitive<?>, Group> implements IPrimi
 
         if (null != layer)
         {
+            countEvents(layer);
+
             FastArrayList<IPrimitive<?>> list = getChildNodes();
 
             if (null != list)
@@ -561,6 +819,8 @@ public class Group extends ContainerNode<IPrimitive<?>, Group> implements IPrimi
     @Override
     public void detachFromLayerColorMap()
     {
+        uncountEvents();
+
         Layer layer = getLayer();
 
         if (null != layer)
@@ -723,44 +983,8 @@ public class Group extends ContainerNode<IPrimitive<?>, Group> implements IPrimi
     {
         ArrayList<Node<?>> find = new ArrayList<Node<?>>();
 
-        if (filter.matches(this))
-        {
-            find.add(this);
-        }
-        int size = length();
+        doSearch(filter, find);
 
-        for (int i = 0; i < size; i++)
-        {
-            IPrimitive<?> prim = getChildNodes().get(i);
-
-            if (null != prim)
-            {
-                Node<?> node = prim.asNode();
-
-                if (null != node)
-                {
-                    if (filter.matches(node))
-                    {
-                        if (false == find.contains(node))
-                        {
-                            find.add(node);
-                        }
-                    }
-                    IContainer<?> cont = node.asContainer();
-
-                    if (null != cont)
-                    {
-                        for (Node<?> look : cont.search(filter))
-                        {
-                            if (false == find.contains(look))
-                            {
-                                find.add(look);
-                            }
-                        }
-                    }
-                }
-            }
-        }
         return find;
     }
 
@@ -854,4 +1078,18 @@ public class Group extends ContainerNode<IPrimitive<?>, Group> implements IPrimi
             return g.isValidForContainer(node);
         }
     }
+
+    private static class SelectionContext2D extends Context2D
+    {
+        public SelectionContext2D(NativeContext2D jso)
+        {
+            super(jso);
+        }
+
+        @Override
+        public boolean isSelection()
+        {
+            return true;
+        }
+    }
 }
@@ -0,0 +1,37 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape;
+
+/**
+ * Finds the {@link Shape} at a point of a {@link Layer}, in place of the color keyed selection layer.
+ * 
+ * @see Layer#setHitTester(IHitTester)
+ */
+public interface IHitTester
+{
+    /**
+     * Returns the top-most Shape of the Layer at the point, or null.
+     * 
+     * @param layer
+     * @param x in canvas coordinates, as passed to {@link Layer#findShapeAtPoint(int, int)}
+     * @param y in canvas coordinates, as passed to {@link Layer#findShapeAtPoint(int, int)}
+     * @return Shape
+     */
+    public Shape<?> findShapeAtPoint(Layer layer, int x, int y);
+}
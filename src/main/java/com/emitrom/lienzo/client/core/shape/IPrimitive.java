@@ -21,6 +21,7 @@ import com.emitrom.lienzo.client.core.animation.AnimationProperties;
 import com.emitrom.lienzo.client.core.animation.AnimationTweener;
 import com.emitrom.lienzo.client.core.animation.IAnimationCallback;
 import com.emitrom.lienzo.client.core.animation.IAnimationHandle;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.DragBounds;
 import com.emitrom.lienzo.client.core.types.Point2D;
 import com.emitrom.lienzo.client.core.types.Transform;
@@ -357,6 +358,13 @@ public interface IPrimitive<T extends Node<T>> extends IDrawable<T>
      */
     public void setDragConstraints(DragConstraintEnforcer enforcer);
 
+    /**
+     * Returns the bounds of this primitive in its own coordinates, or null if unknown.
+     * 
+     * @return {@link BoundingBox}
+     */
+    public BoundingBox getBoundingBox();
+
     /**
      * Attaches all primitives to the Layers Color Map
      */
@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -84,6 +85,17 @@ public class IsoscelesTrapezoid extends Shape<IsoscelesTrapezoid>
         return true;
     }
 
+    /**
+     * Returns the bounds of this trapezoid, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox(0, 0, Math.max(getTopWidth(), getBottomWidth()), getHeight());
+    }
+
     public IsoscelesTrapezoid setTopWidth(double topwidth)
     {
         getAttributes().setTopWidth(topwidth);
@@ -21,20 +21,26 @@ import java.util.ArrayList;
 
 import com.emitrom.lienzo.client.core.Attribute;
 import com.emitrom.lienzo.client.core.Context2D;
+import com.emitrom.lienzo.client.core.DisplayList;
 import com.emitrom.lienzo.client.core.LienzoGlobals;
 import com.emitrom.lienzo.client.core.NativeContext2D;
+import com.emitrom.lienzo.client.core.RecordingContext2D;
+import com.emitrom.lienzo.client.core.StateTrackingContext2D;
 import com.emitrom.lienzo.client.core.shape.json.ContainerNodeFactory;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.FastArrayList;
-import com.emitrom.lienzo.client.core.types.FastStringMap;
+import com.emitrom.lienzo.client.core.types.FastIntMap;
 import com.emitrom.lienzo.client.core.types.INodeFilter;
-import com.emitrom.lienzo.client.core.types.ImageDataPixelColor;
+import com.emitrom.lienzo.client.core.types.ImageData;
+import com.emitrom.lienzo.client.core.types.LevelOfDetail;
 import com.emitrom.lienzo.client.core.types.NativeInternalType;
 import com.emitrom.lienzo.client.core.types.OnLayerAfterDraw;
 import com.emitrom.lienzo.client.core.types.OnLayerBeforeDraw;
+import com.emitrom.lienzo.client.core.types.RTree;
 import com.emitrom.lienzo.client.core.types.Transform;
 import com.emitrom.lienzo.shared.core.types.DataURLType;
 import com.emitrom.lienzo.shared.core.types.LayerClearMode;
@@ -44,9 +50,11 @@ import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Style.Display;
 import com.google.gwt.dom.client.Style.Position;
 import com.google.gwt.dom.client.Style.Visibility;
+import com.google.gwt.event.shared.GwtEvent.Type;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONString;
+import com.google.gwt.user.client.Timer;
 
 /**
  * Layer is an abstraction for the Canvas element.
@@ -74,7 +82,53 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
 
     private Context2D                     m_context         = null;
 
-    private final FastStringMap<Shape<?>> m_shape_color_map = new FastStringMap<Shape<?>>();
+    private final FastIntMap<Shape<?>>    m_shape_color_map = new FastIntMap<Shape<?>>();
+
+    private boolean                       m_incremental     = false;
+
+    private boolean                       m_tracking        = false;
+
+    private boolean                       m_recording       = false;
+
+    private boolean                       m_interactive     = false;
+
+    private LevelOfDetail                 m_lod             = null;
+
+    private boolean                       m_select_stale    = true;
+
+    private int                           m_select_idle     = 250;
+
+    private Timer                         m_select_timer    = null;
+
+    private ImageData                     m_select_data     = null;
+
+    private IHitTester                    m_hit_tester      = null;
+
+    private final int[]                   m_event_counts    = new int[32];
+
+    private int                           m_drag_count      = 0;
+
+    private int                           m_pick_count      = 0;
+
+    private DisplayList                   m_list_main       = null;
+
+    private DisplayList                   m_list_select     = null;
+
+    private boolean                       m_damage_all      = true;
+
+    private final ArrayList<BoundingBox>  m_damage_rects    = new ArrayList<BoundingBox>();
+
+    private final FastArrayList<Node<?>>  m_damage_nodes    = new FastArrayList<Node<?>>();
+
+    private double[]                      m_damage_vptx     = null;
+
+    private RTree<Shape<?>>               m_index           = null;
+
+    private final FastArrayList<Node<?>>  m_index_dirty     = new FastArrayList<Node<?>>();
+
+    private static final int              MAX_DAMAGE_RECTS  = 16;
+
+    private static final double           MAX_DAMAGE_AREA   = 0.6;
 
     /**
      * Constructor. Creates an instance of a Layer.
@@ -142,6 +196,8 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
     {
         if (isListening())
         {
+            refreshSelection();
+
             if (m_select == null)
             {
                 m_select = new SelectionLayer();
@@ -153,9 +209,117 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
         return null;
     }
 
+    /**
+     * Sets how long, in milliseconds, this layer must go without drawing before its selection layer is rebuilt in the background.
+     * The selection layer is otherwise only rebuilt when it is needed, by {@link #findShapeAtPoint(int, int)}.
+     * A negative value turns off the background rebuild. The default value is 250.
+     * 
+     * @param idle
+     * @return Layer
+     */
+    public Layer setSelectionIdleDelay(int idle)
+    {
+        m_select_idle = idle;
+
+        if ((idle < 0) && (null != m_select_timer))
+        {
+            m_select_timer.cancel();
+        }
+        return this;
+    }
+
+    public int getSelectionIdleDelay()
+    {
+        return m_select_idle;
+    }
+
+    /**
+     * Sets the {@link IHitTester} that {@link #findShapeAtPoint(int, int)} uses in place of the selection layer,
+     * for example a {@link GeometricHitTester}. While one is set, the selection layer is not drawn at all.
+     * The default value is null, which picks from the selection layer.
+     * 
+     * @param tester
+     * @return Layer
+     */
+    public Layer setHitTester(IHitTester tester)
+    {
+        m_hit_tester = tester;
+
+        if ((null != tester) && (null != m_select_timer))
+        {
+            m_select_timer.cancel();
+        }
+        m_select_stale = true;
+
+        return this;
+    }
+
+    public IHitTester getHitTester()
+    {
+        return m_hit_tester;
+    }
+
+    /**
+     * Marks the selection layer as out of date. It is rebuilt by the next pick, or once this layer has been idle
+     * if it has nodes that handle events or can be dragged; otherwise nothing is scheduled.
+     */
+    private final void invalidateSelection()
+    {
+        m_select_stale = true;
+
+        if ((m_select_idle >= 0) && (hasPickableNodes()))
+        {
+            if (null == m_select_timer)
+            {
+                m_select_timer = new Timer()
+                {
+                    @Override
+                    public void run()
+                    {
+                        if (hasPickableNodes())
+                        {
+                            refreshSelection();
+                        }
+                    }
+                };
+            }
+            m_select_timer.schedule(Math.max(1, m_select_idle));
+        }
+    }
+
+    /**
+     * Redraws the selection layer if anything was drawn since it was last built.
+     */
+    private final void refreshSelection()
+    {
+        if ((m_select_stale) && (false == m_interactive) && (isListening()) && (isVisible()) && (LienzoGlobals.getInstance().isCanvasSupported()))
+        {
+            SelectionLayer selection = getSelectionLayer();
+
+            if (null != selection)
+            {
+                m_select_stale = false;
+
+                m_select_data = null;
+
+                if (null != m_select_timer)
+                {
+                    m_select_timer.cancel();
+                }
+                selection.clear();
+
+                drawRegion(selection.getContext(), getDamageViewportTransform(), null);
+            }
+        }
+    }
+
     /**
      * Looks at the {@link SelectionLayer} and attempts to find a {@link Shape} whose alpha
-     * channel is 255.
+     * channel is 255. The selection layer is brought up to date first, if this layer has been drawn since.
+     * If an {@link IHitTester} is set, it is asked instead.
+     * <p>
+     * The pixels of the selection layer are read once after it is drawn, and every pick until the next draw
+     * is answered from that snapshot, without touching the canvas.
      * 
      * @param x
      * @param y
@@ -165,26 +329,31 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
     {
         if (isVisible())
         {
+            if (null != m_hit_tester)
+            {
+                return m_hit_tester.findShapeAtPoint(this, x, y);
+            }
+            refreshSelection();
+
             SelectionLayer selection = getSelectionLayer();
 
-            if (selection != null)
+            if ((selection != null) && (m_wide > 0) && (m_high > 0))
             {
-                ImageDataPixelColor rgba = selection.getContext().getImageDataPixelColor(x, y); // x,y is adjusted to canvas coordinates in event dispatch
-
-                if (rgba != null)
+                if (null == m_select_data)
                 {
-                    if (rgba.getA() != 255)
-                    {
-                        return null;
-                    }
-                    String ckey = rgba.toBrowserRGB();
+                    m_select_data = selection.getContext().getImageData(0, 0, m_wide, m_high);
+                }
+                final int rgba = m_select_data.getPixelAt(x, y); // x,y is adjusted to canvas coordinates in event dispatch
 
-                    Shape<?> shape = m_shape_color_map.get(ckey);
+                if ((rgba >>> 24) != 255)
+                {
+                    return null;
+                }
+                Shape<?> shape = m_shape_color_map.get(rgba & 0xffffff);
 
-                    if ((shape != null) && (ckey.equals(shape.getColorKey())) && (shape.isVisible()))
-                    {
-                        return shape;
-                    }
+                if ((shape != null) && (shape.isVisible()))
+                {
+                    return shape;
                 }
             }
         }
@@ -252,12 +421,17 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
     {
         if (null != shape)
         {
-            Shape<?> look = m_shape_color_map.get(shape.getColorKey());
+            final int ckey = shape.getColorKeyValue();
+
+            Shape<?> look = m_shape_color_map.get(ckey);
 
             if (null == look)
             {
-                m_shape_color_map.put(shape.getColorKey(), shape);
+                m_shape_color_map.put(ckey, shape);
             }
+            shape.countEvents(this);
+
+            invalidateIndex(shape);
         }
     }
 
@@ -270,13 +444,267 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
     {
         if (null != shape)
         {
-            Shape<?> look = m_shape_color_map.get(shape.getColorKey());
+            final int ckey = shape.getColorKeyValue();
+
+            Shape<?> look = m_shape_color_map.get(ckey);
 
             if (shape == look)
             {
-                m_shape_color_map.remove(shape.getColorKey());
+                m_shape_color_map.remove(ckey);
+
+                shape.releaseColorKey();
+
+                m_select_stale = true; // the key may be handed out again while still on the selection layer
+
+                m_select_data = null;
+
+                m_list_select = null;
+            }
+            shape.uncountEvents();
+
+            if (null != m_index)
+            {
+                m_index.remove(shape);
+            }
+        }
+    }
+
+    /**
+     * Internal method. Adds to, or takes from, the counts of handled event types and of draggable nodes.
+     */
+    final void countEvents(int mask, boolean drag, int delta)
+    {
+        if (0 != mask)
+        {
+            for (int i = 0; i < 32; i++)
+            {
+                if (0 != (mask & (1 << i)))
+                {
+                    m_event_counts[i] += delta;
+                }
+            }
+        }
+        if (drag)
+        {
+            m_drag_count += delta;
+        }
+        if ((0 != mask) || (drag))
+        {
+            boolean none = (false == hasPickableNodes());
+
+            m_pick_count += delta;
+
+            if ((none) && (hasPickableNodes()) && (isListening()) && (null == m_hit_tester))
+            {
+                m_select_data = null; // the selection layer was not kept up to date while nothing could be picked
+
+                invalidateSelection();
+            }
+        }
+    }
+
+    /**
+     * Returns true if a Shape or Group on this Layer has a handler for the event type.
+     * The answer can be true when no handler would fire, for example if the node is not listening, but never false when one would.
+     * 
+     * @param type
+     * @return boolean
+     */
+    public boolean hasEventHandlers(Type<?> type)
+    {
+        return (m_event_counts[Integer.numberOfTrailingZeros(getEventBit(type))] > 0);
+    }
+
+    /**
+     * Returns true if a Shape or Group on this Layer is draggable.
+     * 
+     * @return boolean
+     */
+    public boolean hasDraggables()
+    {
+        return (m_drag_count > 0);
+    }
+
+    /**
+     * Returns true if a Shape or Group on this Layer has a handler for any event type, or is draggable.
+     * When false, no node event can be delivered to this Layer, so it does not need to be picked from.
+     * 
+     * @return boolean
+     */
+    public boolean hasPickableNodes()
+    {
+        return (m_pick_count > 0);
+    }
+
+    /**
+     * Internal method. Marks the indexed bounds of a Node, and of the shapes under it, as stale.
+     * 
+     * @param node
+     */
+    final void invalidateIndex(Node<?> node)
+    {
+        if ((null == m_index) || (null == node) || (this == node)) // the index is in this Layer's space
+        {
+            return;
+        }
+        if (m_index_dirty.length() > m_index.size())
+        {
+            m_index = null; // cheaper to rebuild on the next query
+
+            m_index_dirty.removeAll();
+        }
+        else
+        {
+            m_index_dirty.add(node);
+        }
+    }
+
+    /**
+     * Returns the spatial index of the shapes on this Layer, bringing it up to date first.
+     */
+    private final RTree<Shape<?>> getIndex()
+    {
+        if (null == m_index)
+        {
+            m_index = new RTree<Shape<?>>();
+
+            m_index_dirty.removeAll();
+
+            index(this);
+
+            return m_index;
+        }
+        final int size = m_index_dirty.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            Node<?> node = m_index_dirty.get(i);
+
+            if (this == node.getLayer())
+            {
+                index(node);
+            }
+            else if (node instanceof Shape<?>)
+            {
+                m_index.remove((Shape<?>) node);
+            }
+        }
+        m_index_dirty.removeAll();
+
+        return m_index;
+    }
+
+    private final void index(Node<?> node)
+    {
+        if (node instanceof Shape<?>)
+        {
+            Shape<?> shape = (Shape<?>) node;
+
+            m_index.insert(shape, getIndexBox(shape));
+
+            return;
+        }
+        IContainer<?> cont = node.asContainer();
+
+        if (null != cont)
+        {
+            FastArrayList<?> list = cont.getChildNodes();
+
+            final int size = list.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                Object look = list.get(i);
+
+                if (look instanceof IDrawable<?>)
+                {
+                    Node<?> child = ((IDrawable<?>) look).asNode();
+
+                    if (null != child)
+                    {
+                        index(child);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the area the shape paints in this Layer's coordinates, or null if unknown.
+     */
+    private final BoundingBox getIndexBox(Shape<?> shape)
+    {
+        BoundingBox bbox = shape.getPaintBoundingBox();
+
+        if ((null == bbox) || (bbox.isEmpty()))
+        {
+            return null;
+        }
+        ArrayList<Node<?>> list = new ArrayList<Node<?>>();
+
+        Node<?> look = shape;
+
+        while (this != look)
+        {
+            if (null == look)
+            {
+                return null;
             }
+            list.add(look);
+
+            look = look.getParent();
+        }
+        Transform xfrm = new Transform();
+
+        for (int i = list.size() - 1; i >= 0; i--)
+        {
+            xfrm.multiply(list.get(i).getCombinedTransform());
         }
+        return bbox.transform(xfrm);
+    }
+
+    /**
+     * Returns the shapes whose painted area intersects the rectangle.
+     * Coordinates are in this Layer's space, before the Viewport transform is applied.
+     * Shapes whose bounds are unknown are not returned.
+     * <p>
+     * The first query builds a spatial index of the Layer, which is then kept up to date as shapes change.
+     * 
+     * @param x
+     * @param y
+     * @param wide
+     * @param high
+     * @return ArrayList<Shape>
+     */
+    public ArrayList<Shape<?>> findShapesInRect(double x, double y, double wide, double high)
+    {
+        return getIndex().search(new BoundingBox(x, y, x + wide, y + high));
+    }
+
+    /**
+     * Returns the shapes whose painted area contains the point, which is in this Layer's space.
+     * This is a bounding box test; use {@link #findShapeAtPoint(int, int)} for exact picking.
+     * 
+     * @param x
+     * @param y
+     * @return ArrayList<Shape>
+     */
+    public ArrayList<Shape<?>> findShapesContainingPoint(double x, double y)
+    {
+        return getIndex().search(x, y);
+    }
+
+    /**
+     * Returns up to <code>count</code> shapes, nearest first, by the distance from the point to their painted area.
+     * 
+     * @param x
+     * @param y
+     * @param count
+     * @return ArrayList<Shape>
+     */
+    public ArrayList<Shape<?>> findNearestShapes(double x, double y, int count)
+    {
+        return getIndex().nearest(x, y, count);
     }
 
     /**
@@ -338,6 +766,8 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
 
         m_high = high;
 
+        m_damage_all = true;
+
         if (LienzoGlobals.getInstance().isCanvasSupported())
         {
             m_element.setWidth(wide);
@@ -347,6 +777,10 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
             if (null != m_select)
             {
                 m_select.setPixelSize(wide, high);
+
+                m_select_stale = true;
+
+                m_select_data = null;
             }
         }
     }
@@ -486,7 +920,7 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
             }
             if (null == m_context)
             {
-                m_context = new Context2D(getNativeContext2D(m_element));
+                m_context = makeContext2D(m_element);
             }
         }
         return m_element;
@@ -521,16 +955,138 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
     }
 
     /**
-     * Draws the layer and invokes pre/post draw handlers.
-     * Drawing only takes place if the layer is visible.
-     */
-    public void draw()
+     * Sets whether this layer only redraws the areas that changed since the last draw.
+     * <p>
+     * Changes are tracked through each Node's attributes, and through adding, removing and moving Nodes.
+     * Anything else that changes how a Node paints must be reported with {@link #damage(Node)}.
+     * Layers with draw handlers, or that are not cleared before drawing, are always fully redrawn.
+     * 
+     * @param incremental
+     * @return Layer
+     */
+    public Layer setIncrementalDraw(boolean incremental)
+    {
+        m_incremental = incremental;
+
+        m_damage_all = true;
+
+        return this;
+    }
+
+    /**
+     * Returns whether this layer only redraws the areas that changed since the last draw.
+     * 
+     * @return boolean
+     */
+    public boolean isIncrementalDraw()
+    {
+        return m_incremental;
+    }
+
+    /**
+     * Sets whether this layer records its drawing into {@link DisplayList}s and replays them on later draws.
+     * <p>
+     * The lists are dropped whenever a Node on this layer changes, so they only pay off for layers that are
+     * redrawn without changing, for example while the viewport is panned or zoomed. The selection layer gets
+     * its own list, and {@link Scene#toDataURL()} replays the main list.
+     * 
+     * @param recording
+     * @return Layer
+     */
+    public Layer setDisplayListCaching(boolean recording)
+    {
+        m_recording = recording;
+
+        m_list_main = null;
+
+        m_list_select = null;
+
+        return this;
+    }
+
+    /**
+     * Returns whether this layer records and replays its drawing.
+     * 
+     * @return boolean
+     */
+    public boolean isDisplayListCaching()
+    {
+        return m_recording;
+    }
+
+    /**
+     * Marks the area a Node currently paints as needing to be redrawn, along with the area it
+     * will paint at the next draw. Passing this Layer marks the whole layer.
+     * The area is only used when {@link #isIncrementalDraw()} is true, but any damage drops the recorded display lists.
+     * 
+     * @param node
+     */
+    public void damage(Node<?> node)
+    {
+        if (null == node)
+        {
+            return;
+        }
+        m_list_main = null;
+
+        m_list_select = null;
+
+        if ((false == m_incremental) || (m_damage_all))
+        {
+            return;
+        }
+        if (this == node)
+        {
+            m_damage_all = true;
+
+            return;
+        }
+        if (this == node.getDamagedLayer())
+        {
+            return;
+        }
+        BoundingBox bbox = getDamageBox(node, getDamageViewportTransform());
+
+        if (null == bbox)
+        {
+            m_damage_all = true;
+
+            return;
+        }
+        m_damage_rects.add(bbox);
+
+        m_damage_nodes.add(node);
+
+        node.setDamagedLayer(this);
+    }
+
+    @Override
+    protected void onAttributeChange(String property)
+    {
+        super.onAttributeChange(property);
+
+        m_damage_all = true;
+    }
+
+    /**
+     * Draws the layer and invokes pre/post draw handlers.
+     * Drawing only takes place if the layer is visible.
+     */
+    public void draw()
     {
         if (LienzoGlobals.getInstance().isCanvasSupported())
         {
+            Transform transform = getDamageViewportTransform();
+
+            ArrayList<BoundingBox> region = getDamageRegion(transform);
+
+            if ((null != region) && (region.isEmpty()))
+            {
+                return; // nothing has changed
+            }
             boolean clear = isClearLayerBeforeDraw();
 
-            if (clear)
+            if ((clear) && (null == region))
             {
                 clear();
             }
@@ -544,57 +1100,326 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
                 }
                 if (draw)
                 {
-                    Context2D context = getContext();
-
-                    Transform transform = null;
+                    drawRegion(getContext(), transform, region);
 
-                    if (isTransformable())
+                    if (m_olad != null)
                     {
-                        transform = getViewport().getTransform();
+                        m_olad.onLayerAfterDraw(this);
                     }
-                    if (transform != null)
+                    if ((isListening()) && (null == m_hit_tester))
                     {
-                        context.save();
-
-                        context.transform(transform);
+                        invalidateSelection();
                     }
-                    drawWithTransforms(context);
+                }
+            }
+        }
+    }
 
-                    if (transform != null)
-                    {
-                        context.restore();
-                    }
-                    if (m_olad != null)
+    /**
+     * Draws this layer's nodes in the context, limited to the region if it is not null.
+     * Nodes that fall outside of the region, or outside of the canvas, are not drawn.
+     */
+    private final void drawRegion(Context2D context, Transform transform, ArrayList<BoundingBox> region)
+    {
+        if (context instanceof StateTrackingContext2D)
+        {
+            ((StateTrackingContext2D) context).resetState(); // the canvas may have been resized or cleared
+        }
+        final int size = (null == region) ? 0 : region.size();
+
+        if ((null == region) && (m_wide > 0) && (m_high > 0))
+        {
+            ArrayList<BoundingBox> visible = new ArrayList<BoundingBox>(1);
+
+            visible.add(new BoundingBox(0, 0, m_wide, m_high));
+
+            context.setCullingRegion(visible);
+        }
+        else if (null != region)
+        {
+            context.save();
+
+            context.beginPath();
+
+            for (int i = 0; i < size; i++)
+            {
+                BoundingBox rect = region.get(i);
+
+                context.rect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+            }
+            context.clip();
+
+            for (int i = 0; i < size; i++)
+            {
+                BoundingBox rect = region.get(i);
+
+                context.clearRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+            }
+            context.setCullingRegion(region);
+        }
+        if (transform != null)
+        {
+            context.save();
+
+            context.transform(transform);
+        }
+        context.setLevelOfDetail(m_lod);
+
+        drawContent(context);
+
+        context.setLevelOfDetail(null);
+
+        if (transform != null)
+        {
+            context.restore();
+        }
+        context.setCullingRegion(null);
+
+        if (null != region)
+        {
+            context.restore();
+        }
+    }
+
+    /**
+     * Draws this layer's nodes, without the viewport transform. When display list caching is on, the nodes are
+     * recorded on the first draw and the recording is replayed until something on the layer changes.
+     */
+    final void drawContent(Context2D context)
+    {
+        if (false == m_recording)
+        {
+            drawWithTransforms(context);
+
+            return;
+        }
+        final boolean selection = context.isSelection();
+
+        DisplayList list = selection ? m_list_select : m_list_main;
+
+        if (null == list)
+        {
+            RecordingContext2D recorder = new RecordingContext2D(selection);
+
+            drawWithTransforms(recorder);
+
+            list = recorder.getDisplayList();
+
+            if (selection)
+            {
+                m_list_select = list;
+            }
+            else
+            {
+                m_list_main = list;
+            }
+        }
+        list.replay(context);
+    }
+
+    private final Transform getDamageViewportTransform()
+    {
+        if (isTransformable())
+        {
+            Viewport viewport = getViewport();
+
+            if (null != viewport)
+            {
+                return viewport.getTransform();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the canvas rectangles to redraw, or null when the whole layer must be redrawn,
+     * and resets the damage for the next draw.
+     */
+    private final ArrayList<BoundingBox> getDamageRegion(Transform transform)
+    {
+        boolean all = (m_damage_all) || (false == m_incremental) || (m_virgin) || (null != m_olbd) || (null != m_olad) || (false == isVisible()) || (false == isClearLayerBeforeDraw()) || (LienzoGlobals.getInstance().getLayerClearMode() != LayerClearMode.CLEAR);
+
+        double[] vptx = null;
+
+        if (null != transform)
+        {
+            vptx = new double[6];
+
+            for (int i = 0; i < 6; i++)
+            {
+                vptx[i] = transform.get(i);
+            }
+        }
+        if (false == all)
+        {
+            if ((null == vptx) != (null == m_damage_vptx))
+            {
+                all = true;
+            }
+            else if (null != vptx)
+            {
+                for (int i = 0; i < 6; i++)
+                {
+                    if (vptx[i] != m_damage_vptx[i])
                     {
-                        m_olad.onLayerAfterDraw(this);
+                        all = true;
+
+                        break;
                     }
-                    if (isListening())
-                    {
-                        SelectionLayer selection = getSelectionLayer();
+                }
+            }
+        }
+        ArrayList<BoundingBox> region = null;
 
-                        if (null != selection)
-                        {
-                            selection.clear();
+        final int size = m_damage_nodes.length();
 
-                            context = selection.getContext();
+        if (false == all)
+        {
+            region = new ArrayList<BoundingBox>(m_damage_rects);
 
-                            if (transform != null)
-                            {
-                                context.save();
+            for (int i = 0; i < size; i++)
+            {
+                BoundingBox bbox = getDamageBox(m_damage_nodes.get(i), transform);
 
-                                context.transform(transform);
-                            }
-                            drawWithTransforms(context);
+                if (null == bbox)
+                {
+                    region = null;
 
-                            if (transform != null)
-                            {
-                                context.restore();
-                            }
-                        }
+                    break;
+                }
+                region.add(bbox);
+            }
+            if (null != region)
+            {
+                region = getMergedRegion(region);
+            }
+        }
+        for (int i = 0; i < size; i++)
+        {
+            Node<?> node = m_damage_nodes.get(i);
+
+            if (this == node.getDamagedLayer())
+            {
+                node.setDamagedLayer(null);
+            }
+        }
+        m_damage_nodes.removeAll();
+
+        m_damage_rects.clear();
+
+        m_damage_vptx = vptx;
+
+        m_damage_all = false;
+
+        return region;
+    }
+
+    /**
+     * Snaps the rectangles to whole canvas pixels and merges the overlapping ones.
+     * Returns null when redrawing the whole layer is likely to be cheaper.
+     */
+    private final ArrayList<BoundingBox> getMergedRegion(ArrayList<BoundingBox> damage)
+    {
+        ArrayList<BoundingBox> region = new ArrayList<BoundingBox>();
+
+        for (BoundingBox bbox : damage)
+        {
+            if (false == bbox.isEmpty())
+            {
+                double minx = Math.floor(Math.max(0, bbox.getMinX()));
+
+                double miny = Math.floor(Math.max(0, bbox.getMinY()));
+
+                double maxx = Math.ceil(Math.min(m_wide, bbox.getMaxX()));
+
+                double maxy = Math.ceil(Math.min(m_high, bbox.getMaxY()));
+
+                if ((minx < maxx) && (miny < maxy))
+                {
+                    region.add(new BoundingBox(minx, miny, maxx, maxy));
+                }
+            }
+        }
+        boolean merged = true;
+
+        while ((merged) && (region.size() > 1))
+        {
+            merged = false;
+
+            for (int i = 0; (i < region.size()) && (false == merged); i++)
+            {
+                for (int j = i + 1; j < region.size(); j++)
+                {
+                    if (region.get(i).intersects(region.get(j)))
+                    {
+                        region.get(i).add(region.remove(j));
+
+                        merged = true;
+
+                        break;
                     }
                 }
             }
         }
+        if (region.size() > MAX_DAMAGE_RECTS)
+        {
+            BoundingBox union = new BoundingBox();
+
+            for (BoundingBox bbox : region)
+            {
+                union.add(bbox);
+            }
+            region.clear();
+
+            region.add(union);
+        }
+        double area = 0;
+
+        for (BoundingBox bbox : region)
+        {
+            area += bbox.getWidth() * bbox.getHeight();
+        }
+        if (area > (MAX_DAMAGE_AREA * m_wide * m_high))
+        {
+            return null;
+        }
+        return region;
+    }
+
+    /**
+     * Returns the canvas area the node paints, or null if unknown.
+     */
+    private final BoundingBox getDamageBox(Node<?> node, Transform transform)
+    {
+        BoundingBox bbox = node.getPaintBoundingBox();
+
+        if ((null == bbox) || (bbox.isEmpty()))
+        {
+            return bbox;
+        }
+        ArrayList<Node<?>> list = new ArrayList<Node<?>>();
+
+        Node<?> look = node;
+
+        while (this != look)
+        {
+            if (null == look)
+            {
+                return new BoundingBox(); // not on this layer any more
+            }
+            list.add(look);
+
+            look = look.getParent();
+        }
+        Transform xfrm = (null == transform) ? new Transform() : transform.copy();
+
+        xfrm.multiply(getCombinedTransform());
+
+        for (int i = list.size() - 1; i >= 0; i--)
+        {
+            xfrm.multiply(list.get(i).getCombinedTransform());
+        }
+        return bbox.transform(xfrm).expand(node.getPaintMargin() + 2); // allow for antialiasing
     }
 
     /**
@@ -660,6 +1485,100 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
         }
     }
 
+    /**
+     * Sets whether this layer draws through a {@link StateTrackingContext2D}, which skips canvas
+     * state calls that would not change anything. Its counters report how many calls were skipped.
+     * 
+     * @param tracking
+     * @return Layer
+     */
+    public Layer setStateTracking(boolean tracking)
+    {
+        if (tracking != m_tracking)
+        {
+            m_tracking = tracking;
+
+            if (null != m_context)
+            {
+                m_context = makeContext2D(m_element);
+            }
+        }
+        return this;
+    }
+
+    public boolean isStateTracking()
+    {
+        return m_tracking;
+    }
+
+    private final Context2D makeContext2D(CanvasElement element)
+    {
+        Context2D context = m_tracking ? new StateTrackingContext2D(getNativeContext2D(element)) : new Context2D(getNativeContext2D(element));
+
+        context.setInteractive(m_interactive);
+
+        return context;
+    }
+
+    /**
+     * Sets the {@link LevelOfDetail} used to draw small shapes on this layer, in the main and selection passes.
+     * The default value is null, which draws every shape in full.
+     * Display lists, see {@link #setDisplayListCaching(boolean)}, are recorded in full and replayed at any zoom.
+     * 
+     * @param lod
+     * @return Layer
+     */
+    public Layer setLevelOfDetail(LevelOfDetail lod)
+    {
+        m_lod = lod;
+
+        m_damage_all = true;
+
+        m_list_main = null;
+
+        m_list_select = null;
+
+        return this;
+    }
+
+    public LevelOfDetail getLevelOfDetail()
+    {
+        return m_lod;
+    }
+
+    /**
+     * Switches this layer in or out of the quick drawing used while the viewport is panned or zoomed.
+     * While interactive, the selection layer is not rebuilt, even for picking; leaving it redraws the whole layer.
+     * 
+     * @see Viewport#setInteractiveQuality(boolean)
+     */
+    final void setInteractive(boolean interactive)
+    {
+        if (m_interactive != interactive)
+        {
+            m_interactive = interactive;
+
+            if (null != m_context)
+            {
+                m_context.setInteractive(interactive);
+            }
+            if (false == interactive)
+            {
+                m_damage_all = true;
+            }
+        }
+    }
+
+    /**
+     * Returns whether this layer is currently drawn quickly, because its viewport is being panned or zoomed.
+     * 
+     * @return boolean
+     */
+    public boolean isInteractive()
+    {
+        return m_interactive;
+    }
+
     /**
      * Returns the {@link Context2D} this layer is operating on.
      * 
@@ -779,44 +1698,8 @@ public class Layer extends ContainerNode<IPrimitive<?>, Layer>
     {
         ArrayList<Node<?>> find = new ArrayList<Node<?>>();
 
-        if (filter.matches(this))
-        {
-            find.add(this);
-        }
-        int size = length();
-
-        for (int i = 0; i < size; i++)
-        {
-            IPrimitive<?> prim = getChildNodes().get(i);
-
-            if (null != prim)
-            {
-                Node<?> node = prim.asNode();
-
-                if (null != node)
-                {
-                    if (filter.matches(node))
-                    {
-                        if (false == find.contains(node))
-                        {
-                            find.add(node);
-                        }
-                    }
-                    IContainer<?> cont = node.asContainer();
+        doSearch(filter, find);
 
-                    if (null != cont)
-                    {
-                        for (Node<?> look : cont.search(filter))
-                        {
-                            if (false == find.contains(look))
-                            {
-                                find.add(look);
-                            }
-                        }
-                    }
-                }
-            }
-        }
         return find;
     }
 
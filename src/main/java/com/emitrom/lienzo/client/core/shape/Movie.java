@@ -19,6 +19,9 @@ package com.emitrom.lienzo.client.core.shape;
 
 import com.emitrom.lienzo.client.core.Attribute;
 import com.emitrom.lienzo.client.core.Context2D;
+import com.emitrom.lienzo.client.core.animation.FrameScheduler;
+import com.emitrom.lienzo.client.core.animation.FrameScheduler.Phase;
+import com.emitrom.lienzo.client.core.animation.IFrameTask;
 import com.emitrom.lienzo.client.core.i18n.MessageConstants;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
@@ -27,8 +30,6 @@ import com.emitrom.lienzo.shared.core.types.ColorName;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.emitrom.lienzo.shared.core.types.TextAlign;
 import com.emitrom.lienzo.shared.core.types.TextBaseLine;
-import com.google.gwt.animation.client.AnimationScheduler;
-import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
 import com.google.gwt.dom.client.MediaElement;
 import com.google.gwt.event.dom.client.CanPlayThroughEvent;
 import com.google.gwt.event.dom.client.CanPlayThroughHandler;
@@ -138,17 +139,18 @@ public class Movie extends Shape<Movie>
                 {
                     play();
 
-                    AnimationScheduler.get().requestAnimationFrame(new AnimationCallback()
+                    FrameScheduler.get().add(Phase.DRAW, new IFrameTask()
                     {
                         @Override
-                        public void execute(double timestamp)
+                        public boolean onFrame(double time)
                         {
                             if (false == m_pause)
                             {
                                 context.drawImage(m_video.getElement(), getX(), getY(), getWidth(), getHeight());
 
-                                AnimationScheduler.get().requestAnimationFrame(this);
+                                return true;
                             }
+                            return false;
                         }
                     });
                 }
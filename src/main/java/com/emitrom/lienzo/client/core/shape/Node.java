@@ -17,10 +17,12 @@
 
 package com.emitrom.lienzo.client.core.shape;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import com.emitrom.lienzo.client.core.Attribute;
+import com.emitrom.lienzo.client.core.AttributeType;
 import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.event.NodeDragEndEvent;
 import com.emitrom.lienzo.client.core.event.NodeDragEndHandler;
@@ -62,7 +64,14 @@ import com.emitrom.lienzo.client.core.event.NodeTouchMoveEvent;
 import com.emitrom.lienzo.client.core.event.NodeTouchMoveHandler;
 import com.emitrom.lienzo.client.core.event.NodeTouchStartEvent;
 import com.emitrom.lienzo.client.core.event.NodeTouchStartHandler;
+import com.emitrom.lienzo.client.core.shape.json.BinaryFormat;
+import com.emitrom.lienzo.client.core.shape.json.FactoryRegistry;
+import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
+import com.emitrom.lienzo.client.core.shape.json.PostProcessNodeFactory;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.NativeInternalType;
 import com.emitrom.lienzo.client.core.types.Point2D;
 import com.emitrom.lienzo.client.core.types.Transform;
@@ -73,7 +82,10 @@ import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.GwtEvent.Type;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.json.client.JSONString;
 import com.google.gwt.json.client.JSONValue;
 import com.google.gwt.user.client.ui.RootPanel;
 
@@ -85,6 +97,12 @@ import com.google.gwt.user.client.ui.RootPanel;
  */
 public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSerializable<T>
 {
+    private static final int                       SHARED_EVENT_BIT = (1 << 31);
+
+    private static final HashMap<Type<?>, Integer> s_event_bits     = new HashMap<Type<?>, Integer>();
+
+    private static int                             s_delta_ids      = 0;
+
     static
     {
         RootPanel.get().getElement().getStyle().setProperty("webkitTapHighlightColor", "rgba(0,0,0,0)");
@@ -96,7 +114,41 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
 
     private Node<?>          m_parent;
 
-    private HandlerManager   m_events = new HandlerManager(this);
+    private HandlerManager   m_events  = null;
+
+    private int              m_handled = 0;
+
+    private Layer            m_counted = null;
+
+    private boolean          m_counted_drag;
+
+    private Layer            m_damaged;
+
+    private boolean          m_bounds;
+
+    private boolean          m_bbox_valid;
+
+    private BoundingBox      m_bbox;
+
+    private boolean          m_pbox_valid;
+
+    private BoundingBox      m_pbox;
+
+    private double           m_pmargin = -1;
+
+    private Transform        m_xfrm;
+
+    private Transform        m_absx;
+
+    private Transform        m_absx_base;
+
+    private String           m_delta_id      = null;
+
+    private HashSet<String>  m_delta_attr    = null;
+
+    private boolean          m_delta_changed = false;
+
+    private int              m_child_index   = -1;
 
     protected Node(NodeType type)
     {
@@ -104,6 +156,8 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
 
         m_attr = Attributes.make();
 
+        m_attr.setNode(this);
+
         setVisible(true).setListening(true);
     }
 
@@ -127,82 +181,564 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
     {
         m_type = type;
 
-        if (null == node)
+        JavaScriptObject ajso = getAttributesJSO(node);
+
+        if (null == ajso)
         {
             m_attr = Attributes.make();
 
+            m_attr.setNode(this);
+
             return;
         }
+        m_attr = ajso.cast();
+
+        m_attr.setNode(this);
+
+        if (NativeInternalType.BOOLEAN != m_attr.typeOf(Attribute.VISIBLE))
+        {
+            setVisible(true);
+        }
+        if (NativeInternalType.BOOLEAN != m_attr.typeOf(Attribute.LISTENING))
+        {
+            setListening(true);
+        }
+    }
+
+    private static final JavaScriptObject getAttributesJSO(JSONObject node)
+    {
+        if (null == node)
+        {
+            return null;
+        }
         JSONValue aval = node.get("attributes");
 
         if (null == aval)
         {
-            m_attr = Attributes.make();
+            return null;
+        }
+        JSONObject aobj = aval.isObject();
+
+        if (null == aobj)
+        {
+            return null;
+        }
+        return aobj.getJavaScriptObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final <M> M cast()
+    {
+        return (M) this;
+    }
+
+    /**
+     * Returns a copy of this Node.
+     * 
+     * @return T
+     */
+    public abstract T copy();
+
+    /**
+     * Makes the copy through the factory registered for this Node's type, from a deep copy of its attributes,
+     * without validation and without going through its JSON form. Containers copy their children the same way.
+     * 
+     * @return Node
+     */
+    protected Node<?> copyUnchecked()
+    {
+        ValidationContext ctx = new ValidationContext();
+
+        ctx.setValidate(false); // don't validate
+
+        ctx.setStopOnError(true);
+
+        try
+        {
+            return copyNode(ctx);
+        }
+        catch (ValidationException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Internal method. Makes a Node of this type, with a deep copy of this Node's attributes.
+     * 
+     * @param ctx
+     * @return Node
+     * @throws ValidationException
+     */
+    Node<?> copyNode(ValidationContext ctx) throws ValidationException
+    {
+        IFactory<?> factory = FactoryRegistry.getInstance().getFactory(getTypeName());
+
+        if (null == factory)
+        {
+            return null;
+        }
+        JSONObject json = new JSONObject();
+
+        json.put("type", new JSONString(getTypeName()));
+
+        json.put("attributes", new JSONObject(cloneAttributes(m_attr)));
+
+        Node<?> node = (Node<?>) factory.create(json, ctx);
+
+        if ((null != node) && (factory instanceof PostProcessNodeFactory))
+        {
+            ((PostProcessNodeFactory) factory).process(node);
+        }
+        return node;
+    }
+
+    /**
+     * Internal method. Returns the type name this Node is serialized and registered under.
+     * 
+     * @return String
+     */
+    String getTypeName()
+    {
+        return getNodeType().getValue();
+    }
+
+    /**
+     * Returns a deep copy of the attributes. Packed coordinates stay packed, and the links to the Node and
+     * the Style, which are not enumerable, are left for the new Node to make.
+     */
+    private static final native JavaScriptObject cloneAttributes(Attributes attr)
+    /*-{
+		function clone(v) {
+			if ((v === null) || (typeof v !== 'object')) {
+				return v;
+			}
+			if (($wnd.Float64Array) && (v instanceof $wnd.Float64Array)) {
+				return new $wnd.Float64Array(v);
+			}
+			if ((v instanceof Array) || (v instanceof $wnd.Array)) {
+				var list = [];
+
+				for (var i = 0; i < v.length; i++) {
+					list.push(clone(v[i]));
+				}
+				return list;
+			}
+			var copy = {};
+
+			for (var name in v) {
+				if (v.hasOwnProperty(name)) {
+					copy[name] = clone(v[name]);
+				}
+			}
+			return copy;
+		}
+		return clone(attr);
+    }-*/;
+
+    /**
+     * Serializes this Node as a JSON string.
+     * The JSON string can be deserialized with 
+     * {@link JSONDeserializer#fromString(String)}.
+     * The {@link Style} objects of the shapes in it are written once, in a "styles" table.
+     * 
+     * @return JSON string
+     */
+    public String toJSONString()
+    {
+        JSONObject object = toJSONDocument();
+
+        if (null != object)
+        {
+            return object.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Serializes this Node in the compact binary form of its JSON, see {@link BinaryFormat}.
+     * The ArrayBuffer can be deserialized with
+     * {@link JSONDeserializer#fromBinary(JavaScriptObject)}.
+     * 
+     * @return ArrayBuffer
+     */
+    public JavaScriptObject toBinary()
+    {
+        return BinaryFormat.encode(toJSONDocument());
+    }
+
+    /**
+     * Returns {@link #toJSONObject()} with the "styles" table of the {@link Style} objects used in it.
+     * 
+     * @return JSONObject
+     */
+    private final JSONObject toJSONDocument()
+    {
+        final boolean root = Style.openJSONTable();
+
+        try
+        {
+            JSONObject object = toJSONObject();
+
+            if ((null != object) && (root))
+            {
+                JSONObject styles = Style.closeJSONTable();
+
+                if (styles.size() > 0)
+                {
+                    object.put("styles", styles);
+                }
+            }
+            return object;
+        }
+        finally
+        {
+            if (root)
+            {
+                Style.closeJSONTable();
+            }
+        }
+    }
+
+    /**
+     * Starts tracking changes to this Node and all its descendants, for {@link #toJSONDelta()}.
+     * Nodes without an ID are given one, so that the receiving side can find them; send the
+     * {@link #toJSONString()} made after the first checkpoint, and call checkpoint again after each delta is sent.
+     * IDs must be unique within the tree.
+     * 
+     * @return T
+     */
+    public final T checkpoint()
+    {
+        doCheckpoint();
+
+        return cast();
+    }
+
+    /**
+     * Internal method. Records the current ID of this Node and clears its set of changed attributes.
+     */
+    void doCheckpoint()
+    {
+        String id = getID();
 
+        if ((null == id) || (id.isEmpty()))
+        {
+            id = "delta" + (++s_delta_ids);
+
+            setID(id);
+        }
+        m_delta_id = id;
+
+        m_delta_attr = new HashSet<String>();
+
+        m_delta_changed = false;
+    }
+
+    /**
+     * Internal method. Records that this Node, or a Node under it, changed since the last checkpoint,
+     * so that {@link #toJSONDelta()} only visits the parts of the tree that changed.
+     */
+    final void markDeltaChanged()
+    {
+        Node<?> node = this;
+
+        while ((null != node) && (null != node.m_delta_attr) && (false == node.m_delta_changed))
+        {
+            node.m_delta_changed = true;
+
+            node = node.getParent();
+        }
+    }
+
+    /**
+     * Internal method. Returns true if this Node, or a Node under it, changed since the last checkpoint.
+     * 
+     * @return boolean
+     */
+    final boolean isDeltaChanged()
+    {
+        return m_delta_changed;
+    }
+
+    /**
+     * Internal method. Returns the ID this Node had at the last checkpoint, or null if it was not part of it.
+     * 
+     * @return String
+     */
+    final String getDeltaID()
+    {
+        return m_delta_id;
+    }
+
+    /**
+     * Serializes the changes made since the last {@link #checkpoint()}: the attributes set or deleted on tracked nodes,
+     * and the children removed from, added to or reordered in tracked containers, with added nodes written whole,
+     * after they are given IDs and tracked as if checkpointed.
+     * Apply it with {@link #applyDelta(String)} on the matching Node on the receiving side.
+     * {@link Style} changes are not tracked.
+     * 
+     * @return JSON string
+     */
+    public String toJSONDelta()
+    {
+        JSONArray list = new JSONArray();
+
+        doJSONDelta(list);
+
+        JSONObject object = new JSONObject();
+
+        object.put("delta", list);
+
+        return object.toString();
+    }
+
+    /**
+     * Internal method. Adds the changes of this Node, and of its descendants for containers, to the list.
+     * 
+     * @param list
+     */
+    void doJSONDelta(JSONArray list)
+    {
+        if ((null == m_delta_attr) || (m_delta_attr.isEmpty()))
+        {
             return;
         }
-        JSONObject aobj = aval.isObject();
+        JSONObject owns = new JSONObject(m_attr.toJSONAttributes());
+
+        JSONObject attr = new JSONObject();
+
+        JSONArray gone = new JSONArray();
+
+        for (String name : m_delta_attr)
+        {
+            JSONValue value = owns.get(name);
+
+            if (null != value)
+            {
+                attr.put(name, value);
+            }
+            else
+            {
+                gone.set(gone.size(), new JSONString(name));
+            }
+        }
+        JSONObject change = new JSONObject();
+
+        change.put("id", new JSONString(m_delta_id));
+
+        change.put("attributes", attr);
+
+        if (gone.size() > 0)
+        {
+            change.put("deleted", gone);
+        }
+        list.set(list.size(), change);
+    }
+
+    /**
+     * Applies a delta made by {@link #toJSONDelta()}, validating it.
+     * 
+     * @param delta JSON string
+     * @return boolean true if it applied without errors
+     */
+    public final boolean applyDelta(String delta)
+    {
+        if ((null == delta) || (delta = delta.trim()).isEmpty())
+        {
+            return false;
+        }
+        JSONValue value = JSONParser.parseStrict(delta);
+
+        if ((null == value) || (null == value.isObject()))
+        {
+            return false;
+        }
+        ValidationContext ctx = new ValidationContext();
+
+        ctx.setValidate(true);
+
+        ctx.setStopOnError(true); // bail if an error is encountered
+
+        try
+        {
+            applyDelta(value.isObject(), ctx);
+        }
+        catch (ValidationException e)
+        {
+            return false;
+        }
+        return (ctx.getErrorCount() == 0);
+    }
+
+    /**
+     * Applies a delta made by {@link #toJSONDelta()} to this Node and its descendants, which are found by ID.
+     * Added nodes are made through the {@link JSONDeserializer}, and attribute values are checked by the
+     * {@link IFactory} of the node they are set on, when the ValidationContext validates.
+     * 
+     * @param delta JSONObject
+     * @param ctx ValidationContext
+     * @throws ValidationException
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public final void applyDelta(JSONObject delta, ValidationContext ctx) throws ValidationException
+    {
+        JSONValue lval = delta.get("delta");
+
+        ctx.push("delta");
+
+        JSONArray list = (null == lval) ? null : lval.isArray();
+
+        if (null == list)
+        {
+            ctx.addBadTypeError("Array");
+
+            ctx.pop(); // delta
+
+            return;
+        }
+        HashMap<String, Node<?>> nodes = new HashMap<String, Node<?>>();
+
+        doDeltaIndex(nodes);
+
+        final int size = list.size();
+
+        for (int i = 0; i < size; i++)
+        {
+            ctx.pushIndex(i);
+
+            JSONObject change = list.get(i).isObject();
+
+            JSONString sid = (null == change) ? null : ((null == change.get("id")) ? null : change.get("id").isString());
+
+            Node<?> node = (null == sid) ? null : nodes.get(sid.stringValue());
+
+            if (null == node)
+            {
+                ctx.addError("Can't find the node for change " + ((null == change) ? "" : change.toString()));
+            }
+            else if (null != change.get("attributes"))
+            {
+                node.applyDeltaAttributes(change, ctx);
+            }
+            else if (node instanceof ContainerNode)
+            {
+                ((ContainerNode) node).applyDeltaChildren(change, nodes, ctx);
+            }
+            ctx.pop(); // index
+        }
+        ctx.pop(); // delta
+    }
+
+    /**
+     * Internal method. Adds this Node, and its descendants for containers, to the map by ID.
+     * 
+     * @param nodes
+     */
+    void doDeltaIndex(HashMap<String, Node<?>> nodes)
+    {
+        String id = getID();
+
+        if (null != id)
+        {
+            nodes.put(id, this);
+        }
+    }
+
+    private final void applyDeltaAttributes(JSONObject change, ValidationContext ctx) throws ValidationException
+    {
+        ctx.push("attributes");
+
+        JSONObject attr = change.get("attributes").isObject();
+
+        if (null == attr)
+        {
+            ctx.addBadTypeError("Object");
+        }
+        else
+        {
+            IFactory<?> factory = getFactory();
+
+            for (String name : attr.keySet())
+            {
+                ctx.push(name);
+
+                JSONValue value = attr.get(name);
+
+                if (ctx.isValidate())
+                {
+                    AttributeType type = factory.getAttributeType(name);
+
+                    if (null == type)
+                    {
+                        ctx.addInvalidAttributeError(factory.getTypeName());
+                    }
+                    else
+                    {
+                        type.validate(value, ctx);
+                    }
+                }
+                putJSONValue(name, value);
+
+                ctx.pop(); // name
+            }
+        }
+        ctx.pop(); // attributes
+
+        JSONValue gval = change.get("deleted");
+
+        if (null != gval)
+        {
+            ctx.push("deleted");
+
+            JSONArray gone = gval.isArray();
+
+            if (null == gone)
+            {
+                ctx.addBadTypeError("Array");
+            }
+            else
+            {
+                for (int i = 0; i < gone.size(); i++)
+                {
+                    JSONString name = gone.get(i).isString();
+
+                    if (null != name)
+                    {
+                        m_attr.delete(name.stringValue());
+                    }
+                }
+            }
+            ctx.pop(); // deleted
+        }
+    }
 
-        if (null == aobj)
+    private final void putJSONValue(String name, JSONValue value)
+    {
+        if (null != value.isNumber())
         {
-            m_attr = Attributes.make();
-
-            return;
+            m_attr.put(name, value.isNumber().doubleValue());
         }
-        JavaScriptObject ajso = aobj.getJavaScriptObject();
-
-        if (null == ajso)
+        else if (null != value.isString())
         {
-            m_attr = Attributes.make();
-
-            return;
+            m_attr.put(name, value.isString().stringValue());
         }
-        m_attr = ajso.cast();
-
-        if (NativeInternalType.BOOLEAN != m_attr.typeOf(Attribute.VISIBLE))
+        else if (null != value.isBoolean())
         {
-            setVisible(true);
+            m_attr.put(name, value.isBoolean().booleanValue());
         }
-        if (NativeInternalType.BOOLEAN != m_attr.typeOf(Attribute.LISTENING))
+        else if (null != value.isObject())
         {
-            setListening(true);
+            m_attr.put(name, value.isObject().getJavaScriptObject());
         }
-    }
-
-    @SuppressWarnings("unchecked")
-    protected final <M> M cast()
-    {
-        return (M) this;
-    }
-
-    /**
-     * Returns a copy of this Node.
-     * 
-     * @return T
-     */
-    public abstract T copy();
-
-    protected Node<?> copyUnchecked()
-    {
-        return (Node<?>) JSONDeserializer.getInstance().fromString(toJSONString(), false); // don't validate
-    }
-
-    /**
-     * Serializes this Node as a JSON string.
-     * The JSON string can be deserialized with 
-     * {@link JSONDeserializer#fromString(String)}.
-     * 
-     * @return JSON string
-     */
-    public String toJSONString()
-    {
-        JSONObject object = toJSONObject();
-
-        if (null != object)
+        else if (null != value.isArray())
         {
-            return object.toString();
+            m_attr.put(name, value.isArray().getJavaScriptObject());
+        }
+        else
+        {
+            m_attr.delete(name);
         }
-        return null;
     }
 
     /**
@@ -230,11 +766,37 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
         m_parent = parent;
     }
 
+    /**
+     * Internal method. Registers this Node, and its descendants for containers, with the {@link Style} they use
+     * when they are attached to a Layer, and unregisters them when they are detached, so that a Style never
+     * keeps removed nodes alive.
+     * 
+     * @param attach
+     */
+    void attachStyles(boolean attach)
+    {
+    }
+
     public Node<?> getParent()
     {
         return m_parent;
     }
 
+    /**
+     * Internal method. Sets the index of this Node in its parent, see {@link ContainerNode#indexOfChild(Node)}.
+     * 
+     * @param index
+     */
+    final void setChildIndex(int index)
+    {
+        m_child_index = index;
+    }
+
+    final int getChildIndex()
+    {
+        return m_child_index;
+    }
+
     /**
      * Returns the Layer that this Node is on.
      * 
@@ -282,8 +844,20 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
         return null;
     }
 
+    /**
+     * Returns the HandlerManager of this node, creating it if needed.
+     * Handlers added straight to it are not tracked, so the node then always asks it whether an event is handled.
+     * 
+     * @return HandlerManager
+     */
     public HandlerManager getHandlerManager()
     {
+        if (null == m_events)
+        {
+            m_events = new HandlerManager(this);
+        }
+        setHandledMask(-1);
+
         return m_events;
     }
 
@@ -310,10 +884,14 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
     {
         if (context.isDrag() || isVisible())
         {
-            context.save();
-
             Transform xfrm = getCombinedTransform();
 
+            if (context.isCulling() && context.isCulled(xfrm, getPaintBoundingBox(), getPaintMargin()))
+            {
+                return;
+            }
+            context.save();
+
             context.transform(xfrm);
 
             drawWithoutTransforms(context);
@@ -337,38 +915,236 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
     {
     }
 
+    /**
+     * Returns the bounding box of this Node's geometry, in the Node's own coordinates
+     * (i.e. before X, Y, ROTATION, SCALE, SHEAR, OFFSET and TRANSFORM are applied),
+     * or null if the bounds can not be determined.
+     * <p>
+     * The box is cached until an attribute of this Node, or of one of its children, changes.
+     * It must not be modified.
+     * 
+     * @return {@link BoundingBox}
+     */
+    public final BoundingBox getBoundingBox()
+    {
+        if (false == m_bbox_valid)
+        {
+            m_bbox = computeBoundingBox();
+
+            m_bbox_valid = m_bounds = true;
+        }
+        return m_bbox;
+    }
+
+    /**
+     * Computes the value returned by {@link #getBoundingBox()}.
+     * 
+     * @return {@link BoundingBox} or null if unknown
+     */
+    protected BoundingBox computeBoundingBox()
+    {
+        return null;
+    }
+
+    /**
+     * Returns the bounding box of all the pixels this Node may paint, in the Node's own coordinates,
+     * or null if unknown. Unlike {@link #getBoundingBox()}, this includes things like the stroke width.
+     * Cached like {@link #getBoundingBox()}.
+     * 
+     * @return {@link BoundingBox}
+     */
+    protected final BoundingBox getPaintBoundingBox()
+    {
+        if (false == m_pbox_valid)
+        {
+            m_pbox = computePaintBoundingBox();
+
+            m_pbox_valid = m_bounds = true;
+        }
+        return m_pbox;
+    }
+
+    protected BoundingBox computePaintBoundingBox()
+    {
+        return getBoundingBox();
+    }
+
+    /**
+     * Returns how many canvas pixels this Node may paint outside of its transformed
+     * {@link #getPaintBoundingBox()}, i.e. for Shadows.
+     * 
+     * @return double
+     */
+    protected final double getPaintMargin()
+    {
+        if (m_pmargin < 0)
+        {
+            m_pmargin = Math.max(0, computePaintMargin());
+
+            m_bounds = true;
+        }
+        return m_pmargin;
+    }
+
+    protected double computePaintMargin()
+    {
+        return 0;
+    }
+
+    /**
+     * Discards the cached bounds of this Node and of its ancestors.
+     * Attribute changes do this automatically; call it when anything else changes the bounds.
+     */
+    public final void invalidateBoundingBox()
+    {
+        Node<?> node = this;
+
+        while ((null != node) && (node.m_bounds))
+        {
+            node.m_bounds = node.m_bbox_valid = node.m_pbox_valid = false;
+
+            node.m_bbox = node.m_pbox = null;
+
+            node.m_pmargin = -1;
+
+            node = node.getParent();
+        }
+    }
+
+    /**
+     * Called by {@link Attributes} before any attribute of this Node is changed or deleted.
+     * Reports this Node as damaged to its Layer, so that incremental draws repaint it,
+     * marks its spatial index entry as stale, then discards the cached bounds.
+     * 
+     * @param property
+     */
+    protected void onAttributeChange(String property)
+    {
+        if (isTransformAttribute(property))
+        {
+            m_xfrm = m_absx = m_absx_base = null;
+        }
+        if (isPaintedAttribute(property))
+        {
+            if (isTransformAttribute(property))
+            {
+                Node<?> parent = getParent(); // a cached bitmap does not include the Group's own transform
+
+                if (null != parent)
+                {
+                    parent.invalidateCachedGroups();
+                }
+            }
+            else
+            {
+                invalidateCachedGroups();
+            }
+            Layer layer = getLayer();
+
+            if (null != layer)
+            {
+                layer.damage(this);
+
+                layer.invalidateIndex(this);
+            }
+            invalidateBoundingBox();
+        }
+        if ((null != m_counted) && (Attribute.DRAGGABLE.getProperty().equals(property)))
+        {
+            countEvents(m_counted);
+        }
+        if (null != m_delta_attr)
+        {
+            m_delta_attr.add(property);
+
+            markDeltaChanged();
+        }
+    }
+
+    /**
+     * Discards the bitmaps of this Node and of every ancestor {@link Group} drawn with {@link Group#setCached(boolean)}.
+     * Attribute changes do this automatically; call it when anything else changes what the Node paints.
+     */
+    public final void invalidateCachedGroups()
+    {
+        Node<?> node = this;
+
+        while (null != node)
+        {
+            node.clearCachedBitmap();
+
+            node = node.getParent();
+        }
+    }
+
+    void clearCachedBitmap()
+    {
+    }
+
+    private static final boolean isTransformAttribute(String property)
+    {
+        return (Attribute.X.getProperty().equals(property) || Attribute.Y.getProperty().equals(property) || Attribute.ROTATION.getProperty().equals(property) || Attribute.SCALE.getProperty().equals(property) || Attribute.SHEAR.getProperty().equals(property) || Attribute.OFFSET.getProperty().equals(property) || Attribute.TRANSFORM.getProperty().equals(property));
+    }
+
+    private static final boolean isPaintedAttribute(String property)
+    {
+        return (false == (Attribute.ID.getProperty().equals(property) || Attribute.NAME.getProperty().equals(property) || Attribute.DRAGGABLE.getProperty().equals(property) || Attribute.DRAG_CONSTRAINT.getProperty().equals(property) || Attribute.DRAG_BOUNDS.getProperty().equals(property)));
+    }
+
+    final Layer getDamagedLayer()
+    {
+        return m_damaged;
+    }
+
+    final void setDamagedLayer(Layer layer)
+    {
+        m_damaged = layer;
+    }
+
     /**
      * Returns the absolute transform by concatenating the transforms
-     * of all its ancestors from the Viewport down to this node's parent.
+     * of all its ancestors from the Viewport down to this node.
+     * <p>
+     * The result is cached until this node's transform attributes, or those of an ancestor, change.
+     * It is shared, so callers must copy it before modifying it.
      * 
      * @return {@link Transform}
      */
     public Transform getAbsoluteTransform()
     {
-        Transform xfrm = new Transform();
+        Node<?> parent = getParent();
 
-        ArrayList<Node<?>> list = new ArrayList<Node<?>>();
+        Transform base = (null == parent) ? null : parent.getAbsoluteTransform();
 
-        list.add(this);
+        if ((null == m_absx) || (base != m_absx_base)) // a new base means an ancestor has changed
+        {
+            Transform xfrm = (null == base) ? new Transform() : base.copy();
 
-        Node<?> parent = this.getParent();
+            xfrm.multiply(getCombinedTransform());
 
-        while (parent != null)
-        {
-            list.add(parent);
+            m_absx = xfrm;
 
-            parent = parent.getParent();
+            m_absx_base = base;
         }
-        int size = list.size(); // TODO no need to use a list
+        return m_absx;
+    }
 
-        for (int i = size - 1; i >= 0; i--)
+    /**
+     * Returns the transform built from this node's X, Y, ROTATION, SCALE, SHEAR, OFFSET and TRANSFORM attributes.
+     * The result is cached until one of them changes, and must not be modified.
+     * 
+     * @return {@link Transform}
+     */
+    protected Transform getCombinedTransform()
+    {
+        if (null == m_xfrm)
         {
-            xfrm.multiply(list.get(i).getCombinedTransform());
+            m_xfrm = computeCombinedTransform();
         }
-        return xfrm;
+        return m_xfrm;
     }
 
-    protected Transform getCombinedTransform()
+    protected Transform computeCombinedTransform()
     {
         Transform xfrm = new Transform();
 
@@ -574,6 +1350,10 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
     @Override
     public boolean isEventHandled(Type<?> type)
     {
+        if ((0 == m_handled) || (0 == (m_handled & getEventBit(type))))
+        {
+            return false;
+        }
         if ((null != m_events) && (isListening()) && (((isVisible()) || (type == NodeDragStartEvent.getType()) || (type == NodeDragMoveEvent.getType()))))
         {
             return ((m_events.isEventHandled(type)) && ((m_events.getHandlerCount(type) > 0)));
@@ -584,15 +1364,126 @@ public abstract class Node<T extends Node<T>> implements IDrawable<T>, IJSONSeri
     @Override
     public void fireEvent(GwtEvent<?> event)
     {
+        if ((0 == m_handled) || (0 == (m_handled & getEventBit(event.getAssociatedType()))))
+        {
+            return;
+        }
         if ((null != m_events) && (isListening()) && (((isVisible()) || (event.getAssociatedType() == NodeDragStartEvent.getType()) || (event.getAssociatedType() == NodeDragMoveEvent.getType()))))
         {
             m_events.fireEvent(event);
         }
     }
 
-    protected final <H extends EventHandler> HandlerRegistration addEnsureHandler(Type<H> type, H handler)
+    /**
+     * Adds a handler, creating the HandlerManager on first use, and marks the type as handled by this node.
+     * 
+     * @param type
+     * @param handler
+     * @return HandlerRegistration
+     */
+    protected final <H extends EventHandler> HandlerRegistration addEnsureHandler(final Type<H> type, H handler)
+    {
+        if (null == m_events)
+        {
+            m_events = new HandlerManager(this);
+        }
+        final HandlerRegistration registration = m_events.addHandler(type, handler);
+
+        setHandledMask(m_handled | getEventBit(type));
+
+        return new HandlerRegistration()
+        {
+            @Override
+            public void removeHandler()
+            {
+                registration.removeHandler();
+
+                onHandlerRemoved(type);
+            }
+        };
+    }
+
+    /**
+     * Clears the bit of a type once it has no handlers left. Removals made while the event is being fired are
+     * deferred by the HandlerManager, in which case the bit stays set and the HandlerManager is asked instead.
+     */
+    private final void onHandlerRemoved(Type<?> type)
+    {
+        if ((null != m_events) && (-1 != m_handled) && (0 == m_events.getHandlerCount(type)))
+        {
+            final int bit = getEventBit(type);
+
+            if (SHARED_EVENT_BIT != bit)
+            {
+                setHandledMask(m_handled & ~bit);
+            }
+        }
+    }
+
+    private final void setHandledMask(int mask)
+    {
+        if (mask != m_handled)
+        {
+            Layer layer = m_counted;
+
+            uncountEvents();
+
+            m_handled = mask;
+
+            countEvents(layer);
+        }
+    }
+
+    /**
+     * Internal method. Adds this node's handled event types, and whether it is draggable, to the counts
+     * kept by the Layer, taking them off the Layer it was counted on before, if any.
+     * 
+     * @param layer may be null
+     */
+    final void countEvents(Layer layer)
+    {
+        uncountEvents();
+
+        if (null != layer)
+        {
+            m_counted = layer;
+
+            m_counted_drag = m_attr.isDraggable();
+
+            layer.countEvents(m_handled, m_counted_drag, 1);
+        }
+    }
+
+    /**
+     * Internal method. Takes this node off the counts of the Layer it was counted on.
+     */
+    final void uncountEvents()
+    {
+        if (null != m_counted)
+        {
+            m_counted.countEvents(m_handled, m_counted_drag, -1);
+
+            m_counted = null;
+        }
+    }
+
+    /**
+     * Returns the bit that stands for the event type in the mask of handled types. The first 31 types
+     * get a bit each, in the order they are first seen; any after that share the last bit.
+     */
+    static final int getEventBit(Type<?> type)
     {
-        return m_events.addHandler(type, handler);
+        Integer bit = s_event_bits.get(type);
+
+        if (null == bit)
+        {
+            final int size = s_event_bits.size();
+
+            bit = (size < 31) ? (1 << size) : SHARED_EVENT_BIT;
+
+            s_event_bits.put(type, bit);
+        }
+        return bit;
     }
 
     public HandlerRegistration addNodeMouseClickHandler(NodeMouseClickHandler handler)
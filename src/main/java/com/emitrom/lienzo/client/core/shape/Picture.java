@@ -28,6 +28,7 @@ import com.emitrom.lienzo.client.core.shape.json.PostProcessNodeFactory;
 import com.emitrom.lienzo.client.core.shape.json.ResourceResolver;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.ImageData;
 import com.emitrom.lienzo.shared.core.types.DataURLType;
 import com.emitrom.lienzo.shared.core.types.PictureSerializationMode;
@@ -538,6 +539,8 @@ public class Picture extends Shape<Picture>
 
         object.put("attributes", attr);
 
+        toJSONStyle(object);
+
         return object;
     }
 
@@ -577,6 +580,30 @@ public class Picture extends Shape<Picture>
         return false;
     }
 
+    /**
+     * The selection image is drawn in this Picture's color key when it loads, so the key is kept for good.
+     */
+    @Override
+    protected boolean isColorKeyRecycled()
+    {
+        return false;
+    }
+
+    /**
+     * Returns the bounds of this picture, in its own coordinates. Until the image has loaded, nothing is drawn.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        if (null == m_proxy.getImageJSO())
+        {
+            return new BoundingBox();
+        }
+        return new BoundingBox(0, 0, m_proxy.getDestinationWidth(), m_proxy.getDestinationHeight());
+    }
+
     public String getPictureCategory()
     {
         return getAttributes().getPictureCategory();
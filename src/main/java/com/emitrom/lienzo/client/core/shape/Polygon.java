@@ -22,7 +22,8 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
-import com.emitrom.lienzo.client.core.types.Point2D;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
 import com.emitrom.lienzo.client.core.types.Point2DArray;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
@@ -57,30 +58,38 @@ public class Polygon extends Shape<Polygon>
      */
     @Override
     public boolean prepare(Context2D context, Attributes attr, double alpha)
+    {
+        return preparePath(context);
+    }
+
+    @Override
+    protected void buildPath(PathBuffer path)
     {
         Point2DArray list = getPoints();
 
         if ((null != list) && (list.getLength() > 2))
         {
-            Point2D point = list.getPoint(0);
-
-            context.beginPath();
-
-            context.moveTo(point.getX(), point.getY());
+            path.moveTo(list.getX(0), list.getY(0));
 
             final int leng = list.getLength();
 
             for (int i = 1; i < leng; i++)
             {
-                point = list.getPoint(i);
-
-                context.lineTo(point.getX(), point.getY());
+                path.lineTo(list.getX(i), list.getY(i));
             }
-            context.closePath();
-
-            return true;
+            path.closePath();
         }
-        return false;
+    }
+
+    /**
+     * Returns the bounds of this polygon, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox(getPoints());
     }
 
     /**
@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -108,6 +109,32 @@ public class Rectangle extends Shape<Rectangle>
         return true;
     }
 
+    /**
+     * Square cornered rectangles are tested exactly; rounded ones fall back to the flattened path.
+     */
+    @Override
+    protected boolean hitTest(Attributes attr, double x, double y, double tolerance)
+    {
+        if (getCornerRadius() != 0)
+        {
+            return super.hitTest(attr, x, y, tolerance);
+        }
+        BoundingBox box = new BoundingBox(0, 0, attr.getWidth(), attr.getHeight());
+
+        return hitTest(attr, box.contains(x, y), box.getEdgeDistance(x, y), tolerance);
+    }
+
+    /**
+     * Returns the bounds of this rectangle, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox(0, 0, getWidth(), getHeight());
+    }
+
     /**
      * Gets the width of this rectangle.
      * 
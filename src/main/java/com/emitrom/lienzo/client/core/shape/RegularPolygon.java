@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -78,6 +79,19 @@ public class RegularPolygon extends Shape<RegularPolygon>
         return false;
     }
 
+    /**
+     * Returns the bounds of this polygon, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        final double r = getRadius();
+
+        return new BoundingBox(-r, -r, r, r);
+    }
+
     /**
      * Gets this regular polygon's encompassing circle's radius.
      * 
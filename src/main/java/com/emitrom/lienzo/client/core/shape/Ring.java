@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -77,6 +78,32 @@ public class Ring extends Shape<Ring>
         return true;
     }
 
+    /**
+     * Only the outer edge is stroked on the selection layer, so only the outer edge is tested against the stroke.
+     */
+    @Override
+    protected boolean hitTest(Attributes attr, double x, double y, double tolerance)
+    {
+        final double r = getOuterRadius();
+
+        final double d = Math.sqrt(x * x + y * y);
+
+        return hitTest(attr, ((d <= r) && (d >= getInnerRadius())), Math.abs(d - r), tolerance);
+    }
+
+    /**
+     * Returns the bounds of this ring, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        final double r = getOuterRadius();
+
+        return new BoundingBox(-r, -r, r, r);
+    }
+
     @Override
     protected void stroke(Context2D context, Attributes attr, double alpha)
     {
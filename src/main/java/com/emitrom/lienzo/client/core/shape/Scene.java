@@ -37,6 +37,7 @@ import com.google.gwt.dom.client.Style.Display;
 import com.google.gwt.dom.client.Style.Position;
 import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.GwtEvent.Type;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONString;
@@ -269,6 +270,99 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
         return null;
     }
 
+    /**
+     * Given a set of (x,y) coordinates, returns the {@link Shape} that is matched, looking only at the
+     * Layers where {@link Layer#hasPickableNodes()} is true. Other Layers are passed over without
+     * building or reading their selection layer, so their shapes do not hide the ones below them.
+     * Used when dispatching node events.
+     * 
+     * @param x
+     * @param y
+     * @return Shape
+     */
+    public final Shape<?> findPickableShapeAtPoint(int x, int y)
+    {
+        if (isVisible())
+        {
+            FastArrayList<Layer> layers = getChildNodes();
+
+            if (null != layers)
+            {
+                int size = layers.length();
+
+                for (int i = size - 1; i >= 0; i--)
+                {
+                    Layer layer = layers.get(i);
+
+                    if ((null != layer) && (layer.isListening()) && (layer.hasPickableNodes()))
+                    {
+                        Shape<?> shape = layer.findShapeAtPoint(x, y);
+
+                        if (null != shape)
+                        {
+                            return shape;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if a Shape or Group on a visible, listening Layer has a handler for the event type.
+     * When false, nothing can be found for that event by {@link #findShapeAtPoint(int, int)}.
+     * 
+     * @param type
+     * @return boolean
+     */
+    public final boolean hasEventHandlers(Type<?> type)
+    {
+        FastArrayList<Layer> layers = getChildNodes();
+
+        if (null != layers)
+        {
+            int size = layers.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                Layer layer = layers.get(i);
+
+                if ((null != layer) && (layer.isVisible()) && (layer.isListening()) && (layer.hasEventHandlers(type)))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if a Shape or Group on a visible, listening Layer is draggable.
+     * 
+     * @return boolean
+     */
+    public final boolean hasDraggables()
+    {
+        FastArrayList<Layer> layers = getChildNodes();
+
+        if (null != layers)
+        {
+            int size = layers.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                Layer layer = layers.get(i);
+
+                if ((null != layer) && (layer.isVisible()) && (layer.isListening()) && (layer.hasDraggables()))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Fires the given GWT event.
      */
@@ -433,6 +527,8 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
             if (null != layers)
             {
                 layers.moveDown(layer);
+
+                onChildrenChanged();
             }
         }
     }
@@ -479,6 +575,8 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
             if (null != layers)
             {
                 layers.moveUp(layer);
+
+                onChildrenChanged();
             }
         }
     }
@@ -510,6 +608,39 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
             if (null != layers)
             {
                 layers.moveToTop(layer);
+
+                onChildrenChanged();
+            }
+        }
+    }
+
+    /**
+     * Internal method. Moves a layer to the given index, and puts the canvas elements back in layer order.
+     * 
+     * @param layer
+     * @param index
+     */
+    @Override
+    void moveChild(Layer layer, int index)
+    {
+        super.moveChild(layer, index);
+
+        if (LienzoGlobals.getInstance().isCanvasSupported())
+        {
+            FastArrayList<Layer> layers = getChildNodes();
+
+            final int size = layers.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                CanvasElement element = layers.get(i).getCanvasElement();
+
+                if (null != element)
+                {
+                    getElement().removeChild(element);
+
+                    getElement().appendChild(element);
+                }
             }
         }
     }
@@ -541,6 +672,8 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
             if (null != layers)
             {
                 layers.moveToBottom(layer);
+
+                onChildrenChanged();
             }
         }
     }
@@ -607,7 +740,7 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
 
                     if ((null != layer) && (layer.isVisible()))
                     {
-                        layer.drawWithTransforms(scratch.getContext());
+                        layer.drawContent(scratch.getContext());
                     }
                 }
             }
@@ -635,7 +768,7 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
 
                 if (null != background)
                 {
-                    background.drawWithTransforms(scratch.getContext());
+                    background.drawContent(scratch.getContext());
                 }
                 for (int i = size - 1; i >= 0; i--)
                 {
@@ -643,7 +776,7 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
 
                     if ((null != layer) && (layer.isVisible()))
                     {
-                        layer.drawWithTransforms(scratch.getContext());
+                        layer.drawContent(scratch.getContext());
                     }
                 }
             }
@@ -673,7 +806,7 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
 
                     if ((null != layer) && (layer.isVisible()))
                     {
-                        layer.drawWithTransforms(scratch.getContext());
+                        layer.drawContent(scratch.getContext());
                     }
                 }
             }
@@ -701,7 +834,7 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
 
                 if (null != background)
                 {
-                    background.drawWithTransforms(scratch.getContext());
+                    background.drawContent(scratch.getContext());
                 }
                 for (int i = size - 1; i >= 0; i--)
                 {
@@ -709,7 +842,7 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
 
                     if ((null != layer) && (layer.isVisible()))
                     {
-                        layer.drawWithTransforms(scratch.getContext());
+                        layer.drawContent(scratch.getContext());
                     }
                 }
             }
@@ -726,34 +859,8 @@ public class Scene extends ContainerNode<Layer, Scene> implements IJSONSerializa
     {
         ArrayList<Node<?>> find = new ArrayList<Node<?>>();
 
-        if (filter.matches(this))
-        {
-            find.add(this);
-        }
-        int size = length();
-
-        for (int i = 0; i < size; i++)
-        {
-            Layer layer = getChildNodes().get(i);
+        doSearch(filter, find);
 
-            if (null != layer)
-            {
-                if (filter.matches(layer))
-                {
-                    if (false == find.contains(layer))
-                    {
-                        find.add(layer);
-                    }
-                }
-                for (Node<?> look : layer.search(filter))
-                {
-                    if (false == find.contains(look))
-                    {
-                        find.add(look);
-                    }
-                }
-            }
-        }
         return find;
     }
 
@@ -20,27 +20,33 @@ package com.emitrom.lienzo.client.core.shape;
 import com.emitrom.lienzo.client.core.Attribute;
 import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.Context2D.GradientJSO;
+import com.emitrom.lienzo.client.core.HitTestContext2D;
 import com.emitrom.lienzo.client.core.LienzoGlobals;
 import com.emitrom.lienzo.client.core.animation.AnimationProperties;
 import com.emitrom.lienzo.client.core.animation.AnimationTweener;
 import com.emitrom.lienzo.client.core.animation.IAnimationCallback;
 import com.emitrom.lienzo.client.core.animation.IAnimationHandle;
 import com.emitrom.lienzo.client.core.animation.TweeningAnimation;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.DashArray;
 import com.emitrom.lienzo.client.core.types.DragBounds;
 import com.emitrom.lienzo.client.core.types.FillGradient;
+import com.emitrom.lienzo.client.core.types.LevelOfDetail;
 import com.emitrom.lienzo.client.core.types.LinearGradient;
 import com.emitrom.lienzo.client.core.types.LinearGradient.LinearGradientJSO;
 import com.emitrom.lienzo.client.core.types.NativeInternalType;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
 import com.emitrom.lienzo.client.core.types.PatternGradient;
 import com.emitrom.lienzo.client.core.types.PatternGradient.PatternGradientJSO;
 import com.emitrom.lienzo.client.core.types.Point2D;
 import com.emitrom.lienzo.client.core.types.RadialGradient;
 import com.emitrom.lienzo.client.core.types.RadialGradient.RadialGradientJSO;
 import com.emitrom.lienzo.client.core.types.Shadow;
+import com.emitrom.lienzo.client.core.util.ColorKeyAllocator;
 import com.emitrom.lienzo.client.widget.DefaultDragConstraintEnforcer;
 import com.emitrom.lienzo.client.widget.DragConstraintEnforcer;
-import com.emitrom.lienzo.shared.core.types.Color;
 import com.emitrom.lienzo.shared.core.types.DragConstraint;
 import com.emitrom.lienzo.shared.core.types.IColor;
 import com.emitrom.lienzo.shared.core.types.LineCap;
@@ -59,15 +65,23 @@ import com.google.gwt.json.client.JSONString;
 
 public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrimitive<T>, IJSONSerializable<T>
 {
-    private ShapeType              m_type;
+    private static HitTestContext2D s_hit   = null;
 
-    private boolean                m_apsh = false;
+    private ShapeType               m_type;
 
-    private boolean                m_fill = false;
+    private boolean                 m_apsh  = false;
 
-    private final String           m_hkey = Color.getHEXColorKey();
+    private boolean                 m_fill  = false;
 
-    private DragConstraintEnforcer m_dragConstraintEnforcer;
+    private int                     m_ckey  = 0;
+
+    private DragConstraintEnforcer  m_dragConstraintEnforcer;
+
+    private PathBuffer              m_path  = null;
+
+    private LevelOfDetail           m_lod   = null;
+
+    private Style                   m_style = null;
 
     protected Shape(ShapeType type)
     {
@@ -162,6 +176,12 @@ public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrim
 
         Attributes attr = getAttributes();
 
+        LevelOfDetail lod = (null != m_lod) ? m_lod : context.getLevelOfDetail();
+
+        if ((null != lod) && (drawLevelOfDetail(context, attr, alpha, lod)))
+        {
+            return;
+        }
         if (prepare(context, attr, alpha))
         {
             fill(context, attr, alpha);
@@ -170,6 +190,142 @@ public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrim
         }
     }
 
+    /**
+     * Sets the {@link LevelOfDetail} for this Shape, overriding the one set on its {@link Layer}.
+     * The default value is null, which uses the Layer's.
+     * 
+     * @param lod
+     * @return T
+     */
+    @SuppressWarnings("unchecked")
+    public T setLevelOfDetail(LevelOfDetail lod)
+    {
+        m_lod = lod;
+
+        Layer layer = getLayer();
+
+        if (null != layer)
+        {
+            layer.damage(this);
+        }
+        return (T) this;
+    }
+
+    public LevelOfDetail getLevelOfDetail()
+    {
+        return m_lod;
+    }
+
+    /**
+     * Draws this Shape as a dot or a rectangle, or not at all, if it is too small on screen to draw in full.
+     * 
+     * @return true if the Shape does not need to be drawn in full
+     */
+    private final boolean drawLevelOfDetail(Context2D context, Attributes attr, double alpha, LevelOfDetail lod)
+    {
+        final double scale = context.getTransformScale();
+
+        final double size = getLevelOfDetailSize() * scale;
+
+        if ((size <= 0) || (size >= lod.getFullSize()))
+        {
+            return false;
+        }
+        if (size < lod.getHideSize())
+        {
+            return true;
+        }
+        BoundingBox box = getBoundingBox();
+
+        if ((null == box) || (box.isEmpty()))
+        {
+            return false;
+        }
+        final boolean selection = context.isSelection();
+
+        String color = selection ? getColorKey() : getLevelOfDetailColor(attr);
+
+        if (null == color)
+        {
+            return true;
+        }
+        context.save();
+
+        context.setGlobalAlpha(selection ? 1 : alpha);
+
+        context.setFillColor(color);
+
+        if (size < lod.getDotSize())
+        {
+            final double half = 0.5 / scale;
+
+            context.fillRect(box.getX() + box.getWidth() / 2 - half, box.getY() + box.getHeight() / 2 - half, half * 2, half * 2);
+        }
+        else
+        {
+            drawLevelOfDetailRectangle(context, box);
+        }
+        context.restore();
+
+        return true;
+    }
+
+    /**
+     * Returns the size of this Shape in its own coordinates, compared with the {@link LevelOfDetail} thresholds
+     * once scaled. The default is the larger side of the bounding box, or 0 if it is unknown.
+     * 
+     * @return double
+     */
+    protected double getLevelOfDetailSize()
+    {
+        BoundingBox box = getBoundingBox();
+
+        if ((null == box) || (box.isEmpty()))
+        {
+            return 0;
+        }
+        return Math.max(box.getWidth(), box.getHeight());
+    }
+
+    /**
+     * Draws the simplified form of this Shape, with the fill color already set. The default fills the bounding box.
+     * 
+     * @param context
+     * @param box
+     */
+    protected void drawLevelOfDetailRectangle(Context2D context, BoundingBox box)
+    {
+        context.fillRect(box.getX(), box.getY(), box.getWidth(), box.getHeight());
+    }
+
+    private final String getLevelOfDetailColor(Attributes attr)
+    {
+        String color = attr.getFillColor();
+
+        if (null != color)
+        {
+            return color;
+        }
+        JavaScriptObject grad = attr.getObject(Attribute.FILL.getProperty());
+
+        if (null != grad)
+        {
+            color = grad.<GradientJSO> cast().getFlatColor();
+
+            if (null != color)
+            {
+                return color;
+            }
+        }
+        color = attr.getStrokeColor();
+
+        if (null != color)
+        {
+            return color;
+        }
+        return LienzoGlobals.getInstance().getDefaultStrokeColor();
+    }
+
     protected final void setWasFilledFlag(boolean fill)
     {
         m_fill = fill;
@@ -182,6 +338,65 @@ public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrim
 
     protected abstract boolean prepare(Context2D context, Attributes attr, double alpha);
 
+    /**
+     * Replays this Shape's retained path into the context, building it first if needed.
+     * Shapes whose geometry is expensive to compute can call this from {@link #prepare(Context2D, Attributes, double)}
+     * and implement {@link #buildPath(PathBuffer)}; the path is then reused by the main and selection
+     * passes until a geometry attribute changes.
+     * 
+     * @param context
+     * @return false if the path is empty
+     */
+    protected final boolean preparePath(Context2D context)
+    {
+        if (null == m_path)
+        {
+            m_path = new PathBuffer();
+
+            buildPath(m_path);
+        }
+        if (m_path.isEmpty())
+        {
+            return false;
+        }
+        context.path(m_path);
+
+        return true;
+    }
+
+    /**
+     * Builds the retained path used by {@link #preparePath(Context2D)}. Leave the path empty if there is nothing to draw.
+     * 
+     * @param path
+     */
+    protected void buildPath(PathBuffer path)
+    {
+    }
+
+    /**
+     * Discards the retained path. Attribute changes, and edits made in place to the {@link com.emitrom.lienzo.client.core.types.Point2DArray} of a Shape,
+     * do this automatically; call it when anything else changes the geometry.
+     */
+    protected final void invalidatePath()
+    {
+        m_path = null;
+    }
+
+    @Override
+    protected void onAttributeChange(String property)
+    {
+        if (isPathAttribute(property))
+        {
+            m_path = null;
+        }
+        super.onAttributeChange(property);
+    }
+
+    private static final boolean isPathAttribute(String property)
+    {
+        return (false == (Attribute.FILL.getProperty().equals(property) || Attribute.STROKE.getProperty().equals(property) || Attribute.STROKE_WIDTH.getProperty().equals(property) || Attribute.ALPHA.getProperty().equals(property) || Attribute.SHADOW.getProperty().equals(property) || Attribute.X.getProperty().equals(property) || Attribute.Y.getProperty().equals(property) || Attribute.ROTATION.getProperty().equals(property) || Attribute.SCALE.getProperty().equals(property) || Attribute.SHEAR.getProperty().equals(property) || Attribute.OFFSET.getProperty().equals(property) || Attribute.TRANSFORM.getProperty().equals(property) || Attribute.VISIBLE.getProperty().equals(property) || Attribute.LISTENING.getProperty().equals(property) || Attribute.DRAGGABLE.getProperty().equals(property)));
+    }
+
     /**
      * Fills the Shape using the passed attributes.
      * This method will silently also fill the Shape to its unique rgb color if the context is a buffer.
@@ -386,6 +601,95 @@ public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrim
         context.restore();
     }
 
+    /**
+     * Returns true if the point, in this Shape's own coordinates, is over an area this Shape can be picked by,
+     * which is the same area it paints on the selection layer: its fill, or the area it would fill if
+     * {@link #isFillShapeForSelection()}, and its stroke. Used by {@link GeometricHitTester}.
+     * 
+     * @param x
+     * @param y
+     * @param tolerance how far outside of the stroke still counts as a hit, in this Shape's coordinates
+     * @return boolean
+     */
+    public boolean isHit(double x, double y, double tolerance)
+    {
+        if (getGlobalAlpha() <= 0)
+        {
+            return false;
+        }
+        return hitTest(getAttributes(), x, y, tolerance);
+    }
+
+    /**
+     * Tests the point by drawing this Shape into a {@link HitTestContext2D}, which flattens its path.
+     * Shapes with simple geometry override this with an exact test, usually through
+     * {@link #hitTest(Attributes, boolean, double, double)}.
+     * 
+     * @param attr
+     * @param x
+     * @param y
+     * @param tolerance
+     * @return boolean
+     */
+    protected boolean hitTest(Attributes attr, double x, double y, double tolerance)
+    {
+        if (null == s_hit)
+        {
+            s_hit = new HitTestContext2D();
+        }
+        s_hit.reset(x, y, tolerance);
+
+        m_apsh = false;
+
+        m_fill = false;
+
+        if (prepare(s_hit, attr, 1))
+        {
+            fill(s_hit, attr, 1);
+
+            stroke(s_hit, attr, 1);
+        }
+        return s_hit.isHit();
+    }
+
+    /**
+     * Decides a hit the way {@link #fill(Context2D, Attributes, double)} and {@link #setStrokeParams(Context2D, Attributes, double)}
+     * decide what is drawn, given whether the point is inside the outline and how far it is from it.
+     * 
+     * @param attr
+     * @param inside
+     * @param distance from the point to the outline
+     * @param tolerance
+     * @return boolean
+     */
+    protected final boolean hitTest(Attributes attr, boolean inside, double distance, double tolerance)
+    {
+        final boolean filled = (attr.isDefined(Attribute.FILL)) || (attr.isFillShapeForSelection());
+
+        if ((filled) && (inside))
+        {
+            return true;
+        }
+        double width = attr.getStrokeWidth();
+
+        if (null == attr.getStrokeColor())
+        {
+            if (width <= 0)
+            {
+                if (filled)
+                {
+                    return false;
+                }
+                width = LienzoGlobals.getInstance().getDefaultStrokeWidth();
+            }
+        }
+        else if (width <= 0)
+        {
+            width = LienzoGlobals.getInstance().getDefaultStrokeWidth();
+        }
+        return (distance <= (width / 2 + tolerance));
+    }
+
     /**
      * Applies this shape's Shadow.
      * 
@@ -408,6 +712,84 @@ public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrim
         }
     }
 
+    /**
+     * Returns the geometric bounds grown by half the stroke width, allowing for miter joins.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computePaintBoundingBox()
+    {
+        BoundingBox bbox = getBoundingBox();
+
+        if (null == bbox)
+        {
+            return null;
+        }
+        return new BoundingBox(bbox).expand(getStrokeMargin());
+    }
+
+    /**
+     * Returns how far, in this Shape's coordinates, the stroke may paint outside of the geometric bounds.
+     * 
+     * @return double
+     */
+    protected double getStrokeMargin()
+    {
+        Attributes attr = getAttributes();
+
+        double width = Math.max(attr.getStrokeWidth(), LienzoGlobals.getInstance().getDefaultStrokeWidth());
+
+        double half = width / 2;
+
+        if ((doStrokeExtraProperties()) && (attr.isDefined(Attribute.LINE_JOIN)) && (LineJoin.MITER != attr.getLineJoin()))
+        {
+            return half * Math.sqrt(2);
+        }
+        double limit = 10; // the canvas default, which it also keeps when given a limit that is not positive
+
+        if (attr.isDefined(Attribute.MITER_LIMIT))
+        {
+            double miter = attr.getMiterLimit();
+
+            if (miter > 0)
+            {
+                limit = miter;
+            }
+        }
+        return half * Math.max(limit, Math.sqrt(2));
+    }
+
+    /**
+     * Returns the canvas pixels the Shadow, if any, may paint outside of this Shape.
+     * 
+     * @return double
+     */
+    @Override
+    protected double computePaintMargin()
+    {
+        Attributes attr = getAttributes();
+
+        if (attr.isDefined(Attribute.SHADOW))
+        {
+            Shadow shadow = attr.getShadow();
+
+            if (null != shadow)
+            {
+                double margin = shadow.getBlur() * 2;
+
+                Point2D offset = shadow.getOffset();
+
+                if (null != offset)
+                {
+                    margin += Math.max(Math.abs(offset.getX()), Math.abs(offset.getY()));
+                }
+                return margin;
+            }
+        }
+        return 0;
+    }
+
     /**
      * Gets the {@link DashArray}. If this is a solid line, the dash array is empty.
      * 
@@ -515,12 +897,52 @@ public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrim
 
     /**
      * Returns unique RGB color assigned to the off-set Shape.
+     * The String is built on each call, from the key returned by {@link #getColorKeyValue()}.
      * 
      * @return String
      */
     public String getColorKey()
     {
-        return m_hkey;
+        return ColorKeyAllocator.toColorString(getColorKeyValue());
+    }
+
+    /**
+     * Returns this Shape's color key as a 0xRRGGBB int, taking one from the {@link ColorKeyAllocator} if it has none.
+     * 
+     * @return int
+     */
+    public final int getColorKeyValue()
+    {
+        if (0 == m_ckey)
+        {
+            m_ckey = ColorKeyAllocator.acquire();
+        }
+        return m_ckey;
+    }
+
+    /**
+     * Gives this Shape's color key back to the {@link ColorKeyAllocator}, if {@link #isColorKeyRecycled()}.
+     * A new one is taken the next time it is needed.
+     */
+    final void releaseColorKey()
+    {
+        if ((0 != m_ckey) && (isColorKeyRecycled()))
+        {
+            ColorKeyAllocator.release(m_ckey);
+
+            m_ckey = 0;
+        }
+    }
+
+    /**
+     * Returns true if this Shape's color key can be given back when it is removed from its {@link Layer}.
+     * Shapes that bake their color key into something, like the selection image of a {@link Picture}, return false.
+     * 
+     * @return boolean
+     */
+    protected boolean isColorKeyRecycled()
+    {
+        return true;
     }
 
     /**
@@ -1275,11 +1697,107 @@ public abstract class Shape<T extends Shape<T>> extends Node<T> implements IPrim
 
         object.put("type", new JSONString(getShapeType().getValue()));
 
-        object.put("attributes", new JSONObject(getAttributes()));
+        object.put("attributes", new JSONObject(getAttributes().toJSONAttributes()));
+
+        toJSONStyle(object);
 
         return object;
     }
 
+    /**
+     * Puts the {@link Style} of this shape, if any, into its serialized form, as the id of the Style
+     * in the table of styles written with the outermost node, or inline when there is no such table.
+     * 
+     * @param object JSONObject made by {@link #toJSONObject()}
+     */
+    protected final void toJSONStyle(JSONObject object)
+    {
+        if (null != m_style)
+        {
+            object.put("style", m_style.toJSONReference());
+        }
+    }
+
+    /**
+     * Returns the {@link Style} this shape looks up the attributes it does not define in, or null.
+     * 
+     * @return Style
+     */
+    public Style getStyle()
+    {
+        return m_style;
+    }
+
+    /**
+     * Sets the {@link Style} this shape looks up the attributes it does not define in.
+     * Attributes set on the shape itself still take precedence over the Style.
+     * 
+     * @param style may be null
+     * @return T
+     */
+    public T setStyle(Style style)
+    {
+        if (style != m_style)
+        {
+            if (null != m_style)
+            {
+                m_style.invalidate(this);
+
+                m_style.remove(this);
+            }
+            if (null != style)
+            {
+                style.invalidate(this);
+
+                if (null != getLayer())
+                {
+                    style.add(this);
+                }
+            }
+            m_style = style;
+
+            getAttributes().setStyleAttributes((null == style) ? null : style.getAttributes());
+        }
+        return cast();
+    }
+
+    @Override
+    String getTypeName()
+    {
+        return getShapeType().getValue();
+    }
+
+    /**
+     * Internal method. The copy uses the same {@link Style} as this shape.
+     */
+    @Override
+    Node<?> copyNode(ValidationContext ctx) throws ValidationException
+    {
+        Node<?> node = super.copyNode(ctx);
+
+        if ((null != m_style) && (node instanceof Shape<?>))
+        {
+            ((Shape<?>) node).setStyle(m_style);
+        }
+        return node;
+    }
+
+    @Override
+    void attachStyles(boolean attach)
+    {
+        if (null != m_style)
+        {
+            if (attach)
+            {
+                m_style.add(this);
+            }
+            else
+            {
+                m_style.remove(this);
+            }
+        }
+    }
+
     @Override
     public IAnimationHandle animate(AnimationTweener tweener, AnimationProperties properties, double duration /* milliseconds */)
     {
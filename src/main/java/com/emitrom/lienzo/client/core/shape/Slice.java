@@ -22,6 +22,7 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -102,6 +103,17 @@ public class Slice extends Shape<Slice>
         return true;
     }
 
+    /**
+     * Returns the bounds of this slice, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        return new BoundingBox(0, 0, 0, 0).addArc(0, 0, getRadius(), getStartAngle(), getEndAngle(), isCounterClockwise());
+    }
+
     /**
      * Gets this slice's radius
      * 
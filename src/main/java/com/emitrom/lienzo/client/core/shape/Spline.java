@@ -22,8 +22,9 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.FastArrayList;
-import com.emitrom.lienzo.client.core.types.Point2D;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
 import com.emitrom.lienzo.client.core.types.Point2DArray;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
@@ -62,6 +63,12 @@ public class Spline extends Shape<Spline>
     */
     @Override
     public boolean prepare(Context2D context, Attributes attr, double alpha)
+    {
+        return preparePath(context);
+    }
+
+    @Override
+    protected void buildPath(PathBuffer path)
     {
         if (null == m_points)
         {
@@ -71,13 +78,11 @@ public class Spline extends Shape<Spline>
         {
             if (m_points.length > 1)
             {
-                context.beginPath();
-
-                context.moveTo(m_points[0].x, m_points[0].y);
+                path.moveTo(m_points[0].x, m_points[0].y);
 
-                context.lineTo(m_points[1].x, m_points[1].y);
+                path.lineTo(m_points[1].x, m_points[1].y);
             }
-            return true;
+            return;
         }
         if (null == m_carray)
         {
@@ -85,15 +90,13 @@ public class Spline extends Shape<Spline>
         }
         boolean lineFlatten = getLineFlatten();
 
-        context.beginPath();
-
-        context.moveTo(m_points[0].x, m_points[0].y);
+        path.moveTo(m_points[0].x, m_points[0].y);
 
         if (m_begindex == 1)
         {
             PathPoint point = m_carray.get(1)[0];
 
-            context.quadraticCurveTo(point.x, point.y, m_points[1].x, m_points[1].y);
+            path.quadraticCurveTo(point.x, point.y, m_points[1].x, m_points[1].y);
         }
         int i;
 
@@ -103,7 +106,7 @@ public class Spline extends Shape<Spline>
 
             if (line)
             {
-                context.lineTo(m_points[i + 1].x, m_points[i + 1].y);
+                path.lineTo(m_points[i + 1].x, m_points[i + 1].y);
             }
             else
             {
@@ -111,16 +114,61 @@ public class Spline extends Shape<Spline>
 
                 PathPoint p2 = m_carray.get(i + 1)[0];
 
-                context.bezierCurveTo(p1.x, p1.y, p2.x, p2.y, m_points[i + 1].x, m_points[i + 1].y);
+                path.bezierCurveTo(p1.x, p1.y, p2.x, p2.y, m_points[i + 1].x, m_points[i + 1].y);
             }
         }
         if (m_endindex == (m_points.length - 1))
         {
             PathPoint point = m_carray.get(i)[1];
 
-            context.quadraticCurveTo(point.x, point.y, m_points[i + 1].x, m_points[i + 1].y);
+            path.quadraticCurveTo(point.x, point.y, m_points[i + 1].x, m_points[i + 1].y);
         }
-        return true;
+    }
+
+    /**
+     * Returns the bounds of this spline; the bezier control points always contain it, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        if (null == m_points)
+        {
+            m_points = convertToPathPoints(getControlPoints());
+        }
+        BoundingBox bbox = new BoundingBox();
+
+        for (int i = 0; i < m_points.length; i++)
+        {
+            bbox.add(m_points[i].x, m_points[i].y);
+        }
+        if (m_points.length < 3)
+        {
+            return bbox;
+        }
+        if (null == m_carray)
+        {
+            calculateControlPoints();
+        }
+        final int size = m_carray.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            PathPoint[] pair = m_carray.get(i);
+
+            if (null != pair)
+            {
+                for (int j = 0; j < pair.length; j++)
+                {
+                    if (null != pair[j])
+                    {
+                        bbox.add(pair[j].x, pair[j].y);
+                    }
+                }
+            }
+        }
+        return bbox;
     }
 
     @Override
@@ -386,11 +434,9 @@ public class Spline extends Shape<Spline>
 
         for (int i = 0; i < leng; i++)
         {
-            Point2D point = array.getPoint(i);
-
-            double x = point.getX();
+            double x = array.getX(i);
 
-            double y = point.getY();
+            double y = array.getY(i);
 
             if (size > 0)
             {
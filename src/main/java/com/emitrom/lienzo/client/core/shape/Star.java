@@ -22,6 +22,8 @@ import com.emitrom.lienzo.client.core.Context2D;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.google.gwt.json.client.JSONObject;
 
@@ -60,6 +62,12 @@ public class Star extends Shape<Star>
      */
     @Override
     public boolean prepare(Context2D context, Attributes attr, double alpha)
+    {
+        return preparePath(context);
+    }
+
+    @Override
+    protected void buildPath(PathBuffer path)
     {
         final int s = getStarPoints();
 
@@ -69,21 +77,29 @@ public class Star extends Shape<Star>
 
         if ((s > 4) && (ir != 0) && (or != 0) && (or > ir))
         {
-            context.beginPath();
-
-            context.moveTo(0, 0 - or);
+            path.moveTo(0, 0 - or);
 
             for (int n = 1; n < s * 2; n++)
             {
                 double radius = n % 2 == 0 ? or : ir;
 
-                context.lineTo(radius * Math.sin(n * Math.PI / s), -1 * radius * Math.cos(n * Math.PI / s));
+                path.lineTo(radius * Math.sin(n * Math.PI / s), -1 * radius * Math.cos(n * Math.PI / s));
             }
-            context.closePath();
-
-            return true;
+            path.closePath();
         }
-        return false;
+    }
+
+    /**
+     * Returns the bounds of this star, in its own coordinates.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        final double r = Math.max(getInnerRadius(), getOuterRadius());
+
+        return new BoundingBox(-r, -r, r, r);
     }
 
     /**
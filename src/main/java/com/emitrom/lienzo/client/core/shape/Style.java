@@ -0,0 +1,402 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape;
+
+import com.emitrom.lienzo.client.core.types.DashArray;
+import com.emitrom.lienzo.client.core.types.FastArrayList;
+import com.emitrom.lienzo.client.core.types.FillGradient;
+import com.emitrom.lienzo.client.core.types.LinearGradient;
+import com.emitrom.lienzo.client.core.types.PatternGradient;
+import com.emitrom.lienzo.client.core.types.RadialGradient;
+import com.emitrom.lienzo.client.core.types.Shadow;
+import com.emitrom.lienzo.shared.core.types.IColor;
+import com.emitrom.lienzo.shared.core.types.LineCap;
+import com.emitrom.lienzo.shared.core.types.LineJoin;
+import com.emitrom.lienzo.shared.core.types.TextAlign;
+import com.emitrom.lienzo.shared.core.types.TextBaseLine;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.json.client.JSONValue;
+
+/**
+ * A set of paint attributes (fill, stroke, dashes, shadow, font) that any number of {@link Shape} can share.
+ * <p>
+ * A Shape using a Style looks up every attribute it does not define itself in the Style, so thousands
+ * of Shapes drawn alike hold one copy of their paint attributes, and serialize it once. Changing
+ * the Style repaints every Shape using it.
+ * <p>
+ * A Style only keeps a reference to the Shapes using it that are on a {@link Layer}; a Shape is
+ * dropped when it, or a container above it, is removed from its parent, or when
+ * {@link Shape#setStyle(Style)} is called with another Style or null.
+ */
+public class Style
+{
+    private static int                    s_next_id = 0;
+
+    private static JSONObject             s_table   = null;
+
+    private final String                  m_id;
+
+    private final Attributes              m_attr;
+
+    private final FastArrayList<Shape<?>> m_shapes  = new FastArrayList<Shape<?>>();
+
+    public Style()
+    {
+        this(Attributes.make());
+    }
+
+    /**
+     * Constructor used by deserialization code.
+     * 
+     * @param attributes
+     */
+    public Style(JSONObject attributes)
+    {
+        this((null == attributes) ? Attributes.make() : attributes.getJavaScriptObject().<Attributes> cast());
+    }
+
+    private Style(Attributes attr)
+    {
+        m_id = "style" + (++s_next_id);
+
+        m_attr = attr;
+
+        m_attr.setStyle(this);
+    }
+
+    /**
+     * Returns the id this Style is serialized under.
+     * 
+     * @return String
+     */
+    public String getID()
+    {
+        return m_id;
+    }
+
+    public Attributes getAttributes()
+    {
+        return m_attr;
+    }
+
+    /**
+     * Returns the number of {@link Shape} using this Style.
+     * 
+     * @return int
+     */
+    public int getShapeCount()
+    {
+        return m_shapes.length();
+    }
+
+    public String getFillColor()
+    {
+        return m_attr.getFillColor();
+    }
+
+    public Style setFillColor(String color)
+    {
+        m_attr.setFillColor(color);
+
+        return this;
+    }
+
+    public Style setFillColor(IColor color)
+    {
+        return setFillColor(null == color ? null : color.getColorString());
+    }
+
+    public FillGradient getFillGradient()
+    {
+        return m_attr.getFillGradient();
+    }
+
+    public Style setFillGradient(LinearGradient gradient)
+    {
+        m_attr.setFillGradient(gradient);
+
+        return this;
+    }
+
+    public Style setFillGradient(RadialGradient gradient)
+    {
+        m_attr.setFillGradient(gradient);
+
+        return this;
+    }
+
+    public Style setFillGradient(PatternGradient gradient)
+    {
+        m_attr.setFillGradient(gradient);
+
+        return this;
+    }
+
+    public String getStrokeColor()
+    {
+        return m_attr.getStrokeColor();
+    }
+
+    public Style setStrokeColor(String color)
+    {
+        m_attr.setStrokeColor(color);
+
+        return this;
+    }
+
+    public Style setStrokeColor(IColor color)
+    {
+        return setStrokeColor(null == color ? null : color.getColorString());
+    }
+
+    public double getStrokeWidth()
+    {
+        return m_attr.getStrokeWidth();
+    }
+
+    public Style setStrokeWidth(double width)
+    {
+        m_attr.setStrokeWidth(width);
+
+        return this;
+    }
+
+    public LineCap getLineCap()
+    {
+        return m_attr.getLineCap();
+    }
+
+    public Style setLineCap(LineCap cap)
+    {
+        m_attr.setLineCap(cap);
+
+        return this;
+    }
+
+    public LineJoin getLineJoin()
+    {
+        return m_attr.getLineJoin();
+    }
+
+    public Style setLineJoin(LineJoin join)
+    {
+        m_attr.setLineJoin(join);
+
+        return this;
+    }
+
+    public double getMiterLimit()
+    {
+        return m_attr.getMiterLimit();
+    }
+
+    public Style setMiterLimit(double limit)
+    {
+        m_attr.setMiterLimit(limit);
+
+        return this;
+    }
+
+    public DashArray getDashArray()
+    {
+        return m_attr.getDashArray();
+    }
+
+    public Style setDashArray(DashArray array)
+    {
+        m_attr.setDashArray(array);
+
+        return this;
+    }
+
+    public double getDashOffset()
+    {
+        return m_attr.getDashOffset();
+    }
+
+    public Style setDashOffset(double offset)
+    {
+        m_attr.setDashOffset(offset);
+
+        return this;
+    }
+
+    public Shadow getShadow()
+    {
+        return m_attr.getShadow();
+    }
+
+    public Style setShadow(Shadow shadow)
+    {
+        m_attr.setShadow(shadow);
+
+        return this;
+    }
+
+    public String getFontFamily()
+    {
+        return m_attr.getFontFamily();
+    }
+
+    public Style setFontFamily(String family)
+    {
+        m_attr.setFontFamily(family);
+
+        return this;
+    }
+
+    public double getFontSize()
+    {
+        return m_attr.getFontSize();
+    }
+
+    public Style setFontSize(double points)
+    {
+        m_attr.setFontSize(points);
+
+        return this;
+    }
+
+    public String getFontStyle()
+    {
+        return m_attr.getFontStyle();
+    }
+
+    public Style setFontStyle(String style)
+    {
+        m_attr.setFontStyle(style);
+
+        return this;
+    }
+
+    public TextAlign getTextAlign()
+    {
+        return m_attr.getTextAlign();
+    }
+
+    public Style setTextAlign(TextAlign align)
+    {
+        m_attr.setTextAlign(align);
+
+        return this;
+    }
+
+    public TextBaseLine getTextBaseLine()
+    {
+        return m_attr.getTextBaseLine();
+    }
+
+    public Style setTextBaseLine(TextBaseLine baseline)
+    {
+        m_attr.setTextBaseLine(baseline);
+
+        return this;
+    }
+
+    final void add(Shape<?> shape)
+    {
+        if (false == m_shapes.contains(shape))
+        {
+            m_shapes.add(shape);
+        }
+    }
+
+    final void remove(Shape<?> shape)
+    {
+        m_shapes.remove(shape);
+    }
+
+    /**
+     * Called by {@link Attributes} before any attribute of this Style is changed or deleted.
+     * 
+     * @param property
+     */
+    final void onAttributeChange(String property)
+    {
+        final int size = m_shapes.length();
+
+        for (int i = 0; i < size; i++)
+        {
+            m_shapes.get(i).onAttributeChange(property);
+        }
+    }
+
+    /**
+     * Tells the Shape that every attribute of this Style is about to change for it.
+     * 
+     * @param shape
+     */
+    final void invalidate(Shape<?> shape)
+    {
+        for (String property : m_attr.getKeysCollection())
+        {
+            shape.onAttributeChange(property);
+        }
+    }
+
+    /**
+     * Returns what a Shape using this Style serializes as its "style": the id of this Style if a
+     * table of styles is open, after adding this Style to it, otherwise the attributes of this Style.
+     * 
+     * @return JSONValue
+     */
+    final JSONValue toJSONReference()
+    {
+        if (null != s_table)
+        {
+            if (null == s_table.get(m_id))
+            {
+                s_table.put(m_id, new JSONObject(m_attr));
+            }
+            return new JSONString(m_id);
+        }
+        return new JSONObject(m_attr);
+    }
+
+    /**
+     * Opens the table that {@link #toJSONReference()} adds styles to, unless one is open already.
+     * 
+     * @return boolean true if the table was opened by this call
+     */
+    static final boolean openJSONTable()
+    {
+        if (null != s_table)
+        {
+            return false;
+        }
+        s_table = new JSONObject();
+
+        return true;
+    }
+
+    /**
+     * Closes the table of styles, returning it.
+     * 
+     * @return JSONObject
+     */
+    static final JSONObject closeJSONTable()
+    {
+        JSONObject table = s_table;
+
+        s_table = null;
+
+        return table;
+    }
+}
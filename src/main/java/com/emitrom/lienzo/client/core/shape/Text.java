@@ -24,6 +24,7 @@ import com.emitrom.lienzo.client.core.LienzoGlobals;
 import com.emitrom.lienzo.client.core.shape.json.IFactory;
 import com.emitrom.lienzo.client.core.shape.json.ShapeFactory;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
 import com.emitrom.lienzo.client.core.types.LinearGradient;
 import com.emitrom.lienzo.client.core.types.LinearGradient.LinearGradientJSO;
 import com.emitrom.lienzo.client.core.types.PatternGradient;
@@ -31,6 +32,7 @@ import com.emitrom.lienzo.client.core.types.PatternGradient.PatternGradientJSO;
 import com.emitrom.lienzo.client.core.types.RadialGradient;
 import com.emitrom.lienzo.client.core.types.RadialGradient.RadialGradientJSO;
 import com.emitrom.lienzo.client.core.types.TextMetrics;
+import com.emitrom.lienzo.client.core.util.ScratchCanvas;
 import com.emitrom.lienzo.shared.core.types.ShapeType;
 import com.emitrom.lienzo.shared.core.types.TextAlign;
 import com.emitrom.lienzo.shared.core.types.TextBaseLine;
@@ -42,6 +44,8 @@ import com.google.gwt.json.client.JSONObject;
  */
 public class Text extends Shape<Text>
 {
+    private static ScratchCanvas s_measure;
+
     /**
      * Constructor. Creates an instance of text.
      * 
@@ -153,6 +157,120 @@ public class Text extends Shape<Text>
         return true;
     }
 
+    /**
+     * Returns the bounds of this text, in its own coordinates. The width is measured,
+     * while the height allows for any baseline.
+     * 
+     * @return {@link BoundingBox}
+     */
+    @Override
+    protected BoundingBox computeBoundingBox()
+    {
+        String text = getText();
+
+        if ((null == text) || (text.isEmpty()))
+        {
+            return new BoundingBox();
+        }
+        if (null == s_measure)
+        {
+            if (false == LienzoGlobals.getInstance().isCanvasSupported())
+            {
+                return null;
+            }
+            s_measure = new ScratchCanvas(1, 1);
+        }
+        TextMetrics size = measure(s_measure.getContext());
+
+        if (null == size)
+        {
+            return null;
+        }
+        final double wide = size.getWidth();
+
+        final double high = getFontSize() * 2; // points to pixels, then either side of the baseline
+
+        Attributes attr = getAttributes();
+
+        if (attr.isDefined(Attribute.TEXT_ALIGN))
+        {
+            TextAlign align = getTextAlign();
+
+            if (TextAlign.LEFT == align)
+            {
+                return new BoundingBox(0, -high, wide, high);
+            }
+            if (TextAlign.RIGHT == align)
+            {
+                return new BoundingBox(-wide, -high, 0, high);
+            }
+            if (TextAlign.CENTER == align)
+            {
+                return new BoundingBox(-wide / 2, -high, wide / 2, high);
+            }
+        }
+        return new BoundingBox(-wide, -high, wide, high); // START and END depend on the text direction
+    }
+
+    /**
+     * Text is compared with the {@link com.emitrom.lienzo.client.core.types.LevelOfDetail} thresholds by its font size.
+     */
+    @Override
+    protected double getLevelOfDetailSize()
+    {
+        return getFontSize();
+    }
+
+    /**
+     * Draws a greeked bar where the glyphs would be, as wide as the text.
+     */
+    @Override
+    protected void drawLevelOfDetailRectangle(Context2D context, BoundingBox box)
+    {
+        final double size = getFontSize();
+
+        context.fillRect(box.getX(), getGlyphTop() + size * 0.2, box.getWidth(), size * 0.6);
+    }
+
+    /**
+     * Text is tested against the box its glyphs sit in, as wide as the text and as high as the font size.
+     */
+    @Override
+    protected boolean hitTest(Attributes attr, double x, double y, double tolerance)
+    {
+        BoundingBox bbox = getBoundingBox();
+
+        if ((null == bbox) || (bbox.isEmpty()))
+        {
+            return false;
+        }
+        final double top = getGlyphTop();
+
+        BoundingBox box = new BoundingBox(bbox.getMinX(), top, bbox.getMaxX(), top + getFontSize());
+
+        return hitTest(attr, box.contains(x, y), box.getEdgeDistance(x, y), tolerance);
+    }
+
+    private final double getGlyphTop()
+    {
+        final double size = getFontSize();
+
+        if (getAttributes().isDefined(Attribute.TEXT_BASELINE))
+        {
+            TextBaseLine base = getTextBaseLine();
+
+            if ((TextBaseLine.TOP == base) || (TextBaseLine.HANGING == base))
+            {
+                return 0;
+            }
+            if (TextBaseLine.MIDDLE == base)
+            {
+                return -size / 2;
+            }
+        }
+        return -size; // glyphs sit above the alphabetic, bottom and ideographic baselines
+    }
+
     protected void fill(Context2D context, Attributes attr, double alpha)
     {
         boolean filled = attr.isDefined(Attribute.FILL);
@@ -59,6 +59,7 @@ import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONString;
+import com.google.gwt.user.client.Timer;
 
 /**
  * Serves as a container for {@link Scene}
@@ -84,6 +85,14 @@ public class Viewport extends ContainerNode<Scene, Viewport> implements IJSONSer
 
     private Mediators        m_mediators;
 
+    private boolean          m_quality = false;
+
+    private boolean          m_quick   = false;
+
+    private int              m_idle    = 150;
+
+    private Timer            m_timer   = null;
+
     /**
      * Constructor. Creates an instance of a viewport.
      * 
@@ -470,6 +479,22 @@ public class Viewport extends ContainerNode<Scene, Viewport> implements IJSONSer
         return null;
     }
 
+    /**
+     * Like {@link #findShapeAtPoint(int, int)}, but only picks from the Layers that have event handlers or draggable nodes.
+     * 
+     * @param x
+     * @param y
+     * @return Shape
+     */
+    public final Shape<?> findPickableShapeAtPoint(int x, int y)
+    {
+        if (isVisible())
+        {
+            return getScene().findPickableShapeAtPoint(x, y);
+        }
+        return null;
+    }
+
     /**
      * Fires the given GWT event.
      */
@@ -521,13 +546,8 @@ public class Viewport extends ContainerNode<Scene, Viewport> implements IJSONSer
         {
             find.add(this);
         }
-        for (Node<?> look : m_main.search(filter))
-        {
-            if (false == find.contains(look))
-            {
-                find.add(look);
-            }
-        }
+        m_main.doSearch(filter, find);
+
         return find;
     }
 
@@ -537,6 +557,108 @@ public class Viewport extends ContainerNode<Scene, Viewport> implements IJSONSer
         return new ViewportIterator();
     }
 
+    /**
+     * Sets whether pan and zoom gestures draw quickly while they are in progress.
+     * Layers are then drawn without shadows, dashes, gradients or the selection layer,
+     * and are fully redrawn once the gesture has been idle for {@link #getInteractiveIdleDelay()} milliseconds.
+     * 
+     * @param quality
+     * @return this Viewport
+     */
+    public Viewport setInteractiveQuality(boolean quality)
+    {
+        m_quality = quality;
+
+        if ((false == quality) && (m_quick))
+        {
+            m_timer.cancel();
+
+            setInteractiveLayers(false);
+
+            m_main.draw();
+        }
+        return this;
+    }
+
+    public boolean isInteractiveQuality()
+    {
+        return m_quality;
+    }
+
+    /**
+     * Sets how long a gesture must be idle, in milliseconds, before the viewport is redrawn at full quality.
+     * The default value is 150.
+     * 
+     * @param idle
+     * @return this Viewport
+     */
+    public Viewport setInteractiveIdleDelay(int idle)
+    {
+        m_idle = Math.max(0, idle);
+
+        return this;
+    }
+
+    public int getInteractiveIdleDelay()
+    {
+        return m_idle;
+    }
+
+    /**
+     * Draws the main Scene during a pan or zoom gesture.
+     * When {@link #isInteractiveQuality()} is true the Scene is drawn quickly, and a full quality draw
+     * follows once no call has been made for {@link #getInteractiveIdleDelay()} milliseconds.
+     */
+    public void drawInteractive()
+    {
+        if (false == m_quality)
+        {
+            m_main.draw();
+
+            return;
+        }
+        if (null == m_timer)
+        {
+            m_timer = new Timer()
+            {
+                @Override
+                public void run()
+                {
+                    setInteractiveLayers(false);
+
+                    m_main.draw();
+                }
+            };
+        }
+        setInteractiveLayers(true);
+
+        m_main.draw();
+
+        m_timer.schedule(Math.max(1, m_idle));
+    }
+
+    private final void setInteractiveLayers(boolean interactive)
+    {
+        m_quick = interactive;
+
+        FastArrayList<Layer> layers = m_main.getChildNodes();
+
+        if (null != layers)
+        {
+            int size = layers.length();
+
+            for (int i = 0; i < size; i++)
+            {
+                Layer layer = layers.get(i);
+
+                if (null != layer)
+                {
+                    layer.setInteractive(interactive);
+                }
+            }
+        }
+    }
+
     /**
      * Returns the {@link Mediators} for this viewport.
      * Mediators can be used to e.g. to add zoom operations.
@@ -0,0 +1,426 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape.json;
+
+import com.emitrom.lienzo.client.core.shape.IJSONSerializable;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.json.client.JSONObject;
+
+/**
+ * Binary encoding of the JSON form of a node tree, as made by {@link IJSONSerializable#toJSONObject()},
+ * written to and read from an ArrayBuffer.
+ * <p>
+ * The encoded document is the same tree of objects, arrays, strings, numbers and booleans, so it is
+ * read back through the usual factories, but:
+ * <ul>
+ * <li>every string, attribute name and type name included, is written once and referred to by index after that
+ * <li>integers are written as variable length zig-zag numbers, and other numbers as 4 byte floats when that is exact, otherwise 8 byte doubles
+ * <li>arrays of {x, y} points are written as packed coordinate pairs
+ * </ul>
+ * The string table is built per document rather than seeded from {@link com.emitrom.lienzo.client.core.Attribute}
+ * and {@link FactoryRegistry}, so documents stay readable when attributes or node types are added.
+ */
+public final class BinaryFormat
+{
+    private BinaryFormat()
+    {
+    }
+
+    /**
+     * Encodes the JSON object as an ArrayBuffer.
+     * 
+     * @param json JSONObject
+     * @return ArrayBuffer
+     */
+    public static final JavaScriptObject encode(JSONObject json)
+    {
+        if (null == json)
+        {
+            return null;
+        }
+        return encode0(json.getJavaScriptObject());
+    }
+
+    /**
+     * Decodes an ArrayBuffer made by {@link #encode(JSONObject)}.
+     * 
+     * @param buffer ArrayBuffer
+     * @return JSONObject, or null if the buffer does not hold an encoded object
+     */
+    public static final JSONObject decode(JavaScriptObject buffer)
+    {
+        if (null == buffer)
+        {
+            return null;
+        }
+        JavaScriptObject jso = decode0(buffer);
+
+        if (null == jso)
+        {
+            return null;
+        }
+        return new JSONObject(jso);
+    }
+
+    private static final native JavaScriptObject encode0(JavaScriptObject json)
+    /*-{
+		var TAG_NULL = 0, TAG_FALSE = 1, TAG_TRUE = 2, TAG_INT = 3, TAG_FLOAT32 = 4, TAG_FLOAT64 = 5, TAG_STRING = 6, TAG_STRING_REF = 7, TAG_ARRAY = 8, TAG_OBJECT = 9, TAG_POINTS32 = 10, TAG_POINTS64 = 11;
+
+		var buff = new $wnd.ArrayBuffer(4096);
+
+		var view = new $wnd.DataView(buff);
+
+		var bytes = new $wnd.Uint8Array(buff);
+
+		var spot = 0;
+
+		var strings = {};
+
+		var scount = 0;
+
+		var check = new $wnd.Float32Array(1);
+
+		function ensure(need) {
+			if ((spot + need) > buff.byteLength) {
+				var size = buff.byteLength * 2;
+
+				while (size < (spot + need)) {
+					size *= 2;
+				}
+				var grow = new $wnd.ArrayBuffer(size);
+
+				new $wnd.Uint8Array(grow).set(bytes);
+
+				buff = grow;
+
+				view = new $wnd.DataView(buff);
+
+				bytes = new $wnd.Uint8Array(buff);
+			}
+		}
+		function put(v) {
+			ensure(1);
+
+			bytes[spot++] = v;
+		}
+		function uvar(v) {
+			while (v >= 0x80) {
+				put((v & 0x7f) | 0x80);
+
+				v = v >>> 7;
+			}
+			put(v);
+		}
+		function isfloat32(v) {
+			check[0] = v;
+
+			return (check[0] === v);
+		}
+		function number(v) {
+			if (v === (v | 0)) {
+				put(TAG_INT);
+
+				uvar(((v << 1) ^ (v >> 31)) >>> 0);
+			} else if (isfloat32(v)) {
+				put(TAG_FLOAT32);
+
+				ensure(4);
+
+				view.setFloat32(spot, v, true);
+
+				spot += 4;
+			} else {
+				put(TAG_FLOAT64);
+
+				ensure(8);
+
+				view.setFloat64(spot, v, true);
+
+				spot += 8;
+			}
+		}
+		function string(s) {
+			var key = "$" + s;
+
+			var indx = strings[key];
+
+			if (indx !== undefined) {
+				put(TAG_STRING_REF);
+
+				uvar(indx);
+
+				return;
+			}
+			strings[key] = scount++;
+
+			var utf8 = unescape(encodeURIComponent(s));
+
+			put(TAG_STRING);
+
+			uvar(utf8.length);
+
+			ensure(utf8.length);
+
+			for (var i = 0; i < utf8.length; i++) {
+				bytes[spot++] = utf8.charCodeAt(i);
+			}
+		}
+		function isarray(v) {
+			return ((v instanceof Array) || (v instanceof $wnd.Array));
+		}
+		function ispoint(v) {
+			if ((v === null) || (typeof v !== 'object') || (isarray(v)) || (typeof v.x !== 'number') || (typeof v.y !== 'number')) {
+				return false;
+			}
+			var keys = 0;
+
+			for (var name in v) {
+				if (v.hasOwnProperty(name)) {
+					keys++;
+				}
+			}
+			return (keys == 2);
+		}
+		function points(list) {
+			var exact = true;
+
+			for (var i = 0; i < list.length; i++) {
+				if (false == ispoint(list[i])) {
+					return false;
+				}
+				if ((exact) && ((false == isfloat32(list[i].x)) || (false == isfloat32(list[i].y)))) {
+					exact = false;
+				}
+			}
+			put(exact ? TAG_POINTS32 : TAG_POINTS64);
+
+			uvar(list.length);
+
+			ensure(list.length * (exact ? 8 : 16));
+
+			for (var i = 0; i < list.length; i++) {
+				if (exact) {
+					view.setFloat32(spot, list[i].x, true);
+
+					view.setFloat32(spot + 4, list[i].y, true);
+
+					spot += 8;
+				} else {
+					view.setFloat64(spot, list[i].x, true);
+
+					view.setFloat64(spot + 8, list[i].y, true);
+
+					spot += 16;
+				}
+			}
+			return true;
+		}
+		function isvalue(v) {
+			return ((v !== undefined) && (typeof v !== 'function'));
+		}
+		function value(v) {
+			if ((v === null) || (false == isvalue(v))) {
+				put(TAG_NULL);
+			} else if (typeof v === 'boolean') {
+				put(v ? TAG_TRUE : TAG_FALSE);
+			} else if (typeof v === 'number') {
+				number(v);
+			} else if (typeof v === 'string') {
+				string(v);
+			} else if (isarray(v)) {
+				if ((v.length == 0) || (false == points(v))) {
+					put(TAG_ARRAY);
+
+					uvar(v.length);
+
+					for (var i = 0; i < v.length; i++) {
+						value(v[i]);
+					}
+				}
+			} else {
+				var keys = [];
+
+				for (var name in v) {
+					if ((v.hasOwnProperty(name)) && (isvalue(v[name]))) {
+						keys.push(name);
+					}
+				}
+				put(TAG_OBJECT);
+
+				uvar(keys.length);
+
+				for (var i = 0; i < keys.length; i++) {
+					string(keys[i]);
+
+					value(v[keys[i]]);
+				}
+			}
+		}
+		put(0x4C);// 'L'
+		put(0x5A);// 'Z'
+		put(0x42);// 'B'
+		put(1);// version
+
+		value(json);
+
+		var done = new $wnd.ArrayBuffer(spot);
+
+		new $wnd.Uint8Array(done).set(bytes.subarray(0, spot));
+
+		return done;
+    }-*/;
+
+    private static final native JavaScriptObject decode0(JavaScriptObject buffer)
+    /*-{
+		var TAG_NULL = 0, TAG_FALSE = 1, TAG_TRUE = 2, TAG_INT = 3, TAG_FLOAT32 = 4, TAG_FLOAT64 = 5, TAG_STRING = 6, TAG_STRING_REF = 7, TAG_ARRAY = 8, TAG_OBJECT = 9, TAG_POINTS32 = 10, TAG_POINTS64 = 11;
+
+		var bytes = new $wnd.Uint8Array(buffer);
+
+		if ((bytes.length < 5) || (bytes[0] != 0x4C) || (bytes[1] != 0x5A) || (bytes[2] != 0x42) || (bytes[3] != 1)) {
+			return null;
+		}
+		var view = new $wnd.DataView(buffer);
+
+		var spot = 4;
+
+		var strings = [];
+
+		function next() {
+			if (spot >= bytes.length) {
+				throw "truncated";
+			}
+			return bytes[spot++];
+		}
+		function uvar() {
+			var v = 0, mult = 1, b;
+
+			do {
+				b = next();
+
+				v += (b & 0x7f) * mult;
+
+				mult *= 128;
+			} while (b & 0x80);
+
+			return v;
+		}
+		function value() {
+			var tag = next();
+
+			switch (tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_FALSE:
+				return false;
+			case TAG_TRUE:
+				return true;
+			case TAG_INT: {
+				var z = uvar();
+
+				return ((z % 2) ? -((z + 1) / 2) : (z / 2));
+			}
+			case TAG_FLOAT32: {
+				var f = view.getFloat32(spot, true);
+
+				spot += 4;
+
+				return f;
+			}
+			case TAG_FLOAT64: {
+				var d = view.getFloat64(spot, true);
+
+				spot += 8;
+
+				return d;
+			}
+			case TAG_STRING: {
+				var leng = uvar();
+
+				var utf8 = "";
+
+				for (var i = 0; i < leng; i++) {
+					utf8 += String.fromCharCode(next());
+				}
+				var s = decodeURIComponent(escape(utf8));
+
+				strings.push(s);
+
+				return s;
+			}
+			case TAG_STRING_REF:
+				return strings[uvar()];
+			case TAG_ARRAY: {
+				var size = uvar();
+
+				var list = [];
+
+				for (var i = 0; i < size; i++) {
+					list.push(value());
+				}
+				return list;
+			}
+			case TAG_OBJECT: {
+				var size = uvar();
+
+				var object = {};
+
+				for (var i = 0; i < size; i++) {
+					var name = value();
+
+					object[name] = value();
+				}
+				return object;
+			}
+			case TAG_POINTS32:
+			case TAG_POINTS64: {
+				var size = uvar();
+
+				var list = [];
+
+				for (var i = 0; i < size; i++) {
+					if (tag == TAG_POINTS32) {
+						list.push({
+							x : view.getFloat32(spot, true),
+							y : view.getFloat32(spot + 4, true)
+						});
+						spot += 8;
+					} else {
+						list.push({
+							x : view.getFloat64(spot, true),
+							y : view.getFloat64(spot + 8, true)
+						});
+						spot += 16;
+					}
+				}
+				return list;
+			}
+			}
+			throw "bad tag " + tag;
+		}
+		try {
+			var json = value();
+
+			if ((spot == bytes.length) && (json !== null) && (typeof json === 'object') && (false == ((json instanceof Array) || (json instanceof $wnd.Array)))) {
+				return json;
+			}
+		} catch (e) {
+		}
+		return null;
+    }-*/;
+}
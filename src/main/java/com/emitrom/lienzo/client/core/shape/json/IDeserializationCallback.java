@@ -0,0 +1,42 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape.json;
+
+import com.emitrom.lienzo.client.core.shape.IJSONSerializable;
+import com.emitrom.lienzo.client.core.shape.Layer;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+
+/**
+ * IDeserializationCallback is told how a deserialization started with
+ * {@link JSONDeserializer#fromStringIncremental(String, ValidationContext, IDeserializationCallback)} goes:
+ * <ul>
+ * <li>onProgress - invoked after every time slice, with the number of nodes made so far and in all
+ * <li>onLayerComplete - invoked when all the children of a {@link Layer} have been made, so it can be drawn
+ * <li>onComplete - invoked once at the end, with the deserialized node, or null if it failed
+ * </ul>
+ * Errors are collected in the {@link ValidationContext}, as with {@link JSONDeserializer#fromString(String, ValidationContext)}.
+ */
+public interface IDeserializationCallback
+{
+    public void onProgress(IJSONSerializable<?> node, int done, int total);
+
+    public void onLayerComplete(Layer layer);
+
+    public void onComplete(IJSONSerializable<?> node, ValidationContext ctx);
+}
@@ -17,15 +17,23 @@
 
 package com.emitrom.lienzo.client.core.shape.json;
 
+import java.util.ArrayList;
 import java.util.Set;
 
 import com.emitrom.lienzo.client.core.Attribute;
 import com.emitrom.lienzo.client.core.AttributeType;
 import com.emitrom.lienzo.client.core.shape.IContainer;
 import com.emitrom.lienzo.client.core.shape.IJSONSerializable;
+import com.emitrom.lienzo.client.core.shape.Layer;
 import com.emitrom.lienzo.client.core.shape.Node;
+import com.emitrom.lienzo.client.core.shape.Shape;
+import com.emitrom.lienzo.client.core.shape.Style;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
 import com.emitrom.lienzo.client.core.shape.json.validators.ValidationException;
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONParser;
@@ -40,7 +48,9 @@ import com.google.gwt.json.client.JSONValue;
  */
 public final class JSONDeserializer
 {
-    private static final JSONDeserializer s_instance = new JSONDeserializer();
+    private static final JSONDeserializer s_instance           = new JSONDeserializer();
+
+    private static final double           INCREMENTAL_SLICE_MS = 10;
 
     public static final JSONDeserializer getInstance() // questionable? do we allow sub-classing? this is always a problem with singletons. Should the class be final?
     {
@@ -154,6 +164,97 @@ public final class JSONDeserializer
         }
     }
 
+    /**
+     * Decodes the ArrayBuffer made by {@link Node#toBinary()} and returns the {@link IJSONSerializable}.
+     * Same as {@link #fromString(String)}, but for the {@link BinaryFormat}.
+     * 
+     * @param buffer ArrayBuffer
+     * @return IJSONSerializable
+     */
+    public final IJSONSerializable<?> fromBinary(JavaScriptObject buffer)
+    {
+        ValidationContext ctx = new ValidationContext();
+
+        ctx.setValidate(true);
+
+        ctx.setStopOnError(true); // bail if an error is encountered
+
+        return fromBinary(buffer, ctx);
+    }
+
+    /**
+     * Decodes the ArrayBuffer made by {@link Node#toBinary()} and returns the {@link IJSONSerializable}.
+     * Same as {@link #fromString(String, ValidationContext)}, but for the {@link BinaryFormat}.
+     * 
+     * @param buffer ArrayBuffer
+     * @param ctx ValidationContext
+     * @return IJSONSerializable
+     */
+    public final IJSONSerializable<?> fromBinary(JavaScriptObject buffer, ValidationContext ctx)
+    {
+        JSONObject json = BinaryFormat.decode(buffer);
+
+        if (null == json)
+        {
+            return null;
+        }
+        try
+        {
+            return fromJSON(json, ctx);
+        }
+        catch (ValidationException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the JSON string, then makes its nodes a few at a time, in slices of about 10 milliseconds
+     * run by {@link Scheduler#scheduleIncremental(RepeatingCommand)}, so that large documents
+     * do not freeze the page. Children are added to their container as they are made, and the
+     * callback is told when each {@link Layer} is complete, so that it can be drawn before the rest is loaded.
+     * 
+     * @param string JSON string as produced by {@link IJSONSerializable#toJSONString()}
+     * @param ctx ValidationContext
+     * @param callback IDeserializationCallback
+     */
+    public final void fromStringIncremental(String string, ValidationContext ctx, IDeserializationCallback callback)
+    {
+        fromStringIncremental(string, ctx, INCREMENTAL_SLICE_MS, callback);
+    }
+
+    /**
+     * Parses the JSON string, then makes its nodes a few at a time, in slices of about the given length
+     * run by {@link Scheduler#scheduleIncremental(RepeatingCommand)}.
+     * 
+     * @param string JSON string as produced by {@link IJSONSerializable#toJSONString()}
+     * @param ctx ValidationContext
+     * @param slice milliseconds to spend making nodes before yielding to the browser
+     * @param callback IDeserializationCallback
+     * @see #fromStringIncremental(String, ValidationContext, IDeserializationCallback)
+     */
+    public final void fromStringIncremental(String string, ValidationContext ctx, double slice, IDeserializationCallback callback)
+    {
+        JSONObject json = null;
+
+        if ((null != string) && (false == (string = string.trim()).isEmpty()))
+        {
+            JSONValue value = JSONParser.parseStrict(string);
+
+            if (null != value)
+            {
+                json = value.isObject();
+            }
+        }
+        if (null == json)
+        {
+            callback.onComplete(null, ctx);
+
+            return;
+        }
+        Scheduler.get().scheduleIncremental(new IncrementalDeserializer(json, ctx, slice, callback));
+    }
+
     /**
      * Creates a IJSONSerializable from the JSONObject, using the ValidationContext.
      * <p>
@@ -217,21 +318,117 @@ public final class JSONDeserializer
 
                 validateAttributes(json, factory, type, ctx);
             }
-            if (factory instanceof PostProcessNodeFactory)
+            deserializeStyles(json, ctx);
+
+            IJSONSerializable<?> node = factory.create(json, ctx);
+
+            if (null != node)
             {
-                IJSONSerializable<?> node = factory.create(json, ctx);
+                deserializeStyle(node, json, ctx);
 
-                if (null != node)
+                if (factory instanceof PostProcessNodeFactory)
                 {
                     ((PostProcessNodeFactory) factory).process(node);
                 }
-                return node;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Registers the {@link Style} objects of the "styles" table, written with the outermost node, in the ValidationContext.
+     * 
+     * @param json JSONObject
+     * @param ctx ValidationContext
+     * @throws ValidationException
+     */
+    private final void deserializeStyles(JSONObject json, ValidationContext ctx) throws ValidationException
+    {
+        JSONValue sval = json.get("styles");
+
+        if (null == sval)
+        {
+            return; // OK - 'styles' is optional
+        }
+        ctx.push("styles");
+
+        JSONObject sobj = sval.isObject();
+
+        if (null == sobj)
+        {
+            ctx.addBadTypeError("Object");
+        }
+        else
+        {
+            for (String id : sobj.keySet())
+            {
+                ctx.push(id);
+
+                JSONObject aobj = sobj.get(id).isObject();
+
+                if (null == aobj)
+                {
+                    ctx.addBadTypeError("Object");
+                }
+                else
+                {
+                    ctx.putStyle(id, new Style(aobj));
+                }
+                ctx.pop(); // id
+            }
+        }
+        ctx.pop(); // styles
+    }
+
+    /**
+     * Sets the {@link Style} of a {@link Shape}, given either as the id of a Style in the "styles" table or inline.
+     * 
+     * @param node IJSONSerializable
+     * @param json JSONObject
+     * @param ctx ValidationContext
+     * @throws ValidationException
+     */
+    private final void deserializeStyle(IJSONSerializable<?> node, JSONObject json, ValidationContext ctx) throws ValidationException
+    {
+        JSONValue sval = json.get("style");
+
+        if ((null == sval) || (false == (node instanceof Shape)))
+        {
+            return; // OK - 'style' is optional
+        }
+        ctx.push("style");
+
+        Style style = null;
+
+        JSONString sref = sval.isString();
+
+        if (null != sref)
+        {
+            style = ctx.getStyle(sref.stringValue());
+
+            if (null == style)
+            {
+                ctx.addBadValueError("Style", sval);
+            }
+        }
+        else
+        {
+            JSONObject sobj = sval.isObject();
+
+            if (null == sobj)
+            {
+                ctx.addBadTypeError("String");
             }
             else
             {
-                return factory.create(json, ctx);
+                style = new Style(sobj);
             }
         }
+        if (null != style)
+        {
+            ((Shape<?>) node).setStyle(style);
+        }
+        ctx.pop(); // style
     }
 
     protected final void validateAttributes(JSONObject json, IFactory<?> factory, String type, ValidationContext ctx) throws ValidationException
@@ -367,4 +564,251 @@ public final class JSONDeserializer
         }
         ctx.pop(); // children
     }
+
+    /**
+     * Returns the number of nodes in the JSON object, counting it and all its descendants.
+     */
+    private static final native int countNodes(JavaScriptObject json)
+    /*-{
+		var count = 0;
+
+		var stack = [ json ];
+
+		while (stack.length > 0) {
+			var node = stack.pop();
+
+			count++;
+
+			var kids = node.children;
+
+			if ((kids instanceof Array) || (kids instanceof $wnd.Array)) {
+				for (var i = 0; i < kids.length; i++) {
+					if ((kids[i]) && (typeof kids[i] == 'object')) {
+						stack.push(kids[i]);
+					}
+				}
+			}
+		}
+		return count;
+    }-*/;
+
+    /**
+     * Makes the nodes of a parsed document depth first, one node per step, keeping the containers
+     * whose children are still being made on a stack.
+     * The ValidationContext path is kept as {@link #deserializeChildren(IContainer, JSONObject, IContainerFactory, ValidationContext)} keeps it.
+     */
+    private final class IncrementalDeserializer implements RepeatingCommand
+    {
+        private final JSONObject                      m_json;
+
+        private final ValidationContext               m_ctx;
+
+        private final double                          m_slice;
+
+        private final IDeserializationCallback        m_callback;
+
+        private final ArrayList<IncrementalContainer> m_stack = new ArrayList<IncrementalContainer>();
+
+        private final int                             m_total;
+
+        private int                                   m_done  = 0;
+
+        private IJSONSerializable<?>                  m_root  = null;
+
+        public IncrementalDeserializer(JSONObject json, ValidationContext ctx, double slice, IDeserializationCallback callback)
+        {
+            m_json = json;
+
+            m_ctx = ctx;
+
+            m_slice = slice;
+
+            m_callback = callback;
+
+            m_total = countNodes(json.getJavaScriptObject());
+        }
+
+        @Override
+        public boolean execute()
+        {
+            Duration time = new Duration();
+
+            try
+            {
+                if (null == m_root)
+                {
+                    m_root = make(m_json);
+
+                    if (null == m_root)
+                    {
+                        m_callback.onComplete(null, m_ctx);
+
+                        return false;
+                    }
+                }
+                while (false == m_stack.isEmpty())
+                {
+                    step();
+
+                    if (time.elapsedMillis() >= m_slice)
+                    {
+                        m_callback.onProgress(m_root, m_done, m_total);
+
+                        return true;
+                    }
+                }
+            }
+            catch (ValidationException e)
+            {
+                m_callback.onComplete(null, m_ctx);
+
+                return false;
+            }
+            m_callback.onProgress(m_root, m_total, m_total);
+
+            m_callback.onComplete(m_root, m_ctx);
+
+            return false;
+        }
+
+        /**
+         * Makes the next child of the container on top of the stack, or pops the container if it has no more.
+         */
+        @SuppressWarnings("unchecked")
+        private final void step() throws ValidationException
+        {
+            IncrementalContainer top = m_stack.get(m_stack.size() - 1);
+
+            if (top.m_index >= top.m_children.size())
+            {
+                m_stack.remove(m_stack.size() - 1);
+
+                m_ctx.pop(); // children
+
+                if (top.m_container instanceof Layer)
+                {
+                    m_callback.onLayerComplete((Layer) top.m_container);
+                }
+                if (false == m_stack.isEmpty())
+                {
+                    m_ctx.pop(); // index of the container in its parent
+                }
+                return;
+            }
+            boolean open = false;
+
+            m_ctx.pushIndex(top.m_index);
+
+            JSONObject kidObj = top.m_children.get(top.m_index++).isObject();
+
+            if (kidObj == null)
+            {
+                m_ctx.addBadTypeError("Object");
+            }
+            else
+            {
+                IJSONSerializable<?> kidNode = fromJSON(withoutChildren(kidObj), m_ctx);
+
+                m_done++;
+
+                if ((kidNode != null) && (top.m_factory.isValidForContainer(top.m_container, kidNode)))
+                {
+                    top.m_container.add(kidNode);
+
+                    open = open(kidNode, kidObj);
+                }
+            }
+            if (false == open)
+            {
+                m_ctx.pop(); // index
+            }
+        }
+
+        private final IJSONSerializable<?> make(JSONObject json) throws ValidationException
+        {
+            IJSONSerializable<?> node = fromJSON(withoutChildren(json), m_ctx);
+
+            m_done++;
+
+            if (null != node)
+            {
+                open(node, json);
+            }
+            return node;
+        }
+
+        /**
+         * Pushes the node on the stack if it is a container with children to make.
+         * 
+         * @return boolean true if the node was pushed
+         */
+        @SuppressWarnings("rawtypes")
+        private final boolean open(IJSONSerializable<?> node, JSONObject json) throws ValidationException
+        {
+            JSONValue kidsVal = json.get("children");
+
+            if ((null == kidsVal) || (false == (node instanceof IContainer)) || (false == (node.getFactory() instanceof IContainerFactory)))
+            {
+                return false;
+            }
+            m_ctx.push("children");
+
+            JSONArray arr = kidsVal.isArray();
+
+            if (arr == null)
+            {
+                m_ctx.addBadTypeError("Array");
+
+                m_ctx.pop(); // children
+
+                return false;
+            }
+            m_stack.add(new IncrementalContainer((IContainer) node, (IContainerFactory) node.getFactory(), arr));
+
+            return true;
+        }
+
+        /**
+         * Returns the JSON object without its "children", so that the factory makes the container alone.
+         */
+        private final JSONObject withoutChildren(JSONObject json)
+        {
+            if (null == json.get("children"))
+            {
+                return json;
+            }
+            JSONObject copy = new JSONObject();
+
+            for (String key : json.keySet())
+            {
+                if (false == "children".equals(key))
+                {
+                    copy.put(key, json.get(key));
+                }
+            }
+            return copy;
+        }
+    }
+
+    private static final class IncrementalContainer
+    {
+        @SuppressWarnings("rawtypes")
+        private final IContainer        m_container;
+
+        private final IContainerFactory m_factory;
+
+        private final JSONArray         m_children;
+
+        private int                     m_index = 0;
+
+        @SuppressWarnings("rawtypes")
+        public IncrementalContainer(IContainer container, IContainerFactory factory, JSONArray children)
+        {
+            m_container = container;
+
+            m_factory = factory;
+
+            m_children = children;
+        }
+    }
 }
@@ -18,9 +18,12 @@
 package com.emitrom.lienzo.client.core.shape.json.validators;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.emitrom.lienzo.client.core.i18n.MessageConstants;
+import com.emitrom.lienzo.client.core.shape.Style;
 import com.emitrom.lienzo.client.core.shape.json.FactoryRegistry;
 import com.emitrom.lienzo.client.core.util.StringUtil;
 import com.google.gwt.json.client.JSONValue;
@@ -44,6 +47,8 @@ public class ValidationContext
 
     private final List<ValidationError> m_errors   = new ArrayList<ValidationError>();
 
+    private final Map<String, Style>    m_styles   = new HashMap<String, Style>();
+
     /**
      * Push the context (e.g. attribute name) that is being deserialized 
      * onto the context.
@@ -262,6 +267,29 @@ public class ValidationContext
         return this;
     }
 
+    /**
+     * Registers a {@link Style} read from the "styles" table, so that the nodes deserialized
+     * after it can refer to it by id.
+     * 
+     * @param id
+     * @param style
+     */
+    public void putStyle(String id, Style style)
+    {
+        m_styles.put(id, style);
+    }
+
+    /**
+     * Returns the {@link Style} registered under the id, or null.
+     * 
+     * @param id
+     * @return Style
+     */
+    public Style getStyle(String id)
+    {
+        return m_styles.get(id);
+    }
+
     /**
      * Returns the number of errors that were encountered.
      * 
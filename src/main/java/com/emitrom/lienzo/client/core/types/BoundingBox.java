@@ -0,0 +1,315 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved.
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.emitrom.lienzo.client.core.types;
+
+/**
+ * Axis-aligned rectangle, expressed as min/max coordinates.
+ * <p>
+ * A newly created BoundingBox is empty; adding points or other boxes grows it.
+ * Used by the rendering code to track the area a {@link com.emitrom.lienzo.client.core.shape.Node} paints.
+ */
+public final class BoundingBox
+{
+    private double m_minx = Double.POSITIVE_INFINITY;
+
+    private double m_miny = Double.POSITIVE_INFINITY;
+
+    private double m_maxx = Double.NEGATIVE_INFINITY;
+
+    private double m_maxy = Double.NEGATIVE_INFINITY;
+
+    public BoundingBox()
+    {
+    }
+
+    public BoundingBox(double minx, double miny, double maxx, double maxy)
+    {
+        add(minx, miny);
+
+        add(maxx, maxy);
+    }
+
+    public BoundingBox(BoundingBox box)
+    {
+        add(box);
+    }
+
+    public BoundingBox(Point2DArray points)
+    {
+        add(points);
+    }
+
+    public final BoundingBox add(double x, double y)
+    {
+        if (x < m_minx)
+        {
+            m_minx = x;
+        }
+        if (x > m_maxx)
+        {
+            m_maxx = x;
+        }
+        if (y < m_miny)
+        {
+            m_miny = y;
+        }
+        if (y > m_maxy)
+        {
+            m_maxy = y;
+        }
+        return this;
+    }
+
+    public final BoundingBox add(Point2D point)
+    {
+        if (null != point)
+        {
+            add(point.getX(), point.getY());
+        }
+        return this;
+    }
+
+    public final BoundingBox add(Point2DArray points)
+    {
+        if (null != points)
+        {
+            final int size = points.getLength();
+
+            for (int i = 0; i < size; i++)
+            {
+                add(points.getX(i), points.getY(i));
+            }
+        }
+        return this;
+    }
+
+    public final BoundingBox add(BoundingBox box)
+    {
+        if ((null != box) && (false == box.isEmpty()))
+        {
+            add(box.m_minx, box.m_miny);
+
+            add(box.m_maxx, box.m_maxy);
+        }
+        return this;
+    }
+
+    /**
+     * Grows this box to contain the arc of a circle, using the same angle conventions
+     * as {@link com.emitrom.lienzo.client.core.Context2D#arc(double, double, double, double, double, boolean)}.
+     */
+    public final BoundingBox addArc(double x, double y, double radius, double start, double end, boolean ccw)
+    {
+        final double full = Math.PI * 2;
+
+        double sweep = ccw ? (start - end) : (end - start);
+
+        if (sweep >= full)
+        {
+            return add(x - radius, y - radius).add(x + radius, y + radius);
+        }
+        sweep = sweep % full;
+
+        if (sweep < 0)
+        {
+            sweep += full;
+        }
+        add(x + radius * Math.cos(start), y + radius * Math.sin(start));
+
+        add(x + radius * Math.cos(end), y + radius * Math.sin(end));
+
+        final double quarter = Math.PI / 2;
+
+        for (int i = 0; i < 4; i++)
+        {
+            double delta = ((ccw ? (start - i * quarter) : (i * quarter - start)) % full);
+
+            if (delta < 0)
+            {
+                delta += full;
+            }
+            if (delta <= sweep)
+            {
+                add(x + radius * Math.cos(i * quarter), y + radius * Math.sin(i * quarter));
+            }
+        }
+        return this;
+    }
+
+    public final BoundingBox expand(double margin)
+    {
+        if (false == isEmpty())
+        {
+            m_minx -= margin;
+
+            m_miny -= margin;
+
+            m_maxx += margin;
+
+            m_maxy += margin;
+        }
+        return this;
+    }
+
+    public final boolean isEmpty()
+    {
+        return ((m_minx > m_maxx) || (m_miny > m_maxy));
+    }
+
+    public final double getMinX()
+    {
+        return m_minx;
+    }
+
+    public final double getMinY()
+    {
+        return m_miny;
+    }
+
+    public final double getMaxX()
+    {
+        return m_maxx;
+    }
+
+    public final double getMaxY()
+    {
+        return m_maxy;
+    }
+
+    public final double getX()
+    {
+        return m_minx;
+    }
+
+    public final double getY()
+    {
+        return m_miny;
+    }
+
+    public final double getWidth()
+    {
+        if (isEmpty())
+        {
+            return 0;
+        }
+        return (m_maxx - m_minx);
+    }
+
+    public final double getHeight()
+    {
+        if (isEmpty())
+        {
+            return 0;
+        }
+        return (m_maxy - m_miny);
+    }
+
+    public final boolean contains(double x, double y)
+    {
+        return ((x >= m_minx) && (x <= m_maxx) && (y >= m_miny) && (y <= m_maxy));
+    }
+
+    /**
+     * Returns the distance from the point to the nearest edge of this box, whether the point is inside or outside of it.
+     * 
+     * @param x
+     * @param y
+     * @return double
+     */
+    public final double getEdgeDistance(double x, double y)
+    {
+        if (isEmpty())
+        {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (contains(x, y))
+        {
+            return Math.min(Math.min(x - m_minx, m_maxx - x), Math.min(y - m_miny, m_maxy - y));
+        }
+        final double dx = Math.max(Math.max(m_minx - x, x - m_maxx), 0);
+
+        final double dy = Math.max(Math.max(m_miny - y, y - m_maxy), 0);
+
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public final boolean contains(BoundingBox box)
+    {
+        if ((null == box) || isEmpty() || box.isEmpty())
+        {
+            return false;
+        }
+        return ((box.m_minx >= m_minx) && (box.m_maxx <= m_maxx) && (box.m_miny >= m_miny) && (box.m_maxy <= m_maxy));
+    }
+
+    public final boolean intersects(BoundingBox box)
+    {
+        if ((null == box) || isEmpty() || box.isEmpty())
+        {
+            return false;
+        }
+        return ((box.m_minx <= m_maxx) && (box.m_maxx >= m_minx) && (box.m_miny <= m_maxy) && (box.m_maxy >= m_miny));
+    }
+
+    public final BoundingBox copy()
+    {
+        return new BoundingBox(this);
+    }
+
+    /**
+     * Returns a new BoundingBox that contains this box after it has been transformed.
+     *
+     * @param transform
+     * @return BoundingBox
+     */
+    public final BoundingBox transform(Transform transform)
+    {
+        if ((null == transform) || isEmpty())
+        {
+            return copy();
+        }
+        return transform(transform.get(0), transform.get(1), transform.get(2), transform.get(3), transform.get(4), transform.get(5));
+    }
+
+    /**
+     * Returns a new BoundingBox that contains this box after it has been transformed by the matrix
+     * [m00, m10, m01, m11, m02, m12], the layout used by {@link Transform}.
+     */
+    public final BoundingBox transform(double m00, double m10, double m01, double m11, double m02, double m12)
+    {
+        final BoundingBox bbox = new BoundingBox();
+
+        if (false == isEmpty())
+        {
+            bbox.add(m00 * m_minx + m01 * m_miny + m02, m10 * m_minx + m11 * m_miny + m12);
+
+            bbox.add(m00 * m_maxx + m01 * m_miny + m02, m10 * m_maxx + m11 * m_miny + m12);
+
+            bbox.add(m00 * m_minx + m01 * m_maxy + m02, m10 * m_minx + m11 * m_maxy + m12);
+
+            bbox.add(m00 * m_maxx + m01 * m_maxy + m02, m10 * m_maxx + m11 * m_maxy + m12);
+        }
+        return bbox;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundingBox(" + m_minx + "," + m_miny + "," + m_maxx + "," + m_maxy + ")";
+    }
+}
@@ -222,6 +222,47 @@ public class ImageData extends JavaScriptObject
 				* (x + y * this.width) + offset] || 0;
     }-*/;
 
+    /**
+     * Returns the pixel at position (x,y) packed into an int as 0xAARRGGBB, or 0 if not in the image.
+     * 
+     * Where typed arrays are supported, the first call wraps the data in a 32 bit view, so
+     * that each later call reads a single element instead of four channels.
+     * 
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the pixel at position (x,y), or 0 if not in the image
+     */
+    public final native int getPixelAt(int x, int y) /*-{
+		if ((x < 0) || (y < 0) || (x >= this.width) || (y >= this.height)) {
+			return 0;
+		}
+		var i = x + y * this.width;
+
+		if (this.__u32 === undefined) {
+			this.__u32 = null;
+
+			if ($wnd.Uint32Array && $wnd.Uint8Array && this.data.buffer) {
+				var test = new $wnd.Uint32Array([ 1 ]);
+
+				if (new $wnd.Uint8Array(test.buffer)[0] === 1) {
+					this.__u32 = new $wnd.Uint32Array(this.data.buffer);
+				}
+			}
+		}
+		var u32 = this.__u32;
+
+		if (u32) {
+			var v = u32[i]; // little endian, so 0xAABBGGRR
+
+			return (v & 0xff00ff00) | ((v & 0xff) << 16) | ((v >>> 16) & 0xff);
+		}
+		var d = this.data;
+
+		i = i * 4;
+
+		return (d[i + 3] << 24) | (d[i] << 16) | (d[i + 1] << 8) | d[i + 2];
+    }-*/;
+
     /**
      * Sets the color value at position (x,y) with the specified offset.
      * 
@@ -0,0 +1,75 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.types;
+
+import com.emitrom.lienzo.client.core.shape.Layer;
+import com.emitrom.lienzo.client.core.shape.Shape;
+
+/**
+ * On-screen size thresholds, in pixels, below which a {@link Shape} is drawn with less detail.
+ * <ul>
+ *      <li>Below the hide size, nothing is drawn.</li>
+ *      <li>Below the dot size, a single pixel is drawn at the center of the shape.</li>
+ *      <li>Below the rectangle size, the bounding box is filled. Text draws a greeked bar instead.</li>
+ * </ul>
+ * The size of a shape is the larger side of its bounding box, or the font size for text, times the scale of the current transform.
+ * Set it on a {@link Layer} for all of its shapes, or on a {@link Shape} to override the layer.
+ */
+public final class LevelOfDetail
+{
+    private final double m_hide;
+
+    private final double m_dot;
+
+    private final double m_rect;
+
+    public LevelOfDetail(double hide, double dot, double rect)
+    {
+        m_hide = hide;
+
+        m_dot = dot;
+
+        m_rect = rect;
+    }
+
+    public final double getHideSize()
+    {
+        return m_hide;
+    }
+
+    public final double getDotSize()
+    {
+        return m_dot;
+    }
+
+    public final double getRectangleSize()
+    {
+        return m_rect;
+    }
+
+    /**
+     * Returns the smallest size that is drawn in full.
+     * 
+     * @return double
+     */
+    public final double getFullSize()
+    {
+        return Math.max(m_hide, Math.max(m_dot, m_rect));
+    }
+}
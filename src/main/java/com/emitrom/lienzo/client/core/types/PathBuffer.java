@@ -0,0 +1,203 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.emitrom.lienzo.client.core.types;
+
+import com.emitrom.lienzo.client.core.Context2D;
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * A retained path, stored as a flat array of commands and coordinates.
+ * <p>
+ * Shapes build it once from their geometry and replay it with
+ * {@link com.emitrom.lienzo.client.core.Context2D#path(PathBuffer)}, which issues all the
+ * commands from a single native loop.
+ */
+public final class PathBuffer
+{
+    private static final int    MOVE_TO      = 0;
+
+    private static final int    LINE_TO      = 1;
+
+    private static final int    QUADRATIC_TO = 2;
+
+    private static final int    BEZIER_TO    = 3;
+
+    private static final int    ARC          = 4;
+
+    private static final int    CLOSE_PATH   = 5;
+
+    private final PathBufferJSO m_jso;
+
+    public PathBuffer()
+    {
+        m_jso = PathBufferJSO.make().cast();
+    }
+
+    public final PathBuffer moveTo(double x, double y)
+    {
+        m_jso.push(MOVE_TO, x, y);
+
+        return this;
+    }
+
+    public final PathBuffer lineTo(double x, double y)
+    {
+        m_jso.push(LINE_TO, x, y);
+
+        return this;
+    }
+
+    public final PathBuffer quadraticCurveTo(double cpx, double cpy, double x, double y)
+    {
+        m_jso.push(QUADRATIC_TO, cpx, cpy, x, y);
+
+        return this;
+    }
+
+    public final PathBuffer bezierCurveTo(double cp1x, double cp1y, double cp2x, double cp2y, double x, double y)
+    {
+        m_jso.push(BEZIER_TO, cp1x, cp1y, cp2x, cp2y, x, y);
+
+        return this;
+    }
+
+    public final PathBuffer arc(double x, double y, double radius, double startAngle, double endAngle, boolean anticlockwise)
+    {
+        m_jso.push(ARC, x, y, radius, startAngle, endAngle, anticlockwise ? 1 : 0);
+
+        return this;
+    }
+
+    public final PathBuffer closePath()
+    {
+        m_jso.push(CLOSE_PATH);
+
+        return this;
+    }
+
+    public final PathBuffer clear()
+    {
+        m_jso.clear();
+
+        return this;
+    }
+
+    public final boolean isEmpty()
+    {
+        return (m_jso.length() == 0);
+    }
+
+    public final PathBufferJSO getJSO()
+    {
+        return m_jso;
+    }
+
+    /**
+     * Issues the commands one by one on the context, without a leading beginPath().
+     * Used by contexts that need to see each command; drawing should use {@link com.emitrom.lienzo.client.core.Context2D#path(PathBuffer)}.
+     * 
+     * @param context
+     */
+    public final void replay(Context2D context)
+    {
+        final PathBufferJSO jso = m_jso;
+
+        final int size = jso.length();
+
+        int i = 0;
+
+        while (i < size)
+        {
+            switch ((int) jso.get(i++))
+            {
+                case MOVE_TO:
+                    context.moveTo(jso.get(i), jso.get(i + 1));
+                    i += 2;
+                    break;
+                case LINE_TO:
+                    context.lineTo(jso.get(i), jso.get(i + 1));
+                    i += 2;
+                    break;
+                case QUADRATIC_TO:
+                    context.quadraticCurveTo(jso.get(i), jso.get(i + 1), jso.get(i + 2), jso.get(i + 3));
+                    i += 4;
+                    break;
+                case BEZIER_TO:
+                    context.bezierCurveTo(jso.get(i), jso.get(i + 1), jso.get(i + 2), jso.get(i + 3), jso.get(i + 4), jso.get(i + 5));
+                    i += 6;
+                    break;
+                case ARC:
+                    context.arc(jso.get(i), jso.get(i + 1), jso.get(i + 2), jso.get(i + 3), jso.get(i + 4), (0 != jso.get(i + 5)));
+                    i += 6;
+                    break;
+                case CLOSE_PATH:
+                    context.closePath();
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    public static final class PathBufferJSO extends JavaScriptObject
+    {
+        protected PathBufferJSO()
+        {
+        }
+
+        public static final JavaScriptObject make()
+        {
+            return JavaScriptObject.createArray();
+        }
+
+        public final native int length()
+        /*-{
+			return this.length;
+        }-*/;
+
+        public final native void clear()
+        /*-{
+			this.length = 0;
+        }-*/;
+
+        final native double get(int i)
+        /*-{
+			return this[i];
+        }-*/;
+
+        final native void push(int command)
+        /*-{
+			this.push(command);
+        }-*/;
+
+        final native void push(int command, double a, double b)
+        /*-{
+			this.push(command, a, b);
+        }-*/;
+
+        final native void push(int command, double a, double b, double c, double d)
+        /*-{
+			this.push(command, a, b, c, d);
+        }-*/;
+
+        final native void push(int command, double a, double b, double c, double d, double e, double f)
+        /*-{
+			this.push(command, a, b, c, d, e, f);
+        }-*/;
+    }
+}
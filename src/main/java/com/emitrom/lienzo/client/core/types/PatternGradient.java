@@ -21,6 +21,7 @@ import com.emitrom.lienzo.client.core.Context2D.GradientJSO;
 import com.emitrom.lienzo.client.core.shape.Shape;
 import com.emitrom.lienzo.client.core.types.ImageLoader.ImageJSO;
 import com.emitrom.lienzo.shared.core.types.FillRepeat;
+import com.google.gwt.dom.client.CanvasElement;
 
 /**
  * PatternGradient defines the fill style for a {@link Shape} as a Pattern Gradient. 
@@ -46,6 +47,18 @@ public final class PatternGradient implements FillGradient
         this(PatternGradientJSO.make(loader.getJSO(), repeat.getValue()));
     }
 
+    /**
+     * Creates a pattern from a canvas, for example a tile drawn into a {@link com.emitrom.lienzo.client.core.util.ScratchCanvas}.
+     * The pattern uses the canvas pixels at the time it is set on a context.
+     * 
+     * @param canvas
+     * @param repeat
+     */
+    public PatternGradient(CanvasElement canvas, FillRepeat repeat)
+    {
+        this(PatternGradientJSO.make(canvas.<ImageJSO> cast(), repeat.getValue()));
+    }
+
     @Override
     public String getType()
     {
@@ -28,19 +28,64 @@ import com.google.gwt.json.client.JSONArray;
 
 /**
  * Point2DArray represents an array (or List) with {@link Point2D} objects.
+ * <p>
+ * A packed Point2DArray, made with {@link #packed()}, keeps its coordinates as x/y pairs in one flat
+ * number array (a Float64Array where the browser has one) instead of one object per point. Read it
+ * with {@link #getX(int)} and {@link #getY(int)}, which allocate nothing. Shapes given a packed array
+ * keep the packed coordinates in their attributes, and they are only expanded to the usual array of
+ * {x, y} objects when the Shape is serialized. Its {@link #getJSO()} makes that array on demand, and
+ * keeps it in step with the packed coordinates from then on.
+ * <p>
+ * Edits made through the Point2DArray a Shape was given, or the one its getPoints() returns, are
+ * reported to that Shape, so it rebuilds its retained path and bounding box. Edits made directly on
+ * the array returned by {@link #getJSO()} are not, and need the points set again.
  */
 public class Point2DArray
 {
-    private final Point2DArrayJSO m_jso;
+    private Point2DArrayJSO       m_jso;
+
+    private final PackedPointsJSO m_packed;
 
     Point2DArray(Point2DArrayJSO jso)
     {
         m_jso = jso;
+
+        m_packed = null;
     }
 
     public Point2DArray(JsArray<JavaScriptObject> jso)
     {
         m_jso = jso.cast();
+
+        m_packed = PackedPointsJSO.getPacked(m_jso);
+    }
+
+    private Point2DArray(PackedPointsJSO packed)
+    {
+        m_jso = null;
+
+        m_packed = packed;
+    }
+
+    /**
+     * Returns a new, empty, packed Point2DArray.
+     * 
+     * @return Point2DArray
+     */
+    public static final Point2DArray packed()
+    {
+        return new Point2DArray(PackedPointsJSO.make());
+    }
+
+    /**
+     * Returns a new packed Point2DArray with the points given as x/y pairs.
+     * 
+     * @param xy x0, y0, x1, y1 ...
+     * @return Point2DArray
+     */
+    public static final Point2DArray packed(double... xy)
+    {
+        return packed().push(xy);
     }
 
     public Point2DArray()
@@ -124,6 +169,12 @@ public class Point2DArray
 
     public final Point2DArray push(Point2D point)
     {
+        if (null != m_packed)
+        {
+            return push(point.getX(), point.getY());
+        }
+        changed(m_jso);
+
         getJSO().push(point.getJSO());
 
         return this;
@@ -131,20 +182,71 @@ public class Point2DArray
 
     public final Point2DArray push(double x, double y)
     {
-        getJSO().push(Point2DJSO.make(x, y));
+        changed(getAttributeJSO());
+
+        if (null != m_packed)
+        {
+            m_packed.push(x, y);
+
+            if (null == m_jso)
+            {
+                return this;
+            }
+        }
+        m_jso.push(Point2DJSO.make(x, y));
 
         return this;
     }
 
     public final Point2DArray push(Point2D point, Point2D... points)
     {
-        getJSO().push(point.getJSO());
+        push(point);
 
         if (points != null)
         {
             for (int i = 0; i < points.length; i++)
             {
-                getJSO().push(points[i].getJSO());
+                push(points[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the points given as x/y pairs.
+     * 
+     * @param xy x0, y0, x1, y1 ...
+     * @return this Point2DArray
+     */
+    public final Point2DArray push(double[] xy)
+    {
+        if (null != xy)
+        {
+            final int leng = xy.length - 1;
+
+            for (int i = 0; i < leng; i += 2)
+            {
+                push(xy[i], xy[i + 1]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends all the points of another Point2DArray.
+     * 
+     * @param points
+     * @return this Point2DArray
+     */
+    public final Point2DArray push(Point2DArray points)
+    {
+        if (null != points)
+        {
+            final int leng = points.getLength();
+
+            for (int i = 0; i < leng; i++)
+            {
+                push(points.getX(i), points.getY(i));
             }
         }
         return this;
@@ -152,23 +254,83 @@ public class Point2DArray
 
     public final int getLength()
     {
-        return getJSO().length();
+        if (null != m_packed)
+        {
+            return m_packed.length();
+        }
+        return m_jso.length();
+    }
+
+    /**
+     * Returns the X coordinate of the point at the index, without making a {@link Point2D}.
+     * 
+     * @param i
+     * @return double
+     */
+    public final double getX(int i)
+    {
+        if (null != m_packed)
+        {
+            return m_packed.getX(i);
+        }
+        return m_jso.get(i).getX();
+    }
+
+    /**
+     * Returns the Y coordinate of the point at the index, without making a {@link Point2D}.
+     * 
+     * @param i
+     * @return double
+     */
+    public final double getY(int i)
+    {
+        if (null != m_packed)
+        {
+            return m_packed.getY(i);
+        }
+        return m_jso.get(i).getY();
     }
 
     public final Point2D getPoint(int i)
     {
-        return new Point2D(getJSO().get(i));
+        if (null != m_packed)
+        {
+            return new Point2D(m_packed.getX(i), m_packed.getY(i));
+        }
+        return new Point2D(m_jso.get(i));
     }
 
     public final Point2DArray setPoint(int i, Point2D p)
     {
-        getJSO().set(i, p.getJSO());
+        changed(getAttributeJSO());
+
+        if (null != m_packed)
+        {
+            m_packed.set(i, p.getX(), p.getY());
+
+            if (null == m_jso)
+            {
+                return this;
+            }
+        }
+        m_jso.set(i, p.getJSO());
 
         return this;
     }
 
     public Point2DArray shift()
     {
+        changed(getAttributeJSO());
+
+        if (null != m_packed)
+        {
+            m_packed.shift();
+
+            if (null == m_jso)
+            {
+                return this;
+            }
+        }
         m_jso.shift();
 
         return this;
@@ -176,11 +338,32 @@ public class Point2DArray
 
     public Point2DArray pop()
     {
+        changed(getAttributeJSO());
+
+        if (null != m_packed)
+        {
+            m_packed.pop();
+
+            if (null == m_jso)
+            {
+                return this;
+            }
+        }
         m_jso.pop();
 
         return this;
     }
 
+    /**
+     * Returns true if this Point2DArray keeps its coordinates packed.
+     * 
+     * @return boolean
+     */
+    public final boolean isPacked()
+    {
+        return (null != m_packed);
+    }
+
     public final Collection<Point2D> getPoints()
     {
         int leng = getLength();
@@ -194,14 +377,87 @@ public class Point2DArray
         return Collections.unmodifiableCollection(list);
     }
 
+    /**
+     * Returns the array of {x, y} objects. For a packed Point2DArray it is made on the first call.
+     * 
+     * @return Point2DArrayJSO
+     */
     public final Point2DArrayJSO getJSO()
     {
+        if (null == m_jso)
+        {
+            m_jso = m_packed.toPoint2DArrayJSO();
+        }
         return m_jso;
     }
 
+    /**
+     * Returns the object a Shape keeps in its attributes for this Point2DArray: the packed coordinates
+     * for a packed Point2DArray, otherwise {@link #getJSO()}.
+     * 
+     * @return JavaScriptObject
+     */
+    public final JavaScriptObject getAttributeJSO()
+    {
+        if (null != m_packed)
+        {
+            return m_packed;
+        }
+        return m_jso;
+    }
+
+    /**
+     * Returns the Point2DArray for an object kept in attributes, see {@link #getAttributeJSO()}, or null if it is neither kind.
+     * 
+     * @param jso
+     * @return Point2DArray
+     */
+    public static final Point2DArray fromAttributeJSO(JavaScriptObject jso)
+    {
+        if (null == jso)
+        {
+            return null;
+        }
+        if (PackedPointsJSO.isPacked(jso))
+        {
+            return new Point2DArray(jso.<PackedPointsJSO> cast());
+        }
+        if (PackedPointsJSO.isArray(jso))
+        {
+            return new Point2DArray(jso.<JsArray<JavaScriptObject>> cast());
+        }
+        return null;
+    }
+
+    /**
+     * Returns an object kept in attributes the way it is serialized: packed coordinates are expanded to a new
+     * array of {x, y} objects, and anything else is returned as it is.
+     * 
+     * @param jso
+     * @return JavaScriptObject
+     */
+    public static final JavaScriptObject toJSONAttributeJSO(JavaScriptObject jso)
+    {
+        if ((null != jso) && (PackedPointsJSO.isPacked(jso)))
+        {
+            return jso.<PackedPointsJSO> cast().toPoint2DArrayJSO();
+        }
+        return jso;
+    }
+
+    /**
+     * Tells the Shape keeping these points in its attributes, if any, that they are about to change.
+     */
+    private static final native void changed(JavaScriptObject jso)
+    /*-{
+		if ((jso) && (jso.__lienzo_changed)) {
+			jso.__lienzo_changed();
+		}
+    }-*/;
+
     public String toString()
     {
-        return new JSONArray(m_jso).toString();
+        return new JSONArray(getJSO()).toString();
     }
 
     public static final class Point2DArrayJSO extends JsArray<Point2DJSO>
@@ -221,4 +477,126 @@ public class Point2DArray
 			return [];
         }-*/;
     }
+
+    private static final class PackedPointsJSO extends JavaScriptObject
+    {
+        protected PackedPointsJSO()
+        {
+        }
+
+        static final native PackedPointsJSO make()
+        /*-{
+			if ($wnd.Float64Array) {
+				return {
+					data : new $wnd.Float64Array(32),
+					size : 0,
+					typed : true
+				};
+			}
+			return {
+				data : [],
+				size : 0,
+				typed : false
+			};
+        }-*/;
+
+        static final native boolean isPacked(JavaScriptObject jso)
+        /*-{
+			return ((typeof jso.size == 'number') && (jso.data !== undefined) && (typeof jso.typed == 'boolean'));
+        }-*/;
+
+        static final native boolean isArray(JavaScriptObject jso)
+        /*-{
+			return ((jso instanceof Array) || (jso instanceof $wnd.Array));
+        }-*/;
+
+        /**
+         * Returns the packed coordinates an array of {x, y} objects was made from, or null.
+         */
+        static final native PackedPointsJSO getPacked(Point2DArrayJSO jso)
+        /*-{
+			return jso.__lienzo_packed || null;
+        }-*/;
+
+        final native int length()
+        /*-{
+			return (this.size / 2);
+        }-*/;
+
+        final native double getX(int i)
+        /*-{
+			return this.data[i * 2];
+        }-*/;
+
+        final native double getY(int i)
+        /*-{
+			return this.data[i * 2 + 1];
+        }-*/;
+
+        final native void set(int i, double x, double y)
+        /*-{
+			this.data[i * 2] = x;
+
+			this.data[i * 2 + 1] = y;
+        }-*/;
+
+        final native void push(double x, double y)
+        /*-{
+			if ((this.typed) && (this.size == this.data.length)) {
+				var grow = new $wnd.Float64Array(this.size * 2);
+
+				grow.set(this.data);
+
+				this.data = grow;
+			}
+			this.data[this.size++] = x;
+
+			this.data[this.size++] = y;
+        }-*/;
+
+        final native void shift()
+        /*-{
+			if (this.size > 0) {
+				if (this.typed) {
+					this.data.set(this.data.subarray(2, this.size), 0);
+				} else {
+					this.data.splice(0, 2);
+				}
+				this.size -= 2;
+			}
+        }-*/;
+
+        final native void pop()
+        /*-{
+			if (this.size > 0) {
+				if (!this.typed) {
+					this.data.length -= 2;
+				}
+				this.size -= 2;
+			}
+        }-*/;
+
+        /**
+         * Makes the array of {x, y} objects, linked back to these packed coordinates by a property
+         * that is not enumerable, so it is never serialized.
+         */
+        final native Point2DArrayJSO toPoint2DArrayJSO()
+        /*-{
+			var list = [];
+
+			for (var i = 0; i < this.size; i += 2) {
+				list.push({
+					x : this.data[i],
+					y : this.data[i + 1]
+				});
+			}
+			Object.defineProperty(list, "__lienzo_packed", {
+				value : this,
+				writable : true,
+				enumerable : false,
+				configurable : true
+			});
+			return list;
+        }-*/;
+    }
 }
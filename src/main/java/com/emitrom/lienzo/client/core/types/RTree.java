@@ -0,0 +1,669 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved.
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.emitrom.lienzo.client.core.types;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+
+/**
+ * R-tree of values keyed by their {@link BoundingBox}, using quadratic splits.
+ * <p>
+ * Values are compared by identity, and each is stored once; inserting a value again replaces its box.
+ * Region and point queries, insertion and removal run in logarithmic time.
+ *
+ * @param <M>
+ */
+public final class RTree<M>
+{
+    private static final int                   MAX_ENTRIES = 16;
+
+    private static final int                   MIN_ENTRIES = 6;
+
+    private final IdentityHashMap<M, Entry<M>> m_entries   = new IdentityHashMap<M, Entry<M>>();
+
+    private RNode<M>                           m_root      = new RNode<M>(true);
+
+    /**
+     * Adds a value, or moves it if it is already in the tree.
+     * A value with a null or empty box is removed instead.
+     *
+     * @param value
+     * @param box
+     */
+    public final void insert(M value, BoundingBox box)
+    {
+        remove(value);
+
+        if ((null == box) || (box.isEmpty()))
+        {
+            return;
+        }
+        Entry<M> entry = new Entry<M>(value, new BoundingBox(box));
+
+        m_entries.put(value, entry);
+
+        insert(entry);
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value
+     * @return true if the value was in the tree
+     */
+    public final boolean remove(M value)
+    {
+        Entry<M> entry = m_entries.remove(value);
+
+        if (null == entry)
+        {
+            return false;
+        }
+        RNode<M> leaf = entry.m_leaf;
+
+        leaf.m_entries.remove(entry);
+
+        condense(leaf);
+
+        return true;
+    }
+
+    public final boolean contains(M value)
+    {
+        return m_entries.containsKey(value);
+    }
+
+    /**
+     * Returns the box a value was stored with, or null.
+     *
+     * @param value
+     * @return {@link BoundingBox}
+     */
+    public final BoundingBox getBoundingBox(M value)
+    {
+        Entry<M> entry = m_entries.get(value);
+
+        if (null == entry)
+        {
+            return null;
+        }
+        return entry.m_box;
+    }
+
+    public final int size()
+    {
+        return m_entries.size();
+    }
+
+    public final void clear()
+    {
+        m_entries.clear();
+
+        m_root = new RNode<M>(true);
+    }
+
+    /**
+     * Returns the values whose box intersects the region.
+     *
+     * @param region
+     * @return ArrayList
+     */
+    public final ArrayList<M> search(BoundingBox region)
+    {
+        ArrayList<M> find = new ArrayList<M>();
+
+        if ((null != region) && (false == region.isEmpty()))
+        {
+            search(m_root, region, find);
+        }
+        return find;
+    }
+
+    /**
+     * Returns the values whose box contains the point.
+     *
+     * @param x
+     * @param y
+     * @return ArrayList
+     */
+    public final ArrayList<M> search(double x, double y)
+    {
+        return search(new BoundingBox(x, y, x, y));
+    }
+
+    /**
+     * Returns up to <code>count</code> values, ordered by the distance from the point to their box.
+     *
+     * @param x
+     * @param y
+     * @param count
+     * @return ArrayList
+     */
+    public final ArrayList<M> nearest(double x, double y, int count)
+    {
+        ArrayList<M> find = new ArrayList<M>();
+
+        if ((count < 1) || (m_entries.isEmpty()))
+        {
+            return find;
+        }
+        PriorityQueue<Candidate<M>> queue = new PriorityQueue<Candidate<M>>();
+
+        queue.add(new Candidate<M>(0, m_root, null));
+
+        while ((false == queue.isEmpty()) && (find.size() < count))
+        {
+            Candidate<M> look = queue.poll();
+
+            if (null != look.m_entry)
+            {
+                find.add(look.m_entry.m_value);
+            }
+            else if (look.m_node.m_leaf)
+            {
+                for (Entry<M> entry : look.m_node.m_entries)
+                {
+                    queue.add(new Candidate<M>(distance(entry.m_box, x, y), null, entry));
+                }
+            }
+            else
+            {
+                for (RNode<M> node : look.m_node.m_children)
+                {
+                    queue.add(new Candidate<M>(distance(node.m_box, x, y), node, null));
+                }
+            }
+        }
+        return find;
+    }
+
+    private static final double distance(BoundingBox box, double x, double y)
+    {
+        double dx = 0;
+
+        double dy = 0;
+
+        if (x < box.getMinX())
+        {
+            dx = box.getMinX() - x;
+        }
+        else if (x > box.getMaxX())
+        {
+            dx = x - box.getMaxX();
+        }
+        if (y < box.getMinY())
+        {
+            dy = box.getMinY() - y;
+        }
+        else if (y > box.getMaxY())
+        {
+            dy = y - box.getMaxY();
+        }
+        return (dx * dx) + (dy * dy);
+    }
+
+    private final void search(RNode<M> node, BoundingBox region, ArrayList<M> find)
+    {
+        if (node.m_leaf)
+        {
+            for (Entry<M> entry : node.m_entries)
+            {
+                if (region.intersects(entry.m_box))
+                {
+                    find.add(entry.m_value);
+                }
+            }
+        }
+        else
+        {
+            for (RNode<M> child : node.m_children)
+            {
+                if (region.intersects(child.m_box))
+                {
+                    search(child, region, find);
+                }
+            }
+        }
+    }
+
+    private final void insert(Entry<M> entry)
+    {
+        RNode<M> leaf = m_root;
+
+        while (false == leaf.m_leaf)
+        {
+            leaf = chooseChild(leaf, entry.m_box);
+        }
+        entry.m_leaf = leaf;
+
+        leaf.m_entries.add(entry);
+
+        RNode<M> node = leaf;
+
+        RNode<M> split = null;
+
+        if (leaf.m_entries.size() > MAX_ENTRIES)
+        {
+            split = splitLeaf(leaf);
+        }
+        while (null != node)
+        {
+            node.recalculate();
+
+            RNode<M> parent = node.m_parent;
+
+            if (null != split)
+            {
+                if (null == parent)
+                {
+                    parent = new RNode<M>(false);
+
+                    parent.addChild(node);
+
+                    m_root = parent;
+                }
+                parent.addChild(split);
+
+                split.recalculate();
+
+                split = null;
+
+                if (parent.m_children.size() > MAX_ENTRIES)
+                {
+                    split = splitNode(parent);
+                }
+            }
+            node = parent;
+        }
+    }
+
+    private final RNode<M> chooseChild(RNode<M> node, BoundingBox box)
+    {
+        RNode<M> best = null;
+
+        double bestGrowth = Double.POSITIVE_INFINITY;
+
+        double bestArea = Double.POSITIVE_INFINITY;
+
+        for (RNode<M> child : node.m_children)
+        {
+            double area = area(child.m_box);
+
+            double growth = area(new BoundingBox(child.m_box).add(box)) - area;
+
+            if ((growth < bestGrowth) || ((growth == bestGrowth) && (area < bestArea)))
+            {
+                best = child;
+
+                bestGrowth = growth;
+
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    private static final double area(BoundingBox box)
+    {
+        return box.getWidth() * box.getHeight();
+    }
+
+    private final RNode<M> splitLeaf(RNode<M> leaf)
+    {
+        ArrayList<Entry<M>> list = new ArrayList<Entry<M>>(leaf.m_entries);
+
+        ArrayList<BoundingBox> boxes = new ArrayList<BoundingBox>();
+
+        for (Entry<M> entry : list)
+        {
+            boxes.add(entry.m_box);
+        }
+        int[] groups = split(boxes);
+
+        RNode<M> next = new RNode<M>(true);
+
+        leaf.m_entries.clear();
+
+        for (int i = 0; i < groups.length; i++)
+        {
+            Entry<M> entry = list.get(i);
+
+            if (0 == groups[i])
+            {
+                leaf.m_entries.add(entry);
+            }
+            else
+            {
+                entry.m_leaf = next;
+
+                next.m_entries.add(entry);
+            }
+        }
+        return next;
+    }
+
+    private final RNode<M> splitNode(RNode<M> node)
+    {
+        ArrayList<RNode<M>> list = new ArrayList<RNode<M>>(node.m_children);
+
+        ArrayList<BoundingBox> boxes = new ArrayList<BoundingBox>();
+
+        for (RNode<M> child : list)
+        {
+            boxes.add(child.m_box);
+        }
+        int[] groups = split(boxes);
+
+        RNode<M> next = new RNode<M>(false);
+
+        node.m_children.clear();
+
+        for (int i = 0; i < groups.length; i++)
+        {
+            if (0 == groups[i])
+            {
+                node.addChild(list.get(i));
+            }
+            else
+            {
+                next.addChild(list.get(i));
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Quadratic split: returns the group, 0 or 1, of each box.
+     */
+    private static final int[] split(ArrayList<BoundingBox> boxes)
+    {
+        final int size = boxes.size();
+
+        int[] groups = new int[size];
+
+        int seed0 = 0;
+
+        int seed1 = 1;
+
+        double worst = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = i + 1; j < size; j++)
+            {
+                BoundingBox a = boxes.get(i);
+
+                BoundingBox b = boxes.get(j);
+
+                double waste = area(new BoundingBox(a).add(b)) - area(a) - area(b);
+
+                if (waste > worst)
+                {
+                    worst = waste;
+
+                    seed0 = i;
+
+                    seed1 = j;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++)
+        {
+            groups[i] = -1;
+        }
+        groups[seed0] = 0;
+
+        groups[seed1] = 1;
+
+        BoundingBox box0 = new BoundingBox(boxes.get(seed0));
+
+        BoundingBox box1 = new BoundingBox(boxes.get(seed1));
+
+        int count0 = 1;
+
+        int count1 = 1;
+
+        int left = size - 2;
+
+        while (left > 0)
+        {
+            if (count0 + left == MIN_ENTRIES)
+            {
+                for (int i = 0; i < size; i++)
+                {
+                    if (groups[i] < 0)
+                    {
+                        groups[i] = 0;
+                    }
+                }
+                break;
+            }
+            if (count1 + left == MIN_ENTRIES)
+            {
+                for (int i = 0; i < size; i++)
+                {
+                    if (groups[i] < 0)
+                    {
+                        groups[i] = 1;
+                    }
+                }
+                break;
+            }
+            int pick = -1;
+
+            double most = Double.NEGATIVE_INFINITY;
+
+            double grow0 = 0;
+
+            double grow1 = 0;
+
+            for (int i = 0; i < size; i++)
+            {
+                if (groups[i] < 0)
+                {
+                    BoundingBox look = boxes.get(i);
+
+                    double d0 = area(new BoundingBox(box0).add(look)) - area(box0);
+
+                    double d1 = area(new BoundingBox(box1).add(look)) - area(box1);
+
+                    double diff = Math.abs(d0 - d1);
+
+                    if (diff > most)
+                    {
+                        most = diff;
+
+                        pick = i;
+
+                        grow0 = d0;
+
+                        grow1 = d1;
+                    }
+                }
+            }
+            boolean first = (grow0 < grow1) || ((grow0 == grow1) && ((area(box0) < area(box1)) || ((area(box0) == area(box1)) && (count0 <= count1))));
+
+            if (first)
+            {
+                groups[pick] = 0;
+
+                box0.add(boxes.get(pick));
+
+                count0++;
+            }
+            else
+            {
+                groups[pick] = 1;
+
+                box1.add(boxes.get(pick));
+
+                count1++;
+            }
+            left--;
+        }
+        return groups;
+    }
+
+    private final void condense(RNode<M> leaf)
+    {
+        ArrayList<Entry<M>> orphans = new ArrayList<Entry<M>>();
+
+        RNode<M> node = leaf;
+
+        while (null != node.m_parent)
+        {
+            RNode<M> parent = node.m_parent;
+
+            int size = node.m_leaf ? node.m_entries.size() : node.m_children.size();
+
+            if (size < MIN_ENTRIES)
+            {
+                parent.m_children.remove(node);
+
+                collect(node, orphans);
+            }
+            else
+            {
+                node.recalculate();
+            }
+            node = parent;
+        }
+        m_root.recalculate();
+
+        while ((false == m_root.m_leaf) && (m_root.m_children.size() == 1))
+        {
+            m_root = m_root.m_children.get(0);
+
+            m_root.m_parent = null;
+        }
+        if ((false == m_root.m_leaf) && (m_root.m_children.isEmpty()))
+        {
+            m_root = new RNode<M>(true);
+        }
+        for (Entry<M> entry : orphans)
+        {
+            insert(entry);
+        }
+    }
+
+    private static final <M> void collect(RNode<M> node, ArrayList<Entry<M>> orphans)
+    {
+        if (node.m_leaf)
+        {
+            orphans.addAll(node.m_entries);
+        }
+        else
+        {
+            for (RNode<M> child : node.m_children)
+            {
+                collect(child, orphans);
+            }
+        }
+    }
+
+    private static final class Entry<M>
+    {
+        private final M           m_value;
+
+        private final BoundingBox m_box;
+
+        private RNode<M>          m_leaf;
+
+        private Entry(M value, BoundingBox box)
+        {
+            m_value = value;
+
+            m_box = box;
+        }
+    }
+
+    private static final class RNode<M>
+    {
+        private final boolean             m_leaf;
+
+        private final ArrayList<Entry<M>> m_entries;
+
+        private final ArrayList<RNode<M>> m_children;
+
+        private RNode<M>                  m_parent;
+
+        private BoundingBox               m_box = new BoundingBox();
+
+        private RNode(boolean leaf)
+        {
+            m_leaf = leaf;
+
+            m_entries = leaf ? new ArrayList<Entry<M>>() : null;
+
+            m_children = leaf ? null : new ArrayList<RNode<M>>();
+        }
+
+        private final void addChild(RNode<M> child)
+        {
+            child.m_parent = this;
+
+            m_children.add(child);
+        }
+
+        private final void recalculate()
+        {
+            BoundingBox box = new BoundingBox();
+
+            if (m_leaf)
+            {
+                for (Entry<M> entry : m_entries)
+                {
+                    box.add(entry.m_box);
+                }
+            }
+            else
+            {
+                for (RNode<M> child : m_children)
+                {
+                    box.add(child.m_box);
+                }
+            }
+            m_box = box;
+        }
+    }
+
+    private static final class Candidate<M> implements Comparable<Candidate<M>>
+    {
+        private final double   m_distance;
+
+        private final RNode<M> m_node;
+
+        private final Entry<M> m_entry;
+
+        private Candidate(double distance, RNode<M> node, Entry<M> entry)
+        {
+            m_distance = distance;
+
+            m_node = node;
+
+            m_entry = entry;
+        }
+
+        @Override
+        public int compareTo(Candidate<M> other)
+        {
+            return Double.compare(m_distance, other.m_distance);
+        }
+    }
+}
@@ -449,17 +449,9 @@ public final class Transform
         // (ax3 + by3 + c ) = x3'
         // ( dx3 + ey3 + f) = y3'
 
-        Point2D p1 = src.getPoint(0);
-        Point2D p2 = src.getPoint(1);
-        Point2D p3 = src.getPoint(2);
+        double[][] eq = { { src.getX(0), src.getY(0), 1, 0, 0, 0 }, { 0, 0, 0, src.getX(0), src.getY(0), 1 }, { src.getX(1), src.getY(1), 1, 0, 0, 0 }, { 0, 0, 0, src.getX(1), src.getY(1), 1 }, { src.getX(2), src.getY(2), 1, 0, 0, 0 }, { 0, 0, 0, src.getX(2), src.getY(2), 1 }, };
 
-        Point2D p1_ = target.getPoint(0);
-        Point2D p2_ = target.getPoint(1);
-        Point2D p3_ = target.getPoint(2);
-
-        double[][] eq = { { p1.getX(), p1.getY(), 1, 0, 0, 0 }, { 0, 0, 0, p1.getX(), p1.getY(), 1 }, { p2.getX(), p2.getY(), 1, 0, 0, 0 }, { 0, 0, 0, p2.getX(), p2.getY(), 1 }, { p3.getX(), p3.getY(), 1, 0, 0, 0 }, { 0, 0, 0, p3.getX(), p3.getY(), 1 }, };
-
-        double[][] s = { { p1_.getX(), p1_.getY(), p2_.getX(), p2_.getY(), p3_.getX(), p3_.getY() } };
+        double[][] s = { { target.getX(0), target.getY(0), target.getX(1), target.getY(1), target.getX(2), target.getY(2) } };
         Matrix m = new Matrix(eq);
         Matrix rhs = new Matrix(s).transpose();
         Matrix T = m.solve(rhs);
@@ -0,0 +1,139 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.util;
+
+import com.emitrom.lienzo.shared.core.types.Color;
+
+/**
+ * Hands out the 24 bit color keys that {@link com.emitrom.lienzo.client.core.shape.Shape}s are drawn in on the selection layer.
+ * <p>
+ * Keys given back with {@link #release(int)} are handed out again before new ones, so an application that keeps
+ * creating and removing shapes does not run through the 16,777,215 keys and start handing out keys still in use.
+ * Key 0 (black) is never handed out, and a key given back twice, or never handed out, is not taken back.
+ */
+public final class ColorKeyAllocator
+{
+    private static final int MAX_KEY = 0xffffff;
+
+    private static int       s_next  = 0;
+
+    private static int[]     s_free  = new int[64];
+
+    private static int       s_size  = 0;
+
+    private static int       s_high  = 0;
+
+    private static int[]     s_bits  = new int[64]; // one bit per key, set while the key is in the free list
+
+    private ColorKeyAllocator()
+    {
+    }
+
+    /**
+     * Returns an unused key, between 1 and 0xFFFFFF.
+     * 
+     * @return int
+     */
+    public static final int acquire()
+    {
+        if (s_size > 0)
+        {
+            int key = s_free[--s_size];
+
+            s_bits[key >> 5] &= ~(1 << (key & 31));
+
+            return key;
+        }
+        if (s_next == MAX_KEY)
+        {
+            s_next = 0; // more than 16.7M shapes alive at once, keys start to be shared
+        }
+        s_next++;
+
+        if (s_next > s_high)
+        {
+            s_high = s_next;
+        }
+        return s_next;
+    }
+
+    /**
+     * Gives back a key from {@link #acquire()}, once nothing is drawn in it any more.
+     * 
+     * @param key
+     */
+    public static final void release(int key)
+    {
+        if ((key > 0) && (key <= s_high))
+        {
+            final int index = key >> 5;
+
+            if (index >= s_bits.length)
+            {
+                int[] bits = new int[Math.max(s_bits.length * 2, index + 1)];
+
+                for (int i = 0; i < s_bits.length; i++)
+                {
+                    bits[i] = s_bits[i];
+                }
+                s_bits = bits;
+            }
+            final int mask = 1 << (key & 31);
+
+            if (0 != (s_bits[index] & mask))
+            {
+                return; // already given back
+            }
+            s_bits[index] |= mask;
+
+            if (s_size == s_free.length)
+            {
+                int[] free = new int[s_free.length * 2];
+
+                for (int i = 0; i < s_size; i++)
+                {
+                    free[i] = s_free[i];
+                }
+                s_free = free;
+            }
+            s_free[s_size++] = key;
+        }
+    }
+
+    /**
+     * Returns the number of keys given back and waiting to be handed out again.
+     * 
+     * @return int
+     */
+    public static final int getFreeCount()
+    {
+        return s_size;
+    }
+
+    /**
+     * Returns the key as a browser color, e.g. "#00012C".
+     * 
+     * @param key
+     * @return String
+     */
+    public static final String toColorString(int key)
+    {
+        return Color.rgbToBrowserHexColor((key >> 16) & 0xff, (key >> 8) & 0xff, key & 0xff);
+    }
+}
@@ -83,6 +83,11 @@ public final class ScratchCanvas
         return m_context;
     }
 
+    public final CanvasElement getElement()
+    {
+        return m_element;
+    }
+
     public final String toDataURL()
     {
         if (null != m_element)
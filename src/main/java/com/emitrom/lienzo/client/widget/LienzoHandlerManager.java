@@ -19,6 +19,9 @@ package com.emitrom.lienzo.client.widget;
 
 import java.util.ArrayList;
 
+import com.emitrom.lienzo.client.core.animation.FrameScheduler;
+import com.emitrom.lienzo.client.core.animation.FrameScheduler.Phase;
+import com.emitrom.lienzo.client.core.animation.IFrameTask;
 import com.emitrom.lienzo.client.core.animation.LayerRedrawManager;
 import com.emitrom.lienzo.client.core.event.INodeXYEvent;
 import com.emitrom.lienzo.client.core.event.NodeDragEndEvent;
@@ -45,6 +48,7 @@ import com.emitrom.lienzo.client.core.event.TouchPoint;
 import com.emitrom.lienzo.client.core.mediator.Mediators;
 import com.emitrom.lienzo.client.core.shape.IPrimitive;
 import com.emitrom.lienzo.client.core.shape.Node;
+import com.emitrom.lienzo.client.core.shape.Scene;
 import com.emitrom.lienzo.client.core.shape.Shape;
 import com.emitrom.lienzo.shared.core.types.NodeType;
 import com.google.gwt.core.client.JsArray;
@@ -114,6 +118,14 @@ final class LienzoHandlerManager
 
     private Mediators         m_mediators;
 
+    private boolean           m_coalesce               = false;
+
+    private INodeXYEvent      m_move_event             = null;
+
+    private boolean           m_move_queued            = false;
+
+    private IFrameTask        m_move_task              = null;
+
     public LienzoHandlerManager(LienzoPanel lienzo)
     {
         m_lienzo = lienzo;
@@ -163,6 +175,8 @@ final class LienzoHandlerManager
             @Override
             public void onClick(ClickEvent event)
             {
+                flushMouseMove();
+
                 event.preventDefault();
 
                 onNodeMouseClick(new NodeMouseClickEvent(event));
@@ -173,6 +187,8 @@ final class LienzoHandlerManager
             @Override
             public void onDoubleClick(DoubleClickEvent event)
             {
+                flushMouseMove();
+
                 onNodeMouseDoubleClick(new NodeMouseDoubleClickEvent(event));
             }
         });
@@ -193,7 +209,7 @@ final class LienzoHandlerManager
                 {
                     return;
                 }
-                onNodeMouseMove(nodeEvent);
+                queueMouseMove(nodeEvent);
             }
         });
         m_lienzo.addMouseUpHandler(new MouseUpHandler()
@@ -201,6 +217,8 @@ final class LienzoHandlerManager
             @Override
             public void onMouseUp(MouseUpEvent event)
             {
+                flushMouseMove();
+
                 NodeMouseUpEvent nodeEvent = new NodeMouseUpEvent(event);
 
                 if (m_mediators.handleEvent(nodeEvent))
@@ -215,6 +233,8 @@ final class LienzoHandlerManager
             @Override
             public void onMouseDown(MouseDownEvent event)
             {
+                flushMouseMove();
+
                 event.preventDefault();
 
                 NodeMouseDownEvent nodeEvent = new NodeMouseDownEvent(event);
@@ -231,6 +251,8 @@ final class LienzoHandlerManager
             @Override
             public void onMouseOut(MouseOutEvent event)
             {
+                flushMouseMove();
+
                 NodeMouseOutEvent nodeEvent = new NodeMouseOutEvent(event);
 
                 if (m_mediators.handleEvent(nodeEvent))
@@ -245,6 +267,8 @@ final class LienzoHandlerManager
             @Override
             public void onMouseOver(MouseOverEvent event)
             {
+                flushMouseMove();
+
                 NodeMouseOverEvent nodeEvent = new NodeMouseOverEvent(event);
 
                 if (m_mediators.handleEvent(nodeEvent))
@@ -259,6 +283,8 @@ final class LienzoHandlerManager
             @Override
             public void onMouseWheel(MouseWheelEvent event)
             {
+                flushMouseMove();
+
                 NodeMouseWheelEvent nodeEvent = new NodeMouseWheelEvent(event);
 
                 if (false == m_mediators.handleEvent(nodeEvent))
@@ -278,6 +304,8 @@ final class LienzoHandlerManager
             @Override
             public void onTouchCancel(TouchCancelEvent event)
             {
+                flushMouseMove();
+
                 event.preventDefault();
 
                 NodeTouchCancelEvent nodeEvent = new NodeTouchCancelEvent(getTouches(event));
@@ -294,6 +322,8 @@ final class LienzoHandlerManager
             @Override
             public void onTouchEnd(TouchEndEvent event)
             {
+                flushMouseMove();
+
                 event.preventDefault();
 
                 NodeTouchEndEvent nodeEvent = new NodeTouchEndEvent(m_touches);
@@ -320,7 +350,7 @@ final class LienzoHandlerManager
                 {
                     return;
                 }
-                onNodeMouseMove(nodeEvent);
+                queueMouseMove(nodeEvent);
             }
         });
         m_lienzo.addTouchStartHandler(new TouchStartHandler()
@@ -328,6 +358,8 @@ final class LienzoHandlerManager
             @Override
             public void onTouchStart(TouchStartEvent event)
             {
+                flushMouseMove();
+
                 event.preventDefault();
 
                 m_touches = getTouches(event);
@@ -391,9 +423,93 @@ final class LienzoHandlerManager
         });
     }
 
+    /**
+     * Sets whether mouse and touch moves are collapsed to the latest one in each animation frame.
+     * Any other pointer event first dispatches the pending move, so that the order of events is kept.
+     */
+    final void setEventCoalescing(boolean coalesce)
+    {
+        if (false == coalesce)
+        {
+            flushMouseMove();
+        }
+        m_coalesce = coalesce;
+    }
+
+    final boolean isEventCoalescing()
+    {
+        return m_coalesce;
+    }
+
+    private final void queueMouseMove(INodeXYEvent event)
+    {
+        if (false == m_coalesce)
+        {
+            onNodeMouseMove(event);
+
+            return;
+        }
+        m_move_event = event;
+
+        if (false == m_move_queued)
+        {
+            if (null == m_move_task)
+            {
+                m_move_task = new IFrameTask()
+                {
+                    @Override
+                    public boolean onFrame(double time)
+                    {
+                        m_move_queued = false;
+
+                        flushMouseMove();
+
+                        return false;
+                    }
+                };
+            }
+            m_move_queued = true;
+
+            FrameScheduler.get().add(Phase.INPUT, m_move_task);
+        }
+    }
+
+    private final void flushMouseMove()
+    {
+        if (null != m_move_event)
+        {
+            INodeXYEvent event = m_move_event;
+
+            m_move_event = null;
+
+            onNodeMouseMove(event);
+        }
+    }
+
     private final Shape<?> findShapeAtPoint(int x, int y)
     {
-        return m_lienzo.getViewport().findShapeAtPoint(x, y);
+        return m_lienzo.getViewport().findPickableShapeAtPoint(x, y);
+    }
+
+    // Picking can be skipped when no Shape or Group in the Scene could take the event
+
+    private final boolean isEventHandled(Type<?> type)
+    {
+        Scene scene = m_lienzo.getViewport().getScene();
+
+        return ((null != scene) && (scene.hasEventHandlers(type)));
+    }
+
+    private final boolean isEnterExitHandled()
+    {
+        return ((isEventHandled(NodeMouseEnterEvent.getType())) || (isEventHandled(NodeMouseExitEvent.getType())));
+    }
+
+    private final boolean hasDraggables()
+    {
+        Scene scene = m_lienzo.getViewport().getScene();
+
+        return ((null != scene) && (scene.hasDraggables()));
     }
 
     private final void doDragCancel(INodeXYEvent event)
@@ -505,10 +621,19 @@ final class LienzoHandlerManager
     }
 
     private final IPrimitive<?> findPrimitiveForEvent(INodeXYEvent event, Type<?> type)
+    {
+        if (false == isEventHandled(type))
+        {
+            return null;
+        }
+        return findPrimitiveForShape(findShapeAtPoint(event.getX(), event.getY()), type);
+    }
+
+    private final IPrimitive<?> findPrimitiveForShape(Shape<?> shape, Type<?> type)
     {
         IPrimitive<?> find = null;
 
-        Node<?> node = findShapeAtPoint(event.getX(), event.getY());
+        Node<?> node = shape;
 
         while ((null != node) && (node.getNodeType() != NodeType.LAYER))
         {
@@ -523,11 +648,11 @@ final class LienzoHandlerManager
         return find;
     }
 
-    private final void doPrepareDragging(INodeXYEvent event)
+    private final void doPrepareDragging(INodeXYEvent event, Shape<?> shape)
     {
         IPrimitive<?> find = null;
 
-        Node<?> node = findShapeAtPoint(event.getX(), event.getY());
+        Node<?> node = shape;
 
         while ((null != node) && (node.getNodeType() != NodeType.LAYER))
         {
@@ -580,10 +705,8 @@ final class LienzoHandlerManager
 
     // This will also return the shape under the cursor, for some optimization on Mouse Move
 
-    private final Shape<?> doCheckEnterExitShape(INodeXYEvent event)
+    private final Shape<?> doCheckEnterExitShape(INodeXYEvent event, Shape<?> shape)
     {
-        Shape<?> shape = findShapeAtPoint(event.getX(), event.getY());
-
         if (shape != null)
         {
             IPrimitive<?> prim = shape.asPrimitive();
@@ -614,22 +737,31 @@ final class LienzoHandlerManager
         return shape;
     }
 
+    // Picks once, and uses the shape for drag start, enter/exit and the move itself
+
     private final void onNodeMouseMove(INodeXYEvent event)
     {
+        Shape<?> shape = null;
+
+        boolean picked = false;
+
         if (m_dragging_mouse_pressed)
         {
-            if (false == m_dragging)
+            if ((false == m_dragging) && (hasDraggables()))
             {
-                doPrepareDragging(event);
+                shape = findShapeAtPoint(event.getX(), event.getY());
 
-                if (false == m_dragging)
-                {
-                    // Don't pick up any draggable objects along the way - LIENZO-88
-                    //
-                    // Not sure about this, it may interfere with deferred mouse click handling
+                picked = true;
 
-                    m_dragging_mouse_pressed = false;
-                }
+                doPrepareDragging(event, shape);
+            }
+            if (false == m_dragging)
+            {
+                // Don't pick up any draggable objects along the way - LIENZO-88
+                //
+                // Not sure about this, it may interfere with deferred mouse click handling
+
+                m_dragging_mouse_pressed = false;
             }
         }
         if (m_dragging)
@@ -638,9 +770,15 @@ final class LienzoHandlerManager
 
             return;
         }
-        doCheckEnterExitShape(event);
+        Type<?> type = event.getNodeEvent().getAssociatedType();
 
-        IPrimitive<?> prim = findPrimitiveForEvent(event, event.getNodeEvent().getAssociatedType());
+        if ((false == picked) && ((isEventHandled(type)) || (isEnterExitHandled())))
+        {
+            shape = findShapeAtPoint(event.getX(), event.getY());
+        }
+        doCheckEnterExitShape(event, shape);
+
+        IPrimitive<?> prim = findPrimitiveForShape(shape, type);
 
         if (null != prim)
         {
@@ -691,7 +829,13 @@ final class LienzoHandlerManager
 
     private final void onNodeMouseOver(INodeXYEvent event)
     {
-        Node<?> node = doCheckEnterExitShape(event);
+        Shape<?> shape = null;
+
+        if ((isEventHandled(NodeMouseOverEvent.getType())) || (isEnterExitHandled()))
+        {
+            shape = findShapeAtPoint(event.getX(), event.getY());
+        }
+        Node<?> node = doCheckEnterExitShape(event, shape);
 
         if ((null != node) && (node.isListening()) && (node.isVisible()) && (node.isEventHandled(NodeMouseOverEvent.getType())))
         {
@@ -31,6 +31,7 @@ import com.emitrom.lienzo.client.core.shape.Scene;
 import com.emitrom.lienzo.client.core.shape.Viewport;
 import com.emitrom.lienzo.shared.core.types.DataURLType;
 import com.emitrom.lienzo.shared.core.types.IColor;
+import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Style.Cursor;
@@ -235,6 +236,30 @@ public class LienzoPanel extends FocusPanel
         return m_resize_check_repeat_interval;
     }
 
+    /**
+     * Sets whether mouse and touch moves are collapsed to the latest one in each animation frame.
+     * The shape under the pointer is then found once per frame, and a drag is updated once per frame,
+     * however fast the device reports moves. Other pointer events are not delayed.
+     * 
+     * Default value is false.
+     * 
+     * @param coalesce
+     * @return this LienzoPanel
+     */
+    public LienzoPanel setEventCoalescing(boolean coalesce)
+    {
+        if (null != m_events)
+        {
+            m_events.setEventCoalescing(coalesce);
+        }
+        return this;
+    }
+
+    public boolean isEventCoalescing()
+    {
+        return ((null != m_events) && (m_events.isEventCoalescing()));
+    }
+
     /**
      * Gets the width in pixels.
      * 
@@ -264,6 +289,15 @@ public class LienzoPanel extends FocusPanel
         return m_view.toJSONString();
     }
 
+    /**
+     * Returns the {@link Viewport} in the compact binary form of its JSON, as an ArrayBuffer.
+     * @return
+     */
+    public JavaScriptObject toBinary()
+    {
+        return m_view.toBinary();
+    }
+
     public final String toDataURL()
     {
         return m_view.toDataURL();
@@ -0,0 +1,166 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.emitrom.lienzo.client.core.shape;
+
+import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class CopyGwtTest extends GWTTestCase
+{
+    @Override
+    public String getModuleName()
+    {
+        return "com.emitrom.lienzo.Lienzo";
+    }
+
+    public void testShapeWithStyle()
+    {
+        Style style = new Style().setFillColor("blue").setStrokeWidth(3);
+
+        Rectangle rect = new Rectangle(20, 10).setX(5).setY(6).setStrokeColor("red").setStyle(style);
+
+        rect.setID("rect");
+
+        Rectangle copy = rect.copy();
+
+        Rectangle read = (Rectangle) readBack(rect);
+
+        assertSame(style, copy.getStyle());
+
+        assertNotNull(read.getStyle());
+
+        assertEquals("blue", read.getStyle().getFillColor());
+
+        assertEquals("rect", copy.getID());
+
+        assertEquals(read.getID(), copy.getID());
+
+        assertEquals(5.0, copy.getX());
+
+        assertEquals(10.0, copy.getHeight());
+
+        assertEquals(toJSONString(read), toJSONString(copy));
+
+        copy.setX(50);
+
+        assertEquals(5.0, rect.getX()); // the attributes are not shared
+    }
+
+    public void testShapeWithoutID()
+    {
+        Circle circle = new Circle(7);
+
+        Circle copy = circle.copy();
+
+        Circle read = (Circle) readBack(circle);
+
+        assertEquals(read.getID(), copy.getID());
+
+        assertEquals(toJSONString(read), toJSONString(copy));
+    }
+
+    public void testGroupWithChildren()
+    {
+        Group group = new Group().setX(1);
+
+        group.setID("group");
+
+        Group nest = new Group().setY(2);
+
+        nest.setID("nest");
+
+        nest.add(new Circle(3).setID("circle"));
+
+        group.add(new Rectangle(1, 2).setID("first"));
+
+        group.add(nest);
+
+        group.add(new Line(0, 0, 10, 10).setID("last"));
+
+        Group copy = group.copy();
+
+        Group read = (Group) readBack(group);
+
+        assertEquals(toJSONString(read), toJSONString(copy));
+
+        assertEquals("group", copy.getID());
+
+        assertEquals(3, copy.length());
+
+        assertEquals(read.length(), copy.length());
+
+        for (int i = 0; i < 3; i++)
+        {
+            IPrimitive<?> kid = copy.getChildNodes().get(i);
+
+            assertNotSame(group.getChildNodes().get(i), kid);
+
+            assertEquals(group.getChildNodes().get(i).asNode().getID(), kid.asNode().getID());
+
+            assertEquals(read.getChildNodes().get(i).asNode().getID(), kid.asNode().getID());
+
+            assertSame(copy, kid.asNode().getParent());
+        }
+        Group kids = (Group) copy.getChildNodes().get(1);
+
+        assertEquals(1, kids.length());
+
+        assertEquals("circle", kids.getChildNodes().get(0).asNode().getID());
+
+        assertEquals(3, group.length()); // the original keeps its children
+    }
+
+    public void testGridLayer()
+    {
+        GridLayer grid = new GridLayer(20, new Line().setStrokeColor("red"), 5, new Line().setStrokeColor("gray"));
+
+        grid.setID("grid");
+
+        GridLayer copy = (GridLayer) grid.copy();
+
+        GridLayer read = (GridLayer) readBack(grid);
+
+        assertEquals(toJSONString(read), toJSONString(copy));
+
+        assertEquals("grid", copy.getID());
+
+        assertEquals(20.0, copy.getPrimarySizeX());
+
+        assertEquals(5.0, copy.getSecondarySizeY());
+
+        assertNotSame(grid.getPrimaryLineX(), copy.getPrimaryLineX());
+
+        assertEquals("red", copy.getPrimaryLineX().getStrokeColor());
+
+        assertEquals(read.getSecondaryLineY().getStrokeColor(), copy.getSecondaryLineY().getStrokeColor());
+    }
+
+    private static final IJSONSerializable<?> readBack(IJSONSerializable<?> node)
+    {
+        IJSONSerializable<?> read = JSONDeserializer.getInstance().fromString(node.toJSONString());
+
+        assertNotNull(read);
+
+        return read;
+    }
+
+    private static final String toJSONString(IJSONSerializable<?> node)
+    {
+        return node.toJSONString().replaceAll("style\\d+", "style"); // Style ids are given out again on every write
+    }
+}
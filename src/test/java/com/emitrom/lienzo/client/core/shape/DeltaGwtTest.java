@@ -0,0 +1,236 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape;
+
+import com.emitrom.lienzo.client.core.Attribute;
+import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class DeltaGwtTest extends GWTTestCase
+{
+    private Group     m_send;
+
+    private Rectangle m_rect;
+
+    private Circle    m_circ;
+
+    private Group     m_nest;
+
+    private Rectangle m_deep;
+
+    private Group     m_read;
+
+    @Override
+    public String getModuleName()
+    {
+        return "com.emitrom.lienzo.Lienzo";
+    }
+
+    @Override
+    protected void gwtSetUp()
+    {
+        m_send = new Group();
+
+        m_rect = new Rectangle(10, 20).setFillColor("red");
+
+        m_circ = new Circle(5).setID("circle");
+
+        m_nest = new Group();
+
+        m_deep = new Rectangle(1, 2);
+
+        m_nest.add(m_deep);
+
+        m_send.add(m_rect);
+
+        m_send.add(m_circ);
+
+        m_send.add(m_nest);
+
+        m_send.checkpoint();
+
+        m_read = (Group) JSONDeserializer.getInstance().fromString(m_send.toJSONString());
+
+        assertNotNull(m_read);
+    }
+
+    public void testCheckpointGivesIDs()
+    {
+        assertNotNull(m_send.getID());
+
+        assertNotNull(m_rect.getID());
+
+        assertNotNull(m_deep.getID());
+
+        assertEquals("circle", m_circ.getID());
+
+        assertFalse(m_rect.getID().equals(m_deep.getID()));
+    }
+
+    public void testNoChangesIsEmpty()
+    {
+        assertEquals(0, getChanges(m_send.toJSONDelta()).size());
+    }
+
+    public void testAttributeChange()
+    {
+        m_rect.setX(5).setStrokeWidth(2);
+
+        JSONArray list = getChanges(m_send.toJSONDelta());
+
+        assertEquals(1, list.size());
+
+        JSONObject change = list.get(0).isObject();
+
+        assertEquals(m_rect.getID(), change.get("id").isString().stringValue());
+
+        assertEquals(2, change.get("attributes").isObject().size());
+
+        assertApplies();
+    }
+
+    public void testDeletedAttribute()
+    {
+        m_rect.getAttributes().delete(Attribute.FILL.getProperty());
+
+        JSONObject change = getChanges(m_send.toJSONDelta()).get(0).isObject();
+
+        assertEquals("[\"fill\"]", change.get("deleted").toString());
+
+        assertApplies();
+
+        assertNull(((Rectangle) m_read.getChildNodes().get(0)).getFillColor());
+    }
+
+    public void testOnlyChangedNodesAreWritten()
+    {
+        m_deep.setY(7);
+
+        JSONArray list = getChanges(m_send.toJSONDelta());
+
+        assertEquals(1, list.size());
+
+        assertEquals(m_deep.getID(), list.get(0).isObject().get("id").isString().stringValue());
+
+        assertApplies();
+    }
+
+    public void testCheckpointClearsChanges()
+    {
+        m_rect.setX(5);
+
+        m_send.checkpoint();
+
+        assertEquals(0, getChanges(m_send.toJSONDelta()).size());
+    }
+
+    public void testRemoveAddAndReorder()
+    {
+        m_send.remove(m_circ);
+
+        m_send.moveToTop(m_rect);
+
+        Group kids = new Group();
+
+        kids.add(new Text("text"));
+
+        m_send.add(kids);
+
+        m_send.moveToBottom(kids);
+
+        m_nest.add(new Circle(3));
+
+        assertApplies();
+
+        assertEquals(3, m_read.getChildNodes().length());
+    }
+
+    public void testAddedNodesCanBeChangedLater()
+    {
+        Rectangle added = new Rectangle(3, 4);
+
+        Group kids = new Group();
+
+        Circle inner = new Circle(2);
+
+        kids.add(inner);
+
+        m_send.add(added);
+
+        m_send.add(kids);
+
+        assertApplies();
+
+        m_send.checkpoint();
+
+        added.setX(11);
+
+        inner.setRadius(9);
+
+        assertApplies();
+    }
+
+    public void testSeveralRounds()
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            m_rect.setX(i);
+
+            m_nest.add(new Rectangle(i + 1, i + 1));
+
+            if (i > 1)
+            {
+                m_nest.remove(m_nest.getChildNodes().get(0));
+            }
+            assertApplies();
+
+            m_send.checkpoint();
+        }
+    }
+
+    public void testBadDeltas()
+    {
+        assertFalse(m_read.applyDelta(null));
+
+        assertFalse(m_read.applyDelta(" "));
+
+        assertFalse(m_read.applyDelta("{}"));
+
+        assertFalse(m_read.applyDelta("{\"delta\":5}"));
+
+        assertFalse(m_read.applyDelta("{\"delta\":[{\"id\":\"nothing\", \"attributes\":{\"x\":1}}]}"));
+
+        assertTrue(m_read.applyDelta("{\"delta\":[]}"));
+    }
+
+    private final void assertApplies()
+    {
+        assertTrue(m_read.applyDelta(m_send.toJSONDelta()));
+
+        assertEquals(m_send.toJSONString(), m_read.toJSONString());
+    }
+
+    private static final JSONArray getChanges(String delta)
+    {
+        return JSONParser.parseStrict(delta).isObject().get("delta").isArray();
+    }
+}
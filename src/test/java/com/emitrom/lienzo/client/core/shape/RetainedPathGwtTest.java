@@ -0,0 +1,227 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape;
+
+import com.emitrom.lienzo.client.core.Context2D;
+import com.emitrom.lienzo.client.core.NativeContext2D;
+import com.emitrom.lienzo.client.core.types.BoundingBox;
+import com.emitrom.lienzo.client.core.types.PathBuffer;
+import com.emitrom.lienzo.client.core.types.Point2D;
+import com.emitrom.lienzo.client.core.types.Point2DArray;
+import com.emitrom.lienzo.shared.core.types.ArrowType;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class RetainedPathGwtTest extends GWTTestCase
+{
+    @Override
+    public String getModuleName()
+    {
+        return "com.emitrom.lienzo.Lienzo";
+    }
+
+    public void testSetPointInPlaceRebuildsPolygon()
+    {
+        Polygon polygon = new Polygon(new Point2DArray(new Point2D(0, 0), new Point2D(10, 0), new Point2D(10, 10)));
+
+        assertEquals("M0,0 L10,0 L10,10 Z", getPath(polygon));
+
+        assertEquals(10.0, polygon.getBoundingBox().getMaxX());
+
+        polygon.getPoints().setPoint(1, new Point2D(30, 0));
+
+        assertEquals("M0,0 L30,0 L10,10 Z", getPath(polygon));
+
+        assertEquals(30.0, polygon.getBoundingBox().getMaxX());
+    }
+
+    public void testPushAndPopInPlaceRebuildsPolyLine()
+    {
+        PolyLine line = new PolyLine(new Point2DArray(new Point2D(0, 0), new Point2D(10, 0)));
+
+        assertEquals("M0,0 L10,0", getPath(line));
+
+        line.getPoints().push(new Point2D(10, 20)).push(5, 25);
+
+        assertEquals("M0,0 L10,0 L10,20 L5,25", getPath(line));
+
+        assertEquals(25.0, line.getBoundingBox().getMaxY());
+
+        line.getPoints().pop().shift();
+
+        assertEquals("M10,0 L10,20", getPath(line));
+
+        BoundingBox bbox = line.getBoundingBox();
+
+        assertEquals(10.0, bbox.getMinX());
+
+        assertEquals(20.0, bbox.getMaxY());
+    }
+
+    public void testPackedInPlaceRebuildsPolygon()
+    {
+        Point2DArray points = Point2DArray.packed(0, 0, 10, 0, 10, 10);
+
+        Polygon polygon = new Polygon(points);
+
+        assertEquals("M0,0 L10,0 L10,10 Z", getPath(polygon));
+
+        points.setPoint(1, new Point2D(30, 0));
+
+        assertEquals("M0,0 L30,0 L10,10 Z", getPath(polygon));
+
+        assertEquals(30.0, polygon.getBoundingBox().getMaxX());
+
+        polygon.getPoints().push(-5, 40);
+
+        assertTrue(polygon.getPoints().isPacked());
+
+        assertEquals("M0,0 L30,0 L10,10 L-5,40 Z", getPath(polygon));
+
+        BoundingBox bbox = polygon.getBoundingBox();
+
+        assertEquals(-5.0, bbox.getMinX());
+
+        assertEquals(40.0, bbox.getMaxY());
+
+        polygon.getPoints().pop();
+
+        assertEquals("M0,0 L30,0 L10,10 Z", getPath(polygon));
+
+        assertEquals(10.0, polygon.getBoundingBox().getMaxY());
+    }
+
+    public void testArrayGivenToShapeStaysLive()
+    {
+        Point2DArray points = new Point2DArray(new Point2D(0, 0), new Point2D(10, 0), new Point2D(10, 10));
+
+        Polygon polygon = new Polygon(points);
+
+        assertEquals(10.0, polygon.getBoundingBox().getMaxY());
+
+        getPath(polygon);
+
+        points.setPoint(2, new Point2D(10, 40));
+
+        assertEquals("M0,0 L10,0 L10,40 Z", getPath(polygon));
+
+        assertEquals(40.0, polygon.getBoundingBox().getMaxY());
+    }
+
+    public void testReplacedArrayNoLongerChangesShape()
+    {
+        Point2DArray old = new Point2DArray(new Point2D(0, 0), new Point2D(10, 0), new Point2D(10, 10));
+
+        Polygon polygon = new Polygon(old);
+
+        polygon.setPoints(new Point2DArray(new Point2D(0, 0), new Point2D(5, 0), new Point2D(5, 5)));
+
+        assertEquals("M0,0 L5,0 L5,5 Z", getPath(polygon));
+
+        old.setPoint(0, new Point2D(-100, -100));
+
+        assertEquals("M0,0 L5,0 L5,5 Z", getPath(polygon));
+
+        assertEquals(0.0, polygon.getBoundingBox().getMinX());
+    }
+
+    public void testArrowEndInPlace()
+    {
+        Arrow arrow = new Arrow(new Point2D(0, 0), new Point2D(100, 0), 10, 20, 45, 45, ArrowType.AT_END);
+
+        double right = arrow.getBoundingBox().getMaxX();
+
+        String path = getPath(arrow);
+
+        arrow.getPoints().setPoint(1, new Point2D(200, 0));
+
+        assertFalse(path.equals(getPath(arrow)));
+
+        assertEquals(right + 100, arrow.getBoundingBox().getMaxX(), 1e-9);
+
+        arrow.setEnd(new Point2D(50, 0));
+
+        assertEquals(right - 50, arrow.getBoundingBox().getMaxX(), 1e-9);
+    }
+
+    public void testInPlaceEditIsInDelta()
+    {
+        Polygon polygon = new Polygon(new Point2DArray(new Point2D(0, 0), new Point2D(10, 0), new Point2D(10, 10)));
+
+        polygon.checkpoint();
+
+        polygon.getPoints().setPoint(0, new Point2D(1, 1));
+
+        assertTrue(polygon.toJSONDelta(), polygon.toJSONDelta().contains("\"points\""));
+    }
+
+    /**
+     * Returns the path the Shape replays into the context, as "M0,0 L10,0 Z".
+     */
+    static final String getPath(Shape<?> shape)
+    {
+        PathContext context = new PathContext();
+
+        shape.prepare(context, shape.getAttributes(), 1);
+
+        return context.m_text.toString().trim();
+    }
+
+    /**
+     * Writes down the commands of the retained path, without a canvas behind it.
+     */
+    static final class PathContext extends Context2D
+    {
+        private final StringBuilder m_text = new StringBuilder();
+
+        PathContext()
+        {
+            super(JavaScriptObject.createObject().<NativeContext2D> cast());
+        }
+
+        @Override
+        public void path(PathBuffer path)
+        {
+            path.replay(this);
+        }
+
+        @Override
+        public void moveTo(double x, double y)
+        {
+            m_text.append(" M").append(format(x)).append(',').append(format(y));
+        }
+
+        @Override
+        public void lineTo(double x, double y)
+        {
+            m_text.append(" L").append(format(x)).append(',').append(format(y));
+        }
+
+        @Override
+        public void closePath()
+        {
+            m_text.append(" Z");
+        }
+
+        private static final String format(double v)
+        {
+            return (v == Math.floor(v)) ? String.valueOf((long) v) : String.valueOf(v);
+        }
+    }
+}
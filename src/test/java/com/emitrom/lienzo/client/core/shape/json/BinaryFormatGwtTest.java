@@ -0,0 +1,312 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape.json;
+
+import com.emitrom.lienzo.client.core.shape.Circle;
+import com.emitrom.lienzo.client.core.shape.Group;
+import com.emitrom.lienzo.client.core.shape.IJSONSerializable;
+import com.emitrom.lienzo.client.core.shape.Polygon;
+import com.emitrom.lienzo.client.core.shape.Rectangle;
+import com.emitrom.lienzo.client.core.shape.Style;
+import com.emitrom.lienzo.client.core.shape.Text;
+import com.emitrom.lienzo.client.core.types.Point2DArray;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONBoolean;
+import com.google.gwt.json.client.JSONNull;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.junit.client.GWTTestCase;
+
+/**
+ * The binary format needs ArrayBuffer and DataView. The HtmlUnit browser of older GWT versions does not
+ * have them, so each test returns early there; run these in a real browser, or with a newer GWT, to cover them.
+ */
+public class BinaryFormatGwtTest extends GWTTestCase
+{
+    @Override
+    public String getModuleName()
+    {
+        return "com.emitrom.lienzo.Lienzo";
+    }
+
+    public void testNullIsNull()
+    {
+        assertNull(BinaryFormat.encode(null));
+
+        assertNull(BinaryFormat.decode(null));
+    }
+
+    public void testValuesRoundTrip()
+    {
+        if (false == hasTypedArrays())
+        {
+            return;
+        }
+        JSONObject json = new JSONObject();
+
+        json.put("zero", new JSONNumber(0));
+
+        json.put("small", new JSONNumber(-1));
+
+        json.put("max", new JSONNumber(Integer.MAX_VALUE));
+
+        json.put("min", new JSONNumber(Integer.MIN_VALUE));
+
+        json.put("big", new JSONNumber(9007199254740991.0)); // past 32 bits, written as a double
+
+        json.put("half", new JSONNumber(0.5)); // exact as a float
+
+        json.put("tenth", new JSONNumber(0.1)); // not exact as a float
+
+        json.put("text", new JSONString("h\u00e9llo \u2603 \ud834\udd1e"));
+
+        json.put("empty", new JSONString(""));
+
+        json.put("yes", JSONBoolean.getInstance(true));
+
+        json.put("no", JSONBoolean.getInstance(false));
+
+        json.put("none", JSONNull.getInstance());
+
+        json.put("list", new JSONArray());
+
+        json.put("nest", JSONParser.parseStrict("{\"a\":[1,[2,\"text\"],{\"b\":null}],\"c\":{}}"));
+
+        assertRoundTrip(json);
+    }
+
+    public void testPointListsRoundTrip()
+    {
+        if (false == hasTypedArrays())
+        {
+            return;
+        }
+        JSONObject json = new JSONObject();
+
+        json.put("exact", JSONParser.parseStrict("[{\"x\":1,\"y\":2},{\"x\":-3.5,\"y\":0.25}]"));
+
+        json.put("wide", JSONParser.parseStrict("[{\"x\":0.1,\"y\":2},{\"x\":1e300,\"y\":-1e-300}]"));
+
+        json.put("extra", JSONParser.parseStrict("[{\"x\":1,\"y\":2,\"z\":3}]")); // not a point, kept as an object
+
+        json.put("mixed", JSONParser.parseStrict("[{\"x\":1,\"y\":2},5]"));
+
+        json.put("text", JSONParser.parseStrict("[{\"x\":\"1\",\"y\":2}]"));
+
+        assertRoundTrip(json);
+    }
+
+    public void testRepeatedStringsAreWrittenOnce()
+    {
+        if (false == hasTypedArrays())
+        {
+            return;
+        }
+        JSONObject one = new JSONObject();
+
+        one.put("name", new JSONString("a long repeated string value"));
+
+        JSONObject two = new JSONObject();
+
+        JSONArray list = new JSONArray();
+
+        for (int i = 0; i < 10; i++)
+        {
+            JSONObject item = new JSONObject();
+
+            item.put("name", new JSONString("a long repeated string value"));
+
+            list.set(i, item);
+        }
+        two.put("list", list);
+
+        assertRoundTrip(two);
+
+        // each repeat costs a few bytes of tags and indexes, rather than the string again
+
+        assertTrue(getByteLength(BinaryFormat.encode(two)) < getByteLength(BinaryFormat.encode(one)) + 10 * 8);
+    }
+
+    public void testBadBuffersDecodeToNull()
+    {
+        if (false == hasTypedArrays())
+        {
+            return;
+        }
+        assertNull(BinaryFormat.decode(makeBuffer(new int[0])));
+
+        assertNull(BinaryFormat.decode(makeBuffer(new int[] { 0x4C, 0x5A, 0x42, 2, 9, 0 }))); // unknown version
+
+        assertNull(BinaryFormat.decode(makeBuffer(new int[] { 0x4C, 0x5A, 0x42, 1, 8, 0 }))); // an array, not an object
+
+        assertNull(BinaryFormat.decode(makeBuffer(new int[] { 0x4C, 0x5A, 0x42, 1, 99 }))); // unknown tag
+
+        assertNotNull(BinaryFormat.decode(makeBuffer(new int[] { 0x4C, 0x5A, 0x42, 1, 9, 0 })));
+
+        assertNull(BinaryFormat.decode(makeBuffer(new int[] { 0x4C, 0x5A, 0x42, 1, 9, 0, 0 }))); // trailing byte
+    }
+
+    public void testTruncatedBuffersDecodeToNull()
+    {
+        if (false == hasTypedArrays())
+        {
+            return;
+        }
+        JavaScriptObject buffer = makeGroup().toBinary();
+
+        final int leng = getByteLength(buffer);
+
+        for (int i = 0; i < leng; i++)
+        {
+            assertNull("length " + i, BinaryFormat.decode(slice(buffer, i)));
+        }
+        assertNotNull(BinaryFormat.decode(slice(buffer, leng)));
+    }
+
+    public void testNodeRoundTrip()
+    {
+        if (false == hasTypedArrays())
+        {
+            return;
+        }
+        Group group = makeGroup();
+
+        JavaScriptObject buffer = group.toBinary();
+
+        IJSONSerializable<?> read = JSONDeserializer.getInstance().fromBinary(buffer);
+
+        assertNotNull(read);
+
+        assertEquals(group.toJSONString(), read.toJSONString());
+
+        assertTrue(getByteLength(buffer) < group.toJSONString().length());
+    }
+
+    public void testSharedStyleRoundTrip()
+    {
+        if (false == hasTypedArrays())
+        {
+            return;
+        }
+        Style style = new Style().setFillColor("red").setStrokeWidth(3);
+
+        Group group = new Group();
+
+        group.add(new Rectangle(10, 20).setStyle(style));
+
+        group.add(new Circle(5).setStyle(style));
+
+        Group read = (Group) JSONDeserializer.getInstance().fromBinary(group.toBinary());
+
+        assertNotNull(read);
+
+        // Style IDs are numbered as they are serialized, so they differ the second time
+
+        assertEquals(group.toJSONString().replaceAll("style\\d+", "style"), read.toJSONString().replaceAll("style\\d+", "style"));
+
+        Rectangle rect = (Rectangle) read.getChildNodes().get(0);
+
+        Circle circ = (Circle) read.getChildNodes().get(1);
+
+        assertNotNull(rect.getStyle());
+
+        assertSame(rect.getStyle(), circ.getStyle());
+
+        assertEquals("red", circ.getFillColor());
+    }
+
+    private static final Group makeGroup()
+    {
+        Group group = new Group().setID("root");
+
+        group.add(new Rectangle(10.5, 20).setX(-3).setFillColor("#00ff00"));
+
+        group.add(new Circle(0.1).setDraggable(true));
+
+        group.add(new Text("h\u00e9llo \u2603", "serif", 12));
+
+        group.add(new Polygon(Point2DArray.packed(0, 0, 10, 0.1, 10, 10)));
+
+        Group nest = new Group();
+
+        nest.add(new Rectangle(1, 2));
+
+        group.add(nest);
+
+        return group;
+    }
+
+    private static final void assertRoundTrip(JSONObject json)
+    {
+        JSONObject read = BinaryFormat.decode(BinaryFormat.encode(json));
+
+        assertNotNull(read);
+
+        assertEquals(json.toString(), read.toString());
+    }
+
+    private static final native boolean hasTypedArrays()
+    /*-{
+		return !!($wnd.ArrayBuffer && $wnd.DataView && $wnd.Uint8Array && $wnd.Float32Array);
+    }-*/;
+
+    private static final native int getByteLength(JavaScriptObject buffer)
+    /*-{
+		return buffer.byteLength;
+    }-*/;
+
+    private static final native JavaScriptObject slice(JavaScriptObject buffer, int leng)
+    /*-{
+		var copy = new $wnd.ArrayBuffer(leng);
+
+		var from = new $wnd.Uint8Array(buffer);
+
+		var to = new $wnd.Uint8Array(copy);
+
+		for (var i = 0; i < leng; i++) {
+			to[i] = from[i];
+		}
+
+		return copy;
+    }-*/;
+
+    private static final JavaScriptObject makeBuffer(int[] values)
+    {
+        JavaScriptObject buffer = makeBuffer0(values.length);
+
+        for (int i = 0; i < values.length; i++)
+        {
+            setByte(buffer, i, values[i]);
+        }
+        return buffer;
+    }
+
+    private static final native JavaScriptObject makeBuffer0(int leng)
+    /*-{
+		return new $wnd.ArrayBuffer(leng);
+    }-*/;
+
+    private static final native void setByte(JavaScriptObject buffer, int i, int value)
+    /*-{
+		new $wnd.Uint8Array(buffer)[i] = value;
+    }-*/;
+}
@@ -0,0 +1,252 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.shape.json;
+
+import java.util.ArrayList;
+
+import com.emitrom.lienzo.client.core.shape.Circle;
+import com.emitrom.lienzo.client.core.shape.Group;
+import com.emitrom.lienzo.client.core.shape.IJSONSerializable;
+import com.emitrom.lienzo.client.core.shape.Layer;
+import com.emitrom.lienzo.client.core.shape.Rectangle;
+import com.emitrom.lienzo.client.core.shape.Style;
+import com.emitrom.lienzo.client.core.shape.json.validators.ValidationContext;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class JSONDeserializerGwtTest extends GWTTestCase
+{
+    private static final int TIMEOUT = 30000;
+
+    @Override
+    public String getModuleName()
+    {
+        return "com.emitrom.lienzo.Lienzo";
+    }
+
+    public void testIncrementalMatchesFromString()
+    {
+        final Group group = new Group();
+
+        final Style style = new Style().setFillColor("blue");
+
+        for (int i = 0; i < 20; i++)
+        {
+            Group nest = new Group().setX(i);
+
+            for (int j = 0; j < 10; j++)
+            {
+                nest.add(new Rectangle(i + 1, j + 1).setStyle(style));
+            }
+            group.add(nest);
+        }
+        group.add(new Circle(3));
+
+        final String json = group.toJSONString();
+
+        final ArrayList<Integer> done = new ArrayList<Integer>();
+
+        delayTestFinish(TIMEOUT);
+
+        JSONDeserializer.getInstance().fromStringIncremental(json, makeContext(true), 0, new IDeserializationCallback()
+        {
+            @Override
+            public void onProgress(IJSONSerializable<?> node, int made, int total)
+            {
+                assertEquals(1 + 20 + 200 + 1, total);
+
+                assertTrue((done.isEmpty()) || (made >= done.get(done.size() - 1)));
+
+                done.add(made);
+            }
+
+            @Override
+            public void onLayerComplete(Layer layer)
+            {
+                fail("no layers");
+            }
+
+            @Override
+            public void onComplete(IJSONSerializable<?> node, ValidationContext ctx)
+            {
+                assertNotNull(node);
+
+                assertEquals(0, ctx.getErrorCount());
+
+                assertTrue(done.size() > 1); // yielded between slices
+
+                assertEquals(222, done.get(done.size() - 1).intValue());
+
+                assertEquals(json.replaceAll("style\\d+", "style"), node.toJSONString().replaceAll("style\\d+", "style"));
+
+                assertEquals(JSONDeserializer.getInstance().fromString(json).toJSONString().replaceAll("style\\d+", "style"), node.toJSONString().replaceAll("style\\d+", "style"));
+
+                finishTest();
+            }
+        });
+    }
+
+    public void testLayerIsCompleteBeforeTheEnd()
+    {
+        Layer layer = new Layer();
+
+        for (int i = 0; i < 50; i++)
+        {
+            layer.add(new Rectangle(1, 1).setX(i));
+        }
+        final ArrayList<Layer> done = new ArrayList<Layer>();
+
+        delayTestFinish(TIMEOUT);
+
+        JSONDeserializer.getInstance().fromStringIncremental(layer.toJSONString(), makeContext(true), new IDeserializationCallback()
+        {
+            @Override
+            public void onProgress(IJSONSerializable<?> node, int made, int total)
+            {
+            }
+
+            @Override
+            public void onLayerComplete(Layer layer)
+            {
+                assertEquals(50, layer.getChildNodes().length());
+
+                done.add(layer);
+            }
+
+            @Override
+            public void onComplete(IJSONSerializable<?> node, ValidationContext ctx)
+            {
+                assertEquals(1, done.size());
+
+                assertSame(node, done.get(0));
+
+                finishTest();
+            }
+        });
+    }
+
+    public void testNoDocumentCompletesWithNull()
+    {
+        final ArrayList<Boolean> done = new ArrayList<Boolean>();
+
+        IDeserializationCallback callback = new IDeserializationCallback()
+        {
+            @Override
+            public void onProgress(IJSONSerializable<?> node, int made, int total)
+            {
+                fail("no progress");
+            }
+
+            @Override
+            public void onLayerComplete(Layer layer)
+            {
+                fail("no layers");
+            }
+
+            @Override
+            public void onComplete(IJSONSerializable<?> node, ValidationContext ctx)
+            {
+                assertNull(node);
+
+                done.add(true);
+            }
+        };
+        JSONDeserializer.getInstance().fromStringIncremental(null, makeContext(true), callback);
+
+        JSONDeserializer.getInstance().fromStringIncremental("  ", makeContext(true), callback);
+
+        JSONDeserializer.getInstance().fromStringIncremental("[1, 2]", makeContext(true), callback);
+
+        assertEquals(3, done.size()); // told at once, not scheduled
+    }
+
+    public void testErrorsMatchFromString()
+    {
+        final String json = "{\"type\":\"Group\", \"children\":[{\"type\":\"Rectangle\", \"attributes\":{\"width\":1, \"height\":1}}, {\"type\":\"Group\", \"children\":[5, {\"type\":\"Nothing\"}]}]}";
+
+        final ValidationContext check = makeContext(false);
+
+        final IJSONSerializable<?> read = JSONDeserializer.getInstance().fromString(json, check);
+
+        assertEquals(2, check.getErrorCount());
+
+        delayTestFinish(TIMEOUT);
+
+        JSONDeserializer.getInstance().fromStringIncremental(json, makeContext(false), 0, new IDeserializationCallback()
+        {
+            @Override
+            public void onProgress(IJSONSerializable<?> node, int made, int total)
+            {
+            }
+
+            @Override
+            public void onLayerComplete(Layer layer)
+            {
+            }
+
+            @Override
+            public void onComplete(IJSONSerializable<?> node, ValidationContext ctx)
+            {
+                assertNotNull(node);
+
+                assertEquals(read.toJSONString(), node.toJSONString());
+
+                assertEquals(check.getErrorCount(), ctx.getErrorCount());
+
+                for (int i = 0; i < ctx.getErrorCount(); i++)
+                {
+                    assertEquals(check.getErrors().get(i).getContext(), ctx.getErrors().get(i).getContext());
+                }
+                finishTest();
+            }
+        });
+    }
+
+    public void testStopOnErrorCompletesWithNull()
+    {
+        delayTestFinish(TIMEOUT);
+
+        JSONDeserializer.getInstance().fromStringIncremental("{\"type\":\"Group\", \"children\":[{\"type\":\"Nothing\"}]}", makeContext(true), new IDeserializationCallback()
+        {
+            @Override
+            public void onProgress(IJSONSerializable<?> node, int made, int total)
+            {
+            }
+
+            @Override
+            public void onLayerComplete(Layer layer)
+            {
+            }
+
+            @Override
+            public void onComplete(IJSONSerializable<?> node, ValidationContext ctx)
+            {
+                assertNull(node);
+
+                assertEquals(1, ctx.getErrorCount());
+
+                finishTest();
+            }
+        });
+    }
+
+    private static final ValidationContext makeContext(boolean stop)
+    {
+        return new ValidationContext().setValidate(true).setStopOnError(stop);
+    }
+}
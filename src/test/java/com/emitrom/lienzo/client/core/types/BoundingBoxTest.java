@@ -0,0 +1,186 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BoundingBoxTest
+{
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testNewBoxIsEmpty()
+    {
+        BoundingBox bbox = new BoundingBox();
+
+        assertTrue(bbox.isEmpty());
+
+        assertEquals(0, bbox.getWidth(), EPSILON);
+
+        assertEquals(0, bbox.getHeight(), EPSILON);
+
+        assertFalse(bbox.contains(0, 0));
+    }
+
+    @Test
+    public void testAddPointsGrowsBox()
+    {
+        BoundingBox bbox = new BoundingBox().add(10, 20).add(-5, 40).add(0, 0);
+
+        assertFalse(bbox.isEmpty());
+
+        assertEquals(-5, bbox.getMinX(), EPSILON);
+
+        assertEquals(0, bbox.getMinY(), EPSILON);
+
+        assertEquals(10, bbox.getMaxX(), EPSILON);
+
+        assertEquals(40, bbox.getMaxY(), EPSILON);
+
+        assertEquals(15, bbox.getWidth(), EPSILON);
+
+        assertEquals(40, bbox.getHeight(), EPSILON);
+    }
+
+    @Test
+    public void testSinglePointIsNotEmpty()
+    {
+        BoundingBox bbox = new BoundingBox().add(3, 4);
+
+        assertFalse(bbox.isEmpty());
+
+        assertTrue(bbox.contains(3, 4));
+
+        assertEquals(0, bbox.getWidth(), EPSILON);
+    }
+
+    @Test
+    public void testAddEmptyBoxChangesNothing()
+    {
+        BoundingBox bbox = new BoundingBox(0, 0, 10, 10).add(new BoundingBox()).add((BoundingBox) null);
+
+        assertEquals(0, bbox.getMinX(), EPSILON);
+
+        assertEquals(10, bbox.getMaxY(), EPSILON);
+    }
+
+    @Test
+    public void testExpandLeavesEmptyBoxEmpty()
+    {
+        assertTrue(new BoundingBox().expand(5).isEmpty());
+
+        BoundingBox bbox = new BoundingBox(0, 0, 10, 10).expand(2);
+
+        assertEquals(-2, bbox.getMinX(), EPSILON);
+
+        assertEquals(12, bbox.getMaxY(), EPSILON);
+    }
+
+    @Test
+    public void testIntersectsAndContains()
+    {
+        BoundingBox a = new BoundingBox(0, 0, 10, 10);
+
+        assertTrue(a.intersects(new BoundingBox(10, 10, 20, 20))); // touching edges
+
+        assertFalse(a.intersects(new BoundingBox(10.5, 0, 20, 10)));
+
+        assertFalse(a.intersects(new BoundingBox()));
+
+        assertTrue(a.contains(new BoundingBox(2, 2, 8, 8)));
+
+        assertFalse(a.contains(new BoundingBox(2, 2, 18, 8)));
+    }
+
+    @Test
+    public void testEdgeDistance()
+    {
+        BoundingBox bbox = new BoundingBox(0, 0, 10, 10);
+
+        assertEquals(2, bbox.getEdgeDistance(2, 5), EPSILON);
+
+        assertEquals(5, bbox.getEdgeDistance(13, 14), EPSILON);
+
+        assertEquals(Double.POSITIVE_INFINITY, new BoundingBox().getEdgeDistance(0, 0), 0);
+    }
+
+    @Test
+    public void testArcQuarterCoversOnlyItsQuadrant()
+    {
+        BoundingBox bbox = new BoundingBox().addArc(0, 0, 10, 0, Math.PI / 2, false);
+
+        assertEquals(0, bbox.getMinX(), EPSILON);
+
+        assertEquals(0, bbox.getMinY(), EPSILON);
+
+        assertEquals(10, bbox.getMaxX(), EPSILON);
+
+        assertEquals(10, bbox.getMaxY(), EPSILON);
+    }
+
+    @Test
+    public void testArcCounterClockwiseTakesTheLongWay()
+    {
+        BoundingBox bbox = new BoundingBox().addArc(0, 0, 10, 0, Math.PI / 2, true);
+
+        assertEquals(-10, bbox.getMinX(), EPSILON);
+
+        assertEquals(-10, bbox.getMinY(), EPSILON);
+
+        assertEquals(10, bbox.getMaxX(), EPSILON);
+
+        assertEquals(10, bbox.getMaxY(), EPSILON);
+    }
+
+    @Test
+    public void testFullArcIsWholeCircle()
+    {
+        BoundingBox bbox = new BoundingBox().addArc(5, 5, 2, 1, 1 + Math.PI * 2, false);
+
+        assertEquals(3, bbox.getMinX(), EPSILON);
+
+        assertEquals(7, bbox.getMaxY(), EPSILON);
+    }
+
+    @Test
+    public void testTransformRotatesCorners()
+    {
+        // 90 degree rotation: (x, y) -> (-y, x)
+
+        BoundingBox bbox = new BoundingBox(0, 0, 10, 20).transform(0, 1, -1, 0, 100, 0);
+
+        assertEquals(80, bbox.getMinX(), EPSILON);
+
+        assertEquals(0, bbox.getMinY(), EPSILON);
+
+        assertEquals(100, bbox.getMaxX(), EPSILON);
+
+        assertEquals(10, bbox.getMaxY(), EPSILON);
+    }
+
+    @Test
+    public void testTransformOfEmptyBoxIsEmpty()
+    {
+        assertTrue(new BoundingBox().transform(2, 0, 0, 2, 5, 5).isEmpty());
+    }
+}
@@ -0,0 +1,213 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.types;
+
+import com.emitrom.lienzo.client.core.shape.Polygon;
+import com.emitrom.lienzo.client.core.shape.json.JSONDeserializer;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class Point2DArrayGwtTest extends GWTTestCase
+{
+    @Override
+    public String getModuleName()
+    {
+        return "com.emitrom.lienzo.Lienzo";
+    }
+
+    public void testPackedPushAndGet()
+    {
+        Point2DArray points = Point2DArray.packed(1, 2, 3, 4);
+
+        assertTrue(points.isPacked());
+
+        assertEquals(2, points.getLength());
+
+        points.push(5, 6).push(new Point2D(7, 8));
+
+        assertEquals(4, points.getLength());
+
+        assertEquals(5.0, points.getX(2));
+
+        assertEquals(8.0, points.getY(3));
+
+        assertEquals(3.0, points.getPoint(1).getX());
+    }
+
+    public void testPackedGrowsPastItsFirstBuffer()
+    {
+        Point2DArray points = Point2DArray.packed();
+
+        for (int i = 0; i < 100; i++)
+        {
+            points.push(i, -i);
+        }
+        assertEquals(100, points.getLength());
+
+        assertEquals(0.0, points.getX(0));
+
+        assertEquals(99.0, points.getX(99));
+
+        assertEquals(-99.0, points.getY(99));
+    }
+
+    public void testPackedOddCoordinateIsIgnored()
+    {
+        assertEquals(1, Point2DArray.packed(1, 2, 3).getLength());
+
+        assertEquals(0, Point2DArray.packed().push((double[]) null).getLength());
+    }
+
+    public void testPackedShiftPopAndSet()
+    {
+        Point2DArray points = Point2DArray.packed(1, 2, 3, 4, 5, 6);
+
+        points.shift();
+
+        assertEquals(2, points.getLength());
+
+        assertEquals(3.0, points.getX(0));
+
+        points.pop();
+
+        assertEquals(1, points.getLength());
+
+        assertEquals(4.0, points.getY(0));
+
+        points.setPoint(0, new Point2D(9, 10));
+
+        assertEquals(9.0, points.getX(0));
+
+        points.pop().pop().shift(); // empty, must not go negative
+
+        assertEquals(0, points.getLength());
+
+        points.push(11, 12);
+
+        assertEquals(1, points.getLength());
+
+        assertEquals(11.0, points.getX(0));
+    }
+
+    public void testPackedJSOStaysInStep()
+    {
+        Point2DArray points = Point2DArray.packed(1, 2);
+
+        assertEquals(1, points.getJSO().length());
+
+        points.push(3, 4);
+
+        points.setPoint(0, new Point2D(5, 6));
+
+        assertEquals(2, points.getJSO().length());
+
+        assertEquals(5.0, points.getJSO().get(0).getX());
+
+        assertEquals(4.0, points.getJSO().get(1).getY());
+
+        assertEquals(new Point2DArray(new double[] { 5, 3 }, new double[] { 6, 4 }).toString(), points.toString());
+    }
+
+    public void testUnpackedIsNotPacked()
+    {
+        Point2DArray points = new Point2DArray(new Point2D(1, 2), new Point2D(3, 4));
+
+        assertFalse(points.isPacked());
+
+        assertEquals(3.0, points.getX(1));
+
+        assertSame(points.getJSO(), points.getAttributeJSO());
+    }
+
+    public void testFromAttributeJSO()
+    {
+        assertNull(Point2DArray.fromAttributeJSO(null));
+
+        assertNull(Point2DArray.fromAttributeJSO(new Point2D(1, 2).getJSO()));
+
+        Point2DArray packed = Point2DArray.fromAttributeJSO(Point2DArray.packed(1, 2).getAttributeJSO());
+
+        assertTrue(packed.isPacked());
+
+        assertEquals(2.0, packed.getY(0));
+
+        Point2DArray plain = Point2DArray.fromAttributeJSO(new Point2DArray(new Point2D(1, 2)).getAttributeJSO());
+
+        assertFalse(plain.isPacked());
+
+        assertEquals(1, plain.getLength());
+    }
+
+    public void testArrayMadeFromPackedFindsItsCoordinates()
+    {
+        Point2DArray points = new Point2DArray(Point2DArray.packed(1, 2, 3, 4).getJSO().<JsArray<JavaScriptObject>> cast());
+
+        assertTrue(points.isPacked());
+
+        assertEquals(2, points.getLength());
+    }
+
+    public void testShapeKeepsPointsPacked()
+    {
+        Polygon polygon = new Polygon(Point2DArray.packed(0, 0, 10, 0, 10, 10));
+
+        Point2DArray points = polygon.getPoints();
+
+        assertTrue(points.isPacked());
+
+        assertEquals(3, points.getLength());
+
+        assertTrue(polygon.copy().getPoints().isPacked());
+    }
+
+    public void testCopyDoesNotSharePackedCoordinates()
+    {
+        Polygon polygon = new Polygon(Point2DArray.packed(0, 0, 10, 0, 10, 10));
+
+        Polygon copy = polygon.copy();
+
+        copy.getPoints().setPoint(0, new Point2D(5, 5));
+
+        assertEquals(0.0, polygon.getPoints().getX(0));
+
+        assertEquals(5.0, copy.getPoints().getX(0));
+    }
+
+    public void testPackedRoundTripsThroughJSON()
+    {
+        Polygon polygon = new Polygon(Point2DArray.packed(0, 0, 10.5, 0, 10, -10));
+
+        String json = polygon.toJSONString();
+
+        assertTrue(json, json.contains("\"points\":[{\"x\":0, \"y\":0},{\"x\":10.5, \"y\":0},{\"x\":10, \"y\":-10}]"));
+
+        assertFalse(json, json.contains("typed"));
+
+        Polygon read = (Polygon) JSONDeserializer.getInstance().fromString(json);
+
+        assertNotNull(read);
+
+        assertEquals(json, read.toJSONString());
+
+        assertEquals(3, read.getPoints().getLength());
+
+        assertEquals(-10.0, read.getPoints().getY(2));
+    }
+}
@@ -0,0 +1,237 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.emitrom.lienzo.client.core.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RTreeTest
+{
+    @Test
+    public void testEmptyTree()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        assertEquals(0, tree.size());
+
+        assertTrue(tree.search(new BoundingBox(0, 0, 100, 100)).isEmpty());
+
+        assertTrue(tree.nearest(0, 0, 3).isEmpty());
+
+        assertFalse(tree.remove("a"));
+    }
+
+    @Test
+    public void testInsertAndSearch()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        tree.insert("a", new BoundingBox(0, 0, 10, 10));
+
+        tree.insert("b", new BoundingBox(20, 20, 30, 30));
+
+        assertEquals(2, tree.size());
+
+        assertEquals(list("a"), tree.search(5, 5));
+
+        assertEquals(list("b"), tree.search(new BoundingBox(25, 25, 50, 50)));
+
+        assertTrue(tree.search(15, 15).isEmpty());
+    }
+
+    @Test
+    public void testEmptyBoxRemovesValue()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        tree.insert("a", new BoundingBox(0, 0, 10, 10));
+
+        tree.insert("a", new BoundingBox());
+
+        assertFalse(tree.contains("a"));
+
+        tree.insert("b", null);
+
+        assertEquals(0, tree.size());
+    }
+
+    @Test
+    public void testInsertAgainMovesValue()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        tree.insert("a", new BoundingBox(0, 0, 10, 10));
+
+        tree.insert("a", new BoundingBox(50, 50, 60, 60));
+
+        assertEquals(1, tree.size());
+
+        assertTrue(tree.search(5, 5).isEmpty());
+
+        assertEquals(list("a"), tree.search(55, 55));
+
+        assertEquals(50, tree.getBoundingBox("a").getMinX(), 0);
+    }
+
+    @Test
+    public void testStoredBoxIsACopy()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        BoundingBox bbox = new BoundingBox(0, 0, 10, 10);
+
+        tree.insert("a", bbox);
+
+        bbox.add(100, 100);
+
+        assertTrue(tree.search(50, 50).isEmpty());
+    }
+
+    @Test
+    public void testValuesAreComparedByIdentity()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        String a = new String("same");
+
+        String b = new String("same");
+
+        tree.insert(a, new BoundingBox(0, 0, 1, 1));
+
+        tree.insert(b, new BoundingBox(0, 0, 1, 1));
+
+        assertEquals(2, tree.size());
+
+        assertTrue(tree.remove(a));
+
+        assertSame(b, tree.search(0, 0).get(0));
+    }
+
+    @Test
+    public void testNearestIsOrderedByDistance()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        tree.insert("far", new BoundingBox(100, 0, 110, 10));
+
+        tree.insert("near", new BoundingBox(20, 0, 30, 10));
+
+        tree.insert("under", new BoundingBox(0, 0, 10, 10));
+
+        assertEquals(list("under", "near"), tree.nearest(5, 5, 2));
+
+        assertEquals(3, tree.nearest(5, 5, 10).size());
+
+        assertTrue(tree.nearest(5, 5, 0).isEmpty());
+    }
+
+    @Test
+    public void testClear()
+    {
+        RTree<String> tree = new RTree<String>();
+
+        tree.insert("a", new BoundingBox(0, 0, 10, 10));
+
+        tree.clear();
+
+        assertEquals(0, tree.size());
+
+        assertNull(tree.getBoundingBox("a"));
+
+        assertTrue(tree.search(5, 5).isEmpty());
+    }
+
+    @Test
+    public void testManyValuesMatchLinearScan()
+    {
+        // enough values to split leaves and grow the tree several levels, then remove half to condense it
+
+        RTree<Integer> tree = new RTree<Integer>();
+
+        ArrayList<BoundingBox> boxes = new ArrayList<BoundingBox>();
+
+        ArrayList<Integer> values = new ArrayList<Integer>(); // the tree compares by identity, so keep the boxed values
+
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++)
+        {
+            double x = random.nextDouble() * 1000;
+
+            double y = random.nextDouble() * 1000;
+
+            BoundingBox bbox = new BoundingBox(x, y, x + random.nextDouble() * 20, y + random.nextDouble() * 20);
+
+            boxes.add(bbox);
+
+            values.add(i);
+
+            tree.insert(values.get(i), bbox);
+        }
+        for (int i = 0; i < 2000; i += 2)
+        {
+            assertTrue(tree.remove(values.get(i)));
+        }
+        assertEquals(1000, tree.size());
+
+        for (int q = 0; q < 50; q++)
+        {
+            double x = random.nextDouble() * 1000;
+
+            double y = random.nextDouble() * 1000;
+
+            BoundingBox region = new BoundingBox(x, y, x + 60, y + 60);
+
+            HashSet<Integer> expect = new HashSet<Integer>();
+
+            for (int i = 1; i < 2000; i += 2)
+            {
+                if (region.intersects(boxes.get(i)))
+                {
+                    expect.add(i);
+                }
+            }
+            ArrayList<Integer> found = tree.search(region);
+
+            assertEquals(expect.size(), found.size());
+
+            assertEquals(expect, new HashSet<Integer>(found));
+        }
+    }
+
+    private static final ArrayList<String> list(String... values)
+    {
+        ArrayList<String> list = new ArrayList<String>();
+
+        for (String value : values)
+        {
+            list.add(value);
+        }
+        return list;
+    }
+}
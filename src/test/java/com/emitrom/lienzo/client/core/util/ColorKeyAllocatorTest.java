@@ -0,0 +1,139 @@
+/*
+   Copyright (c) 2012 Emitrom LLC. All rights reserved. 
+   For licensing questions, please contact us at licensing@emitrom.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.emitrom.lienzo.client.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class ColorKeyAllocatorTest
+{
+    @Test
+    public void testKeysAreUnique()
+    {
+        HashSet<Integer> keys = new HashSet<Integer>();
+
+        for (int i = 0; i < 10000; i++)
+        {
+            int key = ColorKeyAllocator.acquire();
+
+            assertTrue(key > 0);
+
+            assertTrue(key <= 0xffffff);
+
+            assertTrue(keys.add(key));
+        }
+    }
+
+    @Test
+    public void testReleasedKeyIsReused()
+    {
+        int key = ColorKeyAllocator.acquire();
+
+        int free = ColorKeyAllocator.getFreeCount();
+
+        ColorKeyAllocator.release(key);
+
+        assertEquals(free + 1, ColorKeyAllocator.getFreeCount());
+
+        assertEquals(key, ColorKeyAllocator.acquire());
+
+        assertEquals(free, ColorKeyAllocator.getFreeCount());
+    }
+
+    @Test
+    public void testManyReleasedKeysAreReused()
+    {
+        HashSet<Integer> keys = new HashSet<Integer>();
+
+        for (int i = 0; i < 200; i++) // more than the first free list holds
+        {
+            keys.add(ColorKeyAllocator.acquire());
+        }
+        for (Integer key : keys)
+        {
+            ColorKeyAllocator.release(key);
+        }
+        HashSet<Integer> again = new HashSet<Integer>();
+
+        for (int i = 0; i < 200; i++)
+        {
+            again.add(ColorKeyAllocator.acquire());
+        }
+        assertEquals(keys, again);
+    }
+
+    @Test
+    public void testReservedKeyIsNeverHandedOut()
+    {
+        int free = ColorKeyAllocator.getFreeCount();
+
+        ColorKeyAllocator.release(0);
+
+        ColorKeyAllocator.release(-1);
+
+        ColorKeyAllocator.release(0x1000000);
+
+        assertEquals(free, ColorKeyAllocator.getFreeCount());
+
+        for (int i = 0; i < 1000; i++)
+        {
+            assertFalse(0 == ColorKeyAllocator.acquire());
+        }
+    }
+
+    @Test
+    public void testDoubleReleaseIsSafe()
+    {
+        int key = ColorKeyAllocator.acquire();
+
+        int free = ColorKeyAllocator.getFreeCount();
+
+        ColorKeyAllocator.release(key);
+
+        ColorKeyAllocator.release(key);
+
+        assertEquals(free + 1, ColorKeyAllocator.getFreeCount());
+
+        assertEquals(key, ColorKeyAllocator.acquire());
+
+        assertFalse(key == ColorKeyAllocator.acquire());
+    }
+
+    @Test
+    public void testKeyNeverHandedOutIsNotTakenBack()
+    {
+        int free = ColorKeyAllocator.getFreeCount();
+
+        ColorKeyAllocator.release(0xfffffe);
+
+        assertEquals(free, ColorKeyAllocator.getFreeCount());
+    }
+
+    @Test
+    public void testColorString()
+    {
+        assertEquals("#00012C", ColorKeyAllocator.toColorString(0x12c));
+
+        assertEquals("#FFFFFF", ColorKeyAllocator.toColorString(0xffffff));
+    }
+}